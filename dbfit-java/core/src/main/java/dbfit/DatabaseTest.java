@@ -3,8 +3,10 @@ package dbfit;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.concurrent.Future;
 
 import dbfit.api.DBEnvironment;
+import dbfit.fixture.QueryPrefetcher;
 import dbfit.util.*;
 import fit.Fixture;
 import fit.Parse;
@@ -12,18 +14,25 @@ import fitlibrary.SequenceFixture;
 
 public class DatabaseTest extends Fixture {
     protected DBEnvironment environment;
+    private QueryPrefetcher prefetcher;
 
     // ugly workaround since fitlibrary no longer allows this to be
     // overridden; we create an inner sequence fixture and pass the
     // execution to it, but this one is now a fixture to allow things to be overridden
     public void interpretTables(Parse tables) {
         Options.reset();
+        prefetcher = new QueryPrefetcher(environment);
         SequenceFixture sf = new SequenceFixture();
         sf.listener = listener;
         sf.counts = counts;
         sf.summary = summary;
         sf.setSystemUnderTest(this);
-        sf.interpretTables(tables);
+        try {
+            sf.interpretTables(tables);
+        } finally {
+            prefetcher.close();
+            prefetcher = null;
+        }
         try {
             Log.log("Rolling back");
             if (environment != null) {
@@ -72,17 +81,33 @@ public class DatabaseTest extends Fixture {
     }
 
     public Fixture query(String query) {
-        return new dbfit.fixture.Query(environment, query);
+        dbfit.fixture.Query fixture = new dbfit.fixture.Query(environment, query);
+        fixture.setPrefetchedResults(takePrefetched(query));
+        return lookAhead(fixture);
+    }
+
+    public Fixture query(String query, int timeoutSeconds) {
+        return withQueryTimeout(timeoutSeconds, query(query));
     }
 
     public Fixture orderedQuery(String query) {
-        return new dbfit.fixture.Query(environment, query, true);
+        dbfit.fixture.Query fixture = new dbfit.fixture.Query(environment, query, true);
+        fixture.setPrefetchedResults(takePrefetched(query));
+        return lookAhead(fixture);
+    }
+
+    public Fixture orderedQuery(String query, int timeoutSeconds) {
+        return withQueryTimeout(timeoutSeconds, orderedQuery(query));
     }
 
     public Fixture execute(String statement) {
         return new dbfit.fixture.Execute(environment, statement);
     }
 
+    public Fixture execute(String statement, int timeoutSeconds) {
+        return withQueryTimeout(timeoutSeconds, execute(statement));
+    }
+
     public Fixture executeDdl(String statement) {
         return new dbfit.fixture.ExecuteDdl(environment, statement);
     }
@@ -91,6 +116,15 @@ public class DatabaseTest extends Fixture {
         return new dbfit.fixture.ExecuteProcedure(environment, statement);
     }
 
+    public Fixture executeProcedure(String statement, int timeoutSeconds) {
+        return withQueryTimeout(timeoutSeconds, executeProcedure(statement));
+    }
+
+    private static Fixture withQueryTimeout(int timeoutSeconds, Fixture fixture) {
+        return new dbfit.fixture.TableOption(Options.OPTION_QUERY_TIMEOUT,
+                String.valueOf(timeoutSeconds), fixture);
+    }
+
     public Fixture executeProcedureExpectException(String statement) {
         return new dbfit.fixture.ExecuteProcedureExpectException(environment, statement);
     }
@@ -103,14 +137,46 @@ public class DatabaseTest extends Fixture {
         return new dbfit.fixture.Insert(environment, tableName);
     }
 
+    public Fixture insert(String tableName, String mode) {
+        return new dbfit.fixture.Insert(environment, tableName, mode);
+    }
+
+    public Fixture bulkInsert(String tableName) {
+        return new dbfit.fixture.BulkInsert(environment, tableName);
+    }
+
+    public Fixture loadFile(String tableName, String file) {
+        return new dbfit.fixture.LoadFile(environment, tableName, file);
+    }
+
+    public Fixture generateData(String tableName, long rows) {
+        return new dbfit.fixture.GenerateData(environment, tableName, rows, 0);
+    }
+
+    public Fixture generateData(String tableName, long rows, long seed) {
+        return new dbfit.fixture.GenerateData(environment, tableName, rows, seed);
+    }
+
     public Fixture update(String tableName) {
         return new dbfit.fixture.Update(environment, tableName);
     }
 
+    public Fixture upsert(String tableName) {
+        return new dbfit.fixture.Upsert(environment, tableName);
+    }
+
     public Fixture clean() {
         return new dbfit.fixture.Clean(environment);
     }
 
+    public Fixture cleanSchema(String schema, String pattern) {
+        return new dbfit.fixture.CleanSchema(environment, schema, pattern, null);
+    }
+
+    public Fixture cleanSchema(String schema, String pattern, String mode) {
+        return new dbfit.fixture.CleanSchema(environment, schema, pattern, mode);
+    }
+
     //  public Fixture testData(String type)
     //  {
     //      Log.log("Calling testData method with type '%s'", type);
@@ -126,7 +192,7 @@ public class DatabaseTest extends Fixture {
     }
 
     public Fixture queryStats() {
-        return new dbfit.fixture.QueryStats(environment);
+        return lookAhead(new dbfit.fixture.QueryStats(environment));
     }
 
     public Fixture inspectProcedure(String procName) {
@@ -146,15 +212,71 @@ public class DatabaseTest extends Fixture {
     }
 
     public Fixture storeQuery(String query, String symbolName) {
-        return new dbfit.fixture.StoreQuery(environment, query, symbolName);
+        dbfit.fixture.StoreQuery fixture = new dbfit.fixture.StoreQuery(environment, query, symbolName);
+        fixture.setPrefetchedResults(takePrefetched(query));
+        return lookAhead(fixture);
+    }
+
+    public Fixture storeQuery(String query, String symbolName, String baselineFile) {
+        dbfit.fixture.StoreQuery fixture = new dbfit.fixture.StoreQuery(environment, query, symbolName, baselineFile);
+        fixture.setPrefetchedResults(takePrefetched(query));
+        return lookAhead(fixture);
+    }
+
+    public Fixture compareQueryWithBaseline(String query, String baselineFile) {
+        return new dbfit.fixture.CompareQueryWithBaseline(environment, query, baselineFile);
+    }
+
+    public Fixture exportQuery(String query, String file) {
+        return new dbfit.fixture.ExportQuery(environment, query, file, null);
+    }
+
+    public Fixture exportQuery(String query, String file, String format) {
+        return new dbfit.fixture.ExportQuery(environment, query, file, format);
+    }
+
+    public Fixture loadTest(String command, int sessions, double seconds) {
+        return new dbfit.fixture.LoadTest(environment, command, sessions, seconds, 0, null);
+    }
+
+    public Fixture loadTest(String command, int sessions, double seconds, double rampUpSeconds) {
+        return new dbfit.fixture.LoadTest(environment, command, sessions, seconds, rampUpSeconds, null);
+    }
+
+    public Fixture loadTest(String command, int sessions, double seconds, double rampUpSeconds,
+            String thresholds) {
+        return new dbfit.fixture.LoadTest(environment, command, sessions, seconds, rampUpSeconds, thresholds);
     }
 
     public Fixture compareStoredQueries(String symbol1, String symbol2) {
-        return new dbfit.fixture.CompareStoredQueries(environment, symbol1, symbol2);
+        return lookAhead(new dbfit.fixture.CompareStoredQueries(environment, symbol1, symbol2));
     }
 
     public Fixture compareStoredQueriesHideMatchingRows(String symbol1, String symbol2) {
-        return new dbfit.fixture.CompareStoredQueriesHideMatchingRows(environment, symbol1, symbol2);
+        return lookAhead(new dbfit.fixture.CompareStoredQueriesHideMatchingRows(environment, symbol1, symbol2));
+    }
+
+    /**
+     * Results of the query, if it was prefetched while the previous table ran.
+     */
+    private Future<DataTable> takePrefetched(String query) {
+        return (prefetcher == null) ? null : prefetcher.take(query);
+    }
+
+    /**
+     * Lets a table which only reads prefetch the query of the next table.
+     */
+    private Fixture lookAhead(Fixture fixture) {
+        return (prefetcher == null) ? fixture : prefetcher.lookAhead(fixture);
+    }
+
+    public Fixture compareStreamedQueries(String query1, String environmentName, String query2) {
+        return new dbfit.fixture.CompareStreamedQueries(environment, query1,
+                dbfit.api.DbEnvironmentFactory.getNamedEnvironment(environmentName), query2);
+    }
+
+    public void nameEnvironment(String name) {
+        dbfit.api.DbEnvironmentFactory.setNamedEnvironment(name, environment);
     }
 
     public Fixture setOption(String option, String value) {
@@ -8,6 +8,10 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.Properties;
@@ -15,6 +19,8 @@ import java.util.Properties;
 public abstract class AbstractDbEnvironment implements DBEnvironment {
 
     protected Connection currentConnection;
+    protected String connectionString;
+    protected Properties connectionProperties;
     protected String driverClassName;
     protected TypeTransformerFactory dbfitToJdbcTransformerFactory = new TypeTransformerFactory();
 
@@ -52,9 +58,20 @@ public abstract class AbstractDbEnvironment implements DBEnvironment {
         registerDriver();
         closeConnection();
         currentConnection = DriverManager.getConnection(connectionString, info);
+        this.connectionString = connectionString;
+        this.connectionProperties = info;
         afterConnectionEstablished();
     }
 
+    public Connection openConnection() throws SQLException {
+        if (connectionString == null) {
+            throw new SQLException("Not connected to a database");
+        }
+        Connection connection = DriverManager.getConnection(connectionString, connectionProperties);
+        connection.setAutoCommit(true);
+        return connection;
+    }
+
     @Override
     public void connect(String connectionString) throws SQLException {
         connect(connectionString, new Properties());
@@ -105,6 +122,10 @@ public abstract class AbstractDbEnvironment implements DBEnvironment {
         return commandText;
     }
 
+    public String buildParameterisedCommand(String commandText) {
+        return parseCommandText(getParameterPattern().matcher(commandText).replaceAll("?"));
+    }
+
     public final PreparedStatement createStatementWithBoundFixtureSymbols(
             TestHost testHost, String commandText) throws SQLException {
         String command = Options.isBindSymbols() ? parseCommandText(commandText) : commandText;
@@ -244,6 +265,174 @@ public abstract class AbstractDbEnvironment implements DBEnvironment {
         return new DbStoredProcedureCall(this, name, accessors);
     }
 
+    public BulkLoader getBulkLoader() {
+        return null;
+    }
+
+    public BulkExtractor getBulkExtractor() {
+        return null;
+    }
+
+    public String buildTruncateCommand(String tableName) {
+        return "truncate table " + tableName;
+    }
+
+    public String buildArrayInclusionPredicate(DbParameterAccessor column) {
+        return null;
+    }
+
+    /**
+     * Reads the tables and foreign keys through JDBC metadata. Unquoted
+     * names are converted to the case the database stores identifiers in;
+     * databases without schemas, eg MySQL, look the schema up as catalog.
+     */
+    public Map<String, Set<String>> getTableDependencies(String schema, String tablePattern)
+            throws SQLException {
+        DatabaseMetaData metaData = getConnection().getMetaData();
+        String catalogName = null;
+        String schemaName = toMetaDataName(metaData, schema);
+        if (schemaName != null && !metaData.supportsSchemasInTableDefinitions()) {
+            catalogName = schemaName;
+            schemaName = null;
+        }
+
+        Map<String, Set<String>> dependencies = new TreeMap<String, Set<String>>();
+        Map<String, String[]> qualifiers = new TreeMap<String, String[]>();
+        try (ResultSet rs = metaData.getTables(catalogName, schemaName,
+                    toMetaDataName(metaData, tablePattern), new String[] { "TABLE" })) {
+            while (rs.next()) {
+                String[] table = { rs.getString("TABLE_CAT"), rs.getString("TABLE_SCHEM"),
+                    rs.getString("TABLE_NAME") };
+                String name = qualifyTableName(table[0], table[1], table[2]);
+                dependencies.put(name, new TreeSet<String>());
+                qualifiers.put(name, table);
+            }
+        }
+
+        for (Map.Entry<String, String[]> table : qualifiers.entrySet()) {
+            String[] q = table.getValue();
+            try (ResultSet rs = metaData.getImportedKeys(q[0], q[1], q[2])) {
+                while (rs.next()) {
+                    String referenced = qualifyTableName(rs.getString("PKTABLE_CAT"),
+                            rs.getString("PKTABLE_SCHEM"), rs.getString("PKTABLE_NAME"));
+                    if (dependencies.containsKey(referenced) && !referenced.equals(table.getKey())) {
+                        dependencies.get(table.getKey()).add(referenced);
+                    }
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    private static String toMetaDataName(DatabaseMetaData metaData, String name) throws SQLException {
+        if (name == null || name.trim().length() == 0) {
+            return null;
+        }
+        name = name.trim();
+        if (name.startsWith("\"") && name.endsWith("\"")) {
+            return name.substring(1, name.length() - 1);
+        }
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return name.toUpperCase();
+        }
+        if (metaData.storesLowerCaseIdentifiers()) {
+            return name.toLowerCase();
+        }
+        return name;
+    }
+
+    private static String qualifyTableName(String catalog, String schema, String table) {
+        String qualifier = (schema != null) ? schema : catalog;
+        return (qualifier == null) ? table : qualifier + "." + table;
+    }
+
+    public String buildDisableConstraintsCommand(String tableName) {
+        return null;
+    }
+
+    public String buildEnableConstraintsCommand(String tableName) {
+        return null;
+    }
+
+    public String buildSessionDiagnosticsQuery() {
+        return null;
+    }
+
+    /**
+     * by default, builds a standard MERGE statement with the row as a VALUES
+     * source
+     */
+    public String buildUpsertCommand(String tableName, DbParameterAccessor[] keyColumns,
+            DbParameterAccessor[] valueColumns) {
+        StringBuilder sb = new StringBuilder("merge into ").append(tableName)
+            .append(" t using (values (");
+        appendParameters(sb, keyColumns.length + valueColumns.length);
+        sb.append(")) as s (");
+        appendColumnNames(sb, keyColumns, valueColumns, "");
+        sb.append(")");
+        appendMergeClauses(sb, keyColumns, valueColumns);
+        return sb.toString();
+    }
+
+    public PreparedStatement buildUpsertPreparedStatement(String tableName,
+            DbParameterAccessor[] keyColumns, DbParameterAccessor[] valueColumns)
+            throws SQLException {
+        String command = buildUpsertCommand(tableName, keyColumns, valueColumns);
+        return command == null ? null : getConnection().prepareStatement(command);
+    }
+
+    /**
+     * by default, the update count of a MERGE is 1 for inserted and updated
+     * rows alike
+     */
+    public boolean[] getUpsertInserts(StatementExecution statement, int[] updateCounts)
+            throws SQLException {
+        return null;
+    }
+
+    /**
+     * appends the ON, WHEN MATCHED and WHEN NOT MATCHED clauses of a MERGE
+     * statement whose source is aliased s and target t
+     */
+    protected static void appendMergeClauses(StringBuilder sb, DbParameterAccessor[] keyColumns,
+            DbParameterAccessor[] valueColumns) {
+        sb.append(" on (");
+        for (int i = 0; i < keyColumns.length; i++) {
+            sb.append(i > 0 ? " and " : "").append("t.").append(keyColumns[i].getName())
+                .append(" = s.").append(keyColumns[i].getName());
+        }
+        sb.append(")");
+        if (valueColumns.length > 0) {
+            sb.append(" when matched then update set ");
+            for (int i = 0; i < valueColumns.length; i++) {
+                sb.append(i > 0 ? ", " : "").append(valueColumns[i].getName())
+                    .append(" = s.").append(valueColumns[i].getName());
+            }
+        }
+        sb.append(" when not matched then insert (");
+        appendColumnNames(sb, keyColumns, valueColumns, "");
+        sb.append(") values (");
+        appendColumnNames(sb, keyColumns, valueColumns, "s.");
+        sb.append(")");
+    }
+
+    protected static void appendColumnNames(StringBuilder sb, DbParameterAccessor[] keyColumns,
+            DbParameterAccessor[] valueColumns, String prefix) {
+        String comma = "";
+        for (DbParameterAccessor[] columns : new DbParameterAccessor[][] { keyColumns, valueColumns }) {
+            for (DbParameterAccessor column : columns) {
+                sb.append(comma).append(prefix).append(column.getName());
+                comma = ", ";
+            }
+        }
+    }
+
+    protected static void appendParameters(StringBuilder sb, int count) {
+        for (int i = 0; i < count; i++) {
+            sb.append(i > 0 ? ", " : "").append("?");
+        }
+    }
+
     public DbParameterAccessor createAutogeneratedPrimaryKeyAccessor(
             DbParameterAccessor template) {
         return new DbAutoGeneratedKeyAccessor(template);
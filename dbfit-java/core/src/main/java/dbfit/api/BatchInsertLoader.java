@@ -0,0 +1,77 @@
+package dbfit.api;
+
+import dbfit.fixture.StatementExecution;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Options;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+
+/**
+ * Loads rows with the insert statement of the environment, sending them to
+ * the database in JDBC batches of the size set by the batchsize option.
+ * Used for environments without a bulk loader of their own.
+ */
+public class BatchInsertLoader implements BulkLoader {
+    private final DBEnvironment environment;
+
+    public BatchInsertLoader(DBEnvironment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Returns the bulk loader of the environment if it can load the columns
+     * into the table, or a batch insert loader otherwise.
+     */
+    public static BulkLoader forTable(DBEnvironment environment, String tableName,
+            DbParameterAccessor[] columns) throws SQLException {
+        BulkLoader loader = environment.getBulkLoader();
+        if (loader != null && loader.canLoad(tableName, columns)) {
+            return loader;
+        }
+        return new BatchInsertLoader(environment);
+    }
+
+    @Override
+    public boolean canLoad(String tableName, DbParameterAccessor[] columns) {
+        return true;
+    }
+
+    @Override
+    public long load(String tableName, DbParameterAccessor[] columns, Iterator<Object[]> rows)
+            throws SQLException {
+        int batchSize = Math.max(Options.getBatchSize(), 1);
+        try (StatementExecution statement = environment.createStatementExecution(
+                    environment.buildInsertPreparedStatement(tableName, columns))) {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].bindTo(statement, i + 1);
+            }
+
+            long count = 0;
+            while (rows.hasNext()) {
+                Object[] values = rows.next();
+                for (int i = 0; i < columns.length; i++) {
+                    setValue(columns[i], values[i]);
+                }
+                statement.addBatch();
+                if (++count % batchSize == 0) {
+                    statement.runBatch();
+                }
+            }
+            if (count % batchSize != 0) {
+                statement.runBatch();
+            }
+            return count;
+        }
+    }
+
+    private static void setValue(DbParameterAccessor column, Object value) throws SQLException {
+        try {
+            column.set(value);
+        } catch (SQLException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException("Cannot set value of " + column.getName() + ": " + e.getMessage(), e);
+        }
+    }
+}
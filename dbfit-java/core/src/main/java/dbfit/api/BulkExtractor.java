@@ -0,0 +1,25 @@
+package dbfit.api;
+
+import dbfit.util.DataTable;
+
+import java.sql.SQLException;
+
+/**
+ * Reads the results of a query through a database specific mechanism, which
+ * is faster than fetching them row by row with JDBC. Values must be the
+ * same, after normalisation, as the driver returns for the query.
+ *
+ * @see DBEnvironment#getBulkExtractor()
+ */
+public interface BulkExtractor {
+    /**
+     * Checks whether this extractor can read the results of the query. If
+     * not, they are fetched with JDBC instead.
+     */
+    boolean canExtract(String query) throws SQLException;
+
+    /**
+     * Reads all results of the query.
+     */
+    DataTable extract(String query) throws SQLException;
+}
@@ -0,0 +1,29 @@
+package dbfit.api;
+
+import dbfit.util.DbParameterAccessor;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+
+/**
+ * Loads rows into a table through a database specific mechanism, which is
+ * faster than inserting them with JDBC. Rows are arrays of column values
+ * as parsed from the cells, in the order of the columns; use
+ * {@link DbParameterAccessor#toJdbcCompatibleValue} to convert them to
+ * the values the driver expects.
+ *
+ * @see DBEnvironment#getBulkLoader()
+ */
+public interface BulkLoader {
+    /**
+     * Checks whether this loader can load the given columns into the table.
+     * If not, the rows are inserted with JDBC batches instead.
+     */
+    boolean canLoad(String tableName, DbParameterAccessor[] columns) throws SQLException;
+
+    /**
+     * Loads all rows into the table and returns their number.
+     */
+    long load(String tableName, DbParameterAccessor[] columns, Iterator<Object[]> rows)
+            throws SQLException;
+}
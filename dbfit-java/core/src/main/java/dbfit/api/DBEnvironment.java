@@ -10,6 +10,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.Map;
+import java.util.Set;
 
 
 public interface DBEnvironment {
@@ -41,6 +42,12 @@ public interface DBEnvironment {
     PreparedStatement buildInsertPreparedStatement(String tableName, DbParameterAccessor[] accessors)
             throws SQLException;
 
+    /**
+     * Build the insert command of buildInsertPreparedStatement, eg for
+     * preparing it on another connection.
+     */
+    String buildInsertCommand(String tableName, DbParameterAccessor[] accessors);
+
     /**
      * This method should convert the statement parameter accessor to an accessor
      * that can retrieve the autogenerated primary key value of the field described
@@ -189,4 +196,104 @@ public interface DBEnvironment {
             FileNotFoundException;
 
     DbStoredProcedureCall newStoredProcedureCall(String name, DbParameterAccessor[] accessors);
+
+    /**
+     * Get the database specific bulk loader of this environment, or null if
+     * the environment has none. Rows are then inserted with JDBC batches.
+     */
+    BulkLoader getBulkLoader();
+
+    /**
+     * Get the database specific bulk extractor of this environment, or null
+     * if the environment has none. Query results are then fetched with JDBC.
+     */
+    BulkExtractor getBulkExtractor();
+
+    /**
+     * Get the names of the symbol parameters in a command, in the order they
+     * are bound by createStatementWithBoundFixtureSymbols.
+     */
+    String[] extractParamNames(String commandText);
+
+    /**
+     * Build the command the driver prepares for a command with symbol
+     * parameters, which are bound in the order of extractParamNames.
+     */
+    String buildParameterisedCommand(String commandText);
+
+    /**
+     * Build the command that removes all rows of a table without logging
+     * each row.
+     */
+    String buildTruncateCommand(String tableName);
+
+    /**
+     * Build a predicate that checks whether the column is in an array bound
+     * as a single parameter, eg for deleting many keys with one statement,
+     * or null if the environment does not support array parameters.
+     */
+    String buildArrayInclusionPredicate(DbParameterAccessor column);
+
+    /**
+     * Opens a new connection to the same database, with the same connection
+     * properties and auto-commit on, eg for running statements in parallel.
+     * The caller closes the connection.
+     */
+    Connection openConnection() throws SQLException;
+
+    /**
+     * Get the tables of a schema whose names match a LIKE pattern, each with
+     * the tables of the result it references through foreign keys. Table
+     * names are qualified with the schema.
+     */
+    Map<String, Set<String>> getTableDependencies(String schema, String tablePattern)
+            throws SQLException;
+
+    /**
+     * Build the command that disables the foreign keys of a table, so that
+     * rows can be deleted in any order, or null if the environment cannot
+     * disable constraints.
+     */
+    String buildDisableConstraintsCommand(String tableName);
+
+    /**
+     * Build the command that enables the foreign keys disabled with
+     * buildDisableConstraintsCommand again.
+     */
+    String buildEnableConstraintsCommand(String tableName);
+
+    /**
+     * Build a command that inserts a row, or updates its value columns if a
+     * row with the same key columns exists. Parameters are bound in the
+     * order of the key columns, then the value columns. Returns null if the
+     * environment does not support upserts.
+     */
+    String buildUpsertCommand(String tableName, DbParameterAccessor[] keyColumns,
+            DbParameterAccessor[] valueColumns);
+
+    /**
+     * Prepare the command of buildUpsertCommand, so that the statement gives
+     * the results getUpsertInserts needs. Returns null if the environment
+     * does not support upserts.
+     */
+    PreparedStatement buildUpsertPreparedStatement(String tableName,
+            DbParameterAccessor[] keyColumns, DbParameterAccessor[] valueColumns)
+            throws SQLException;
+
+    /**
+     * Tell for each row executed by a statement of
+     * buildUpsertPreparedStatement whether it inserted a row or matched an
+     * existing one, from the update counts of the rows and the results of the
+     * statement. Returns null if the environment cannot tell them apart.
+     */
+    boolean[] getUpsertInserts(StatementExecution statement, int[] updateCounts)
+            throws SQLException;
+
+    /**
+     * Build a query that lists the active sessions of the database with the
+     * locks they wait for, to diagnose statements which do not finish in
+     * time, or null if the environment has none. The query runs on a
+     * connection of its own while the statement is still running.
+     */
+    String buildSessionDiagnosticsQuery();
 }
@@ -17,14 +17,31 @@ public class DbEnvironmentFactory {
         }
     }
 
-    private static DBEnvironment environment;
-
+    /**
+     * Get the default environment of the current {@link TestContext}.
+     */
     public static DBEnvironment getDefaultEnvironment(){
-        return environment;
+        return TestContext.current().getDefaultEnvironment();
     }
 
     public static void setDefaultEnvironment(DBEnvironment newDefaultEnvironment){
-        environment=newDefaultEnvironment;
+        TestContext.current().setDefaultEnvironment(newDefaultEnvironment);
+    }
+
+    /**
+     * Registers an environment under a name so that fixtures working with
+     * more than one database at a time can refer to it.
+     */
+    public static void setNamedEnvironment(String name, DBEnvironment namedEnvironment) {
+        TestContext.current().getNamedEnvironments().put(normalise(name), namedEnvironment);
+    }
+
+    public static DBEnvironment getNamedEnvironment(String name) {
+        DBEnvironment namedEnvironment = TestContext.current().getNamedEnvironments().get(normalise(name));
+        if (null == namedEnvironment) {
+            throw new IllegalArgumentException("No DB Environment named " + name);
+        }
+        return namedEnvironment;
     }
 
     public static DbEnvironmentFactory newFactoryInstance() {
@@ -5,6 +5,7 @@ import dbfit.util.DbParameterAccessor;
 import dbfit.util.DbParameterAccessors;
 import static dbfit.util.sql.PreparedStatements.buildStoredRoutineCallText;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
@@ -44,8 +45,16 @@ public class DbStoredProcedureCall {
     }
 
     public StatementExecution toStatementExecution() throws SQLException {
+        return toStatementExecution(environment.getConnection());
+    }
+
+    /**
+     * Prepares the call on the given connection, eg one of the connections
+     * opened by {@link DBEnvironment#openConnection()}.
+     */
+    public StatementExecution toStatementExecution(Connection connection) throws SQLException {
         String sql = toSqlString();
-        PreparedStatement ps = environment.getConnection().prepareCall(sql);
+        PreparedStatement ps = connection.prepareCall(sql);
         StatementExecution cs;
         if (hasReturnValue()) {
             cs = environment.createFunctionStatementExecution(ps);
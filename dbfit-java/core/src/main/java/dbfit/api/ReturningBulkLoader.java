@@ -0,0 +1,22 @@
+package dbfit.api;
+
+import dbfit.util.DbParameterAccessor;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Bulk loader which can also return values generated by the database, eg
+ * keys from sequences, for the output columns. Output columns are passed
+ * along with the input columns; their values in the loaded rows are null.
+ */
+public interface ReturningBulkLoader extends BulkLoader {
+    /**
+     * Loads all rows into the table and returns a value array for each loaded
+     * row, in the order of the rows, holding the values of the output columns
+     * at their column indexes.
+     */
+    List<Object[]> loadReturning(String tableName, DbParameterAccessor[] columns,
+            Iterator<Object[]> rows) throws SQLException;
+}
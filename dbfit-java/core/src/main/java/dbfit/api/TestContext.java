@@ -0,0 +1,121 @@
+package dbfit.api;
+
+import dbfit.util.Options;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The state of a running test: options, symbols, and the default and named
+ * database environments, which hold the connections. The static APIs of
+ * {@link Options}, {@link dbfit.util.SymbolUtil} and
+ * {@link DbEnvironmentFactory} work on the context of the current thread.
+ *
+ * Threads start in the context of the thread that created them, and
+ * otherwise in a global context shared by the whole JVM, which keeps its
+ * symbols in the symbol table of fit, so that plain fit fixtures see them
+ * as well. To run tests at the same time, each thread runs its test in a
+ * new context of its own:
+ *
+ * <pre>
+ * try (TestContext context = TestContext.begin()) {
+ *     ...
+ * }
+ * </pre>
+ */
+public class TestContext implements AutoCloseable {
+    private static final TestContext GLOBAL = new TestContext(false);
+
+    private static final InheritableThreadLocal<TestContext> current =
+        new InheritableThreadLocal<TestContext>() {
+            @Override
+            protected TestContext initialValue() {
+                return GLOBAL;
+            }
+        };
+
+    private final Map<String, String> options =
+        Collections.synchronizedMap(new HashMap<String, String>());
+    private final Map<String, Object> symbols;
+    private final Map<String, DBEnvironment> namedEnvironments =
+        Collections.synchronizedMap(new HashMap<String, DBEnvironment>());
+    private volatile DBEnvironment defaultEnvironment;
+    private TestContext previous;
+
+    private TestContext(boolean ownSymbols) {
+        symbols = ownSymbols ? Collections.synchronizedMap(new HashMap<String, Object>()) : null;
+        Options.reset(options);
+    }
+
+    public static TestContext current() {
+        return current.get();
+    }
+
+    /**
+     * Creates a new context with default options and no symbols or
+     * environments, and makes it the context of the current thread until it
+     * is closed.
+     */
+    public static TestContext begin() {
+        TestContext context = new TestContext(true);
+        context.previous = current.get();
+        current.set(context);
+        return context;
+    }
+
+    /**
+     * Makes the context that was current before this one was begun the
+     * context of the current thread again.
+     */
+    @Override
+    public void close() {
+        if (this == GLOBAL || current.get() != this) {
+            throw new IllegalStateException("Test context is not the current context of this thread");
+        }
+        current.set(previous);
+    }
+
+    /**
+     * Options by normalised name; see {@link Options}.
+     */
+    public Map<String, String> getOptions() {
+        return options;
+    }
+
+    public Object getSymbol(String name) {
+        return (symbols == null) ? fit.Fixture.getSymbol(name) : symbols.get(name);
+    }
+
+    public void setSymbol(String name, Object value) {
+        if (symbols == null) {
+            fit.Fixture.setSymbol(name, value);
+        } else {
+            symbols.put(name, value);
+        }
+    }
+
+    public void clearSymbols() {
+        if (symbols == null) {
+            fit.Fixture.ClearSymbols();
+        } else {
+            symbols.clear();
+        }
+    }
+
+    public DBEnvironment getDefaultEnvironment() {
+        return defaultEnvironment;
+    }
+
+    public void setDefaultEnvironment(DBEnvironment environment) {
+        defaultEnvironment = environment;
+    }
+
+    /**
+     * Environments by normalised name; see
+     * {@link DbEnvironmentFactory#setNamedEnvironment}.
+     */
+    public Map<String, DBEnvironment> getNamedEnvironments() {
+        return namedEnvironments;
+    }
+}
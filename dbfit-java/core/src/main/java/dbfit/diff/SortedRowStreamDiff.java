@@ -0,0 +1,149 @@
+package dbfit.diff;
+
+import dbfit.api.Diff;
+import dbfit.util.DataRow;
+import dbfit.util.DiffListener;
+import dbfit.util.RowStructure;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Merge-compares two row streams which are both sorted by the key columns
+ * of the row structure. Only the current row of each stream is held in
+ * memory. Rows with equal keys are compared by the child row diff, rows
+ * present in just one of the streams are reported as missing or surplus.
+ *
+ * The streams must be sorted ascending in the order of {@link
+ * #compareValues}: numbers by value, dates and times chronologically,
+ * strings by their characters (UTF-16 code units, as with a binary
+ * collation such as C or Latin1_General_BIN2), and nulls last. A stream
+ * whose keys go down fails the diff with an {@link IllegalStateException},
+ * instead of reporting rows as missing and surplus.
+ *
+ * Listeners receive row and cell events only; there is no table event
+ * since the compared streams are not materialised.
+ */
+public class SortedRowStreamDiff implements Diff<Iterator<DataRow>, Iterator<DataRow>> {
+
+    private final RowStructure rowStructure;
+    private final Diff<DataRow, DataRow> rowDiff;
+
+    public SortedRowStreamDiff(RowStructure rowStructure) {
+        this(rowStructure, new DataRowDiff(rowStructure.getColumnNames()));
+    }
+
+    public SortedRowStreamDiff(RowStructure rowStructure, Diff<DataRow, DataRow> rowDiff) {
+        this.rowStructure = rowStructure;
+        this.rowDiff = rowDiff;
+    }
+
+    @Override
+    public void diff(final Iterator<DataRow> rows1, final Iterator<DataRow> rows2) {
+        DataRow row1 = nextOrNull(rows1);
+        DataRow row2 = nextOrNull(rows2);
+
+        while (row1 != null || row2 != null) {
+            int cmp = compareKeys(row1, row2);
+            if (cmp == 0) {
+                rowDiff.diff(row1, row2);
+                row1 = nextInOrder(rows1, row1, "first result");
+                row2 = nextInOrder(rows2, row2, "second result");
+            } else if (cmp < 0) {
+                rowDiff.diff(row1, null);
+                row1 = nextInOrder(rows1, row1, "first result");
+            } else {
+                rowDiff.diff(null, row2);
+                row2 = nextInOrder(rows2, row2, "second result");
+            }
+        }
+    }
+
+    private static DataRow nextOrNull(final Iterator<DataRow> rows) {
+        return rows.hasNext() ? rows.next() : null;
+    }
+
+    private DataRow nextInOrder(final Iterator<DataRow> rows, final DataRow previous,
+            final String stream) {
+        DataRow next = nextOrNull(rows);
+        if (next != null && compareKeys(previous, next) > 0) {
+            throw new IllegalStateException("Rows of the " + stream
+                    + " are not sorted by the key columns: " + describeKeys(next)
+                    + " comes after " + describeKeys(previous));
+        }
+        return next;
+    }
+
+    private String describeKeys(final DataRow row) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < rowStructure.size(); i++) {
+            if (rowStructure.isKeyColumn(i)) {
+                String column = rowStructure.getColumnName(i);
+                sb.append(sb.length() > 0 ? ", " : "").append(column)
+                    .append("=").append(row.get(column));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Exhausted streams sort after any row, so the remaining rows of
+     * the other stream are reported as missing or surplus.
+     */
+    int compareKeys(final DataRow row1, final DataRow row2) {
+        if (row1 == null) {
+            return 1;
+        } else if (row2 == null) {
+            return -1;
+        }
+
+        for (int i = 0; i < rowStructure.size(); i++) {
+            if (rowStructure.isKeyColumn(i)) {
+                String column = rowStructure.getColumnName(i);
+                int cmp = compareValues(row1.get(column), row2.get(column));
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Values of the same type are compared naturally, others by their
+     * string representations. Nulls sort last, as with the default
+     * ascending order of most databases.
+     */
+    @SuppressWarnings("unchecked")
+    static int compareValues(final Object value1, final Object value2) {
+        if (value1 == null || value2 == null) {
+            return (value1 == value2) ? 0 : (value1 == null ? 1 : -1);
+        }
+
+        if (value1 instanceof Comparable && value1.getClass().isInstance(value2)) {
+            return ((Comparable<Object>) value1).compareTo(value2);
+        }
+
+        return value1.toString().compareTo(value2.toString());
+    }
+
+    @Override
+    public void addListener(final DiffListener listener) {
+        rowDiff.addListener(listener);
+    }
+
+    @Override
+    public void addListeners(final Collection<DiffListener> newListeneres) {
+        rowDiff.addListeners(newListeneres);
+    }
+
+    @Override
+    public void removeListener(final DiffListener listener) {
+        rowDiff.removeListener(listener);
+    }
+
+    @Override
+    public void removeListeners(final Collection<DiffListener> removed) {
+        rowDiff.removeListeners(removed);
+    }
+}
@@ -0,0 +1,20 @@
+package dbfit.fixture;
+
+import fit.Fixture;
+import fit.Parse;
+
+/**
+ * marking of rows in a batch which the driver did not execute, shared by the batching fixtures
+ */
+final class BatchRows {
+    private BatchRows() {
+    }
+
+    /**
+     * mark a row which was skipped because an earlier row of its batch failed
+     */
+    static void markNotExecuted(Fixture fixture, Parse row) {
+        fixture.ignore(row);
+        row.parts.addToBody(Fixture.gray(" not executed"));
+    }
+}
@@ -0,0 +1,234 @@
+package dbfit.fixture;
+
+import dbfit.api.BatchInsertLoader;
+import dbfit.api.BulkLoader;
+import dbfit.api.DBEnvironment;
+import dbfit.api.DbEnvironmentFactory;
+import dbfit.api.DbTable;
+import dbfit.api.ReturningBulkLoader;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.DbParameterAccessorTypeAdapter;
+import dbfit.util.Log;
+import dbfit.util.SymbolAccessQueryBinding;
+import dbfit.util.SymbolAccessSetBinding;
+import fit.Binding;
+import fit.Parse;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static dbfit.util.Direction.INPUT;
+import static dbfit.util.Direction.OUTPUT;
+import static dbfit.util.ValueNormaliser.normaliseValue;
+
+/**
+ * Inserts rows into a table through the bulk loader of the environment, eg
+ * COPY on PostgreSQL, or with JDBC batches if the environment has none.
+ * Cells are parsed as with {@link Insert}, but failures are reported for
+ * the whole table, not per row. Output columns are only supported if the
+ * bulk loader can return generated values, eg on Oracle; they are checked
+ * after all rows have been loaded. A row with the number of rows and rows
+ * per second is appended.
+ *
+ * <pre>
+ * |Bulk Insert|users|
+ * |name       |username|
+ * |arthur dent|adent   |
+ * </pre>
+ */
+public class BulkInsert extends fit.Fixture {
+    private DBEnvironment environment;
+    private String tableName;
+
+    public BulkInsert() {
+        environment = DbEnvironmentFactory.getDefaultEnvironment();
+    }
+
+    public BulkInsert(DBEnvironment dbEnvironment) {
+        this.environment = dbEnvironment;
+    }
+
+    public BulkInsert(DBEnvironment dbEnvironment, String tableName) {
+        this.tableName = tableName;
+        this.environment = dbEnvironment;
+    }
+
+    @Override
+    public void doRows(Parse rows) {
+        if (!loadRows(rows)) {
+            exception(rows.parts, new IllegalArgumentException(
+                    "Bulk Insert cannot return output columns on this database, use Insert instead"));
+        }
+    }
+
+    /**
+     * Loads the rows, or returns false without loading any if the table has
+     * output columns which the bulk loader of the environment cannot return.
+     */
+    boolean loadRows(Parse rows) {
+        if ((tableName == null || tableName.trim().length() == 0) && args.length > 0) {
+            tableName = args[0];
+        }
+
+        try {
+            DbParameterAccessor[] columns = getColumns(new DbTable(environment, tableName), rows.parts);
+            long count;
+            long elapsed;
+            if (hasOutputColumns(columns)) {
+                ReturningBulkLoader loader = getReturningLoader(columns);
+                if (loader == null) {
+                    return false;
+                }
+                Log.log("Bulk inserting into %s with %s", tableName, loader.getClass().getSimpleName());
+
+                long start = System.nanoTime();
+                List<Object[]> outputs = loader.loadReturning(tableName, columns, new CellValues(rows.more, columns));
+                elapsed = System.nanoTime() - start;
+                count = outputs.size();
+                checkOutputs(rows.more, columns, outputs);
+            } else {
+                BulkLoader loader = BatchInsertLoader.forTable(environment, tableName, columns);
+                Log.log("Bulk inserting into %s with %s", tableName, loader.getClass().getSimpleName());
+
+                long start = System.nanoTime();
+                count = loader.load(tableName, columns, new CellValues(rows.more, columns));
+                elapsed = System.nanoTime() - start;
+            }
+            StatisticsRow.append(rows, "rows: " + count, "rows/sec: " + StatisticsRow.perSecond(count, elapsed));
+        } catch (Throwable e) {
+            e.printStackTrace();
+            exception(rows.parts, e);
+        }
+        return true;
+    }
+
+    private DbParameterAccessor[] getColumns(DbTable table, Parse headerCells) {
+        DbParameterAccessor[] columns = new DbParameterAccessor[headerCells.size()];
+        for (int i = 0; headerCells != null; i++, headerCells = headerCells.more) {
+            String name = headerCells.text();
+            columns[i] = table.getDbParameterAccessor(name, name.endsWith("?") ? OUTPUT : INPUT);
+        }
+        return columns;
+    }
+
+    private static boolean hasOutputColumns(DbParameterAccessor[] columns) {
+        for (DbParameterAccessor column: columns) {
+            if (!column.hasDirection(INPUT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private ReturningBulkLoader getReturningLoader(DbParameterAccessor[] columns) throws SQLException {
+        BulkLoader loader = environment.getBulkLoader();
+        if (loader instanceof ReturningBulkLoader && loader.canLoad(tableName, columns)) {
+            return (ReturningBulkLoader) loader;
+        }
+        return null;
+    }
+
+    /**
+     * Checks or stores the returned values of each row in its output cells.
+     */
+    private void checkOutputs(Parse row, DbParameterAccessor[] columns, List<Object[]> outputs) {
+        final Object[][] current = new Object[1][];
+        Binding[] bindings = new Binding[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].hasDirection(INPUT)) {
+                continue;
+            }
+            final int column = i;
+            bindings[i] = new SymbolAccessQueryBinding();
+            bindings[i].adapter = new DbParameterAccessorTypeAdapter(columns[i], this) {
+                @Override
+                public Object get() throws InvocationTargetException {
+                    try {
+                        return normaliseValue(current[0][column]);
+                    } catch (SQLException e) {
+                        throw new InvocationTargetException(e);
+                    }
+                }
+            };
+        }
+
+        for (Object[] values: outputs) {
+            current[0] = values;
+            Parse cell = row.parts;
+            for (int i = 0; i < bindings.length && cell != null; i++, cell = cell.more) {
+                if (bindings[i] != null) {
+                    try {
+                        bindings[i].doCell(this, cell);
+                    } catch (Throwable t) {
+                        exception(cell, t);
+                    }
+                }
+            }
+            row = row.more;
+        }
+    }
+
+    /**
+     * Parses the cells of each row when the loader asks for it, so a row
+     * which cannot be parsed stops the load at that row.
+     */
+    private class CellValues implements Iterator<Object[]> {
+        private Parse row;
+        private final Binding[] bindings;
+        private Object[] values;
+
+        CellValues(Parse firstRow, DbParameterAccessor[] columns) {
+            this.row = firstRow;
+            this.bindings = new Binding[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                if (!columns[i].hasDirection(INPUT)) {
+                    continue; // returned by the loader
+                }
+                final int column = i;
+                bindings[i] = new SymbolAccessSetBinding();
+                bindings[i].adapter = new DbParameterAccessorTypeAdapter(columns[i], BulkInsert.this) {
+                    @Override
+                    public void set(Object value) {
+                        values[column] = value;
+                    }
+                };
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return row != null;
+        }
+
+        @Override
+        public Object[] next() {
+            if (row == null) {
+                throw new NoSuchElementException();
+            }
+
+            values = new Object[bindings.length];
+            Parse cell = row.parts;
+            for (int i = 0; i < bindings.length && cell != null; i++, cell = cell.more) {
+                if (bindings[i] == null) {
+                    continue;
+                }
+                try {
+                    bindings[i].doCell(BulkInsert.this, cell);
+                } catch (Throwable t) {
+                    exception(cell, t);
+                    throw new IllegalArgumentException("Cannot parse " + cell.text(), t);
+                }
+            }
+            row = row.more;
+            return values;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Rows cannot be removed");
+        }
+    }
+}
@@ -2,18 +2,33 @@ package dbfit.fixture;
 
 import dbfit.api.DBEnvironment;
 import dbfit.api.DbEnvironmentFactory;
+import dbfit.util.DbParameterAccessor;
 import dbfit.util.FitNesseTestHost;
+import dbfit.util.NameNormaliser;
+import dbfit.util.Options;
 import fit.Parse;
 
 import java.math.BigDecimal;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Deletes rows from tables: all rows, rows matching a where clause, or rows
+ * with the given ids or keys. Each row of the table is annotated with the
+ * number of rows deleted.
+ */
 public class Clean extends fit.ColumnFixture {
     private DeleteData deleteData;
     private boolean hadRowOperation = false;
+    private int rowsDeleted = -1;
 
     public String table;
     public String columnName;
@@ -30,24 +45,39 @@ public class Clean extends fit.ColumnFixture {
     }
 
     public boolean clean() throws SQLException {
-        deleteData.deleteTable(table, where);
+        rowsDeleted = deleteData.deleteTable(table, where);
+        hadRowOperation = true;
         return true;
     }
 
     public boolean DeleteRowsForIDs() throws SQLException {
-        deleteData.deleteTableByIds(table, where, columnName, ids);
+        rowsDeleted = deleteData.deleteTableByIds(table, where, columnName, ids);
         hadRowOperation = true;
         return true;
     }
 
     public boolean DeleteRowsForKeys() throws SQLException {
-        deleteData.deleteTableByKeys(table, where, columnName, keys);
+        rowsDeleted = deleteData.deleteTableByKeys(table, where, columnName, keys);
+        hadRowOperation = true;
+        return true;
+    }
+
+    /**
+     * Removes all rows of the table with the truncate command of the
+     * environment. Depending on the database, this commits the transaction.
+     */
+    public boolean truncate() throws SQLException {
         hadRowOperation = true;
+        if (where != null) {
+            throw new IllegalArgumentException("Cannot truncate " + table + " with a where clause, use clean instead");
+        }
+        rowsDeleted = deleteData.truncateTable(table);
         return true;
     }
 
     public void doRow(Parse row) {
         hadRowOperation = false;
+        rowsDeleted = -1;
         super.doRow(row);
         if (!hadRowOperation) {
             try {
@@ -56,37 +86,146 @@ public class Clean extends fit.ColumnFixture {
                 exception(row, sqle);
             }
         }
+        if (rowsDeleted >= 0) {
+            row.parts.addToBody(fit.Fixture.gray(" (" + rowsDeleted + " rows deleted)"));
+        }
     }
 
     public static class DeleteData {
+        /**
+         * Keys are bound in chunks of this size, so that one prepared statement
+         * is reused for all keys and key lists stay within database limits.
+         */
+        public static final int KEYS_PER_STATEMENT = 100;
+
         private DBEnvironment environment;
+        private Map<String, Map<String, DbParameterAccessor>> columnsByTable =
+            new HashMap<String, Map<String, DbParameterAccessor>>();
 
         public DeleteData(DBEnvironment environment) {
             this.environment = environment;
         }
 
-        public void deleteTable(String tableName, String whereClause) throws SQLException {
+        public int deleteTable(String tableName, String whereClause) throws SQLException {
             SQLQuery q = new DeleteQuery(tableName, whereClause);
-            executeQuery(q);
+            try (PreparedStatement st = createStatement(q)) {
+                return st.executeUpdate();
+            }
+        }
+
+        public int truncateTable(String tableName) throws SQLException {
+            return truncateTable(environment.getConnection(), tableName);
+        }
+
+        /**
+         * Truncates a table on the given connection, and returns the number
+         * of rows it had.
+         */
+        public int truncateTable(Connection connection, String tableName) throws SQLException {
+            int rows;
+            try (Statement st = connection.createStatement();
+                    ResultSet rs = st.executeQuery("select count(*) from " + tableName)) {
+                rs.next();
+                rows = rs.getInt(1);
+            }
+            try (Statement st = connection.createStatement()) {
+                st.execute(environment.buildTruncateCommand(tableName));
+            }
+            return rows;
+        }
+
+        public int deleteTableByKeys(String tableName, String whereClause, String columnName, Object[] keys) throws SQLException {
+            if (keys == null || keys.length == 0) {
+                return 0;
+            }
+
+            DbParameterAccessor column = findColumn(tableName, columnName);
+            String arrayPredicate = (keys.length > KEYS_PER_STATEMENT && column != null)
+                ? environment.buildArrayInclusionPredicate(column) : null;
+            if (arrayPredicate != null) {
+                return deleteByArray(new DeleteQuery(tableName, whereClause, arrayPredicate), keys);
+            }
+            return deleteInChunks(tableName, whereClause, columnName, column, keys);
+        }
+
+        public int deleteTableByIds(String tableName, String whereClause, String columnName, Object[] ids) throws SQLException {
+            return deleteTableByKeys(tableName, whereClause, columnName, ids);
+        }
+
+        private int deleteInChunks(String tableName, String whereClause, String columnName,
+                DbParameterAccessor column, Object[] keys) throws SQLException {
+            int chunkSize = Math.min(keys.length, KEYS_PER_STATEMENT);
+            SQLQuery q = new DeleteByInclusionQuery(tableName, whereClause, columnName, chunkSize);
+            int deleted = 0;
+            try (PreparedStatement st = createStatement(q)) {
+                int firstKey = getFirstKeyParameter(q);
+                for (int start = 0; start < keys.length; start += chunkSize) {
+                    for (int i = 0; i < chunkSize; i++) {
+                        // the last chunk is padded with its last key
+                        setKey(st, firstKey + i, column, keys[Math.min(start + i, keys.length - 1)]);
+                    }
+                    deleted += st.executeUpdate();
+                }
+            }
+            return deleted;
         }
 
-        public void deleteTableByKeys(String tableName, String whereClause, String columnName, Object[] keys) throws SQLException {
-            SQLQuery q = new DeleteByInclusionQuery(tableName, whereClause, columnName, keys, true);
-            executeQuery(q);
+        private int deleteByArray(SQLQuery q, Object[] keys) throws SQLException {
+            String[] values = new String[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                values[i] = keys[i].toString();
+            }
+            try (PreparedStatement st = createStatement(q)) {
+                st.setArray(getFirstKeyParameter(q),
+                        environment.getConnection().createArrayOf("varchar", values));
+                return st.executeUpdate();
+            }
         }
 
-        public void deleteTableByIds(String tableName, String whereClause, String columnName, Object[] ids) throws SQLException {
-            SQLQuery q = new DeleteByInclusionQuery(tableName, whereClause, columnName, ids, false);
-            executeQuery(q);
+        /**
+         * Symbols in the where clause are bound before the keys.
+         */
+        private int getFirstKeyParameter(SQLQuery q) {
+            return Options.isBindSymbols()
+                ? environment.extractParamNames(q.toString()).length + 1 : 1;
         }
 
-        private void executeQuery(SQLQuery q) throws SQLException {
-            try (PreparedStatement st =
-                    environment.createStatementWithBoundFixtureSymbols(
-                        FitNesseTestHost.getInstance(), q.toString())) {
-                st.execute();
+        /**
+         * Keys are passed as strings; they are converted to the type of the
+         * column if it is not a character type.
+         */
+        private static void setKey(PreparedStatement st, int index, DbParameterAccessor column, Object key)
+                throws SQLException {
+            if (column == null || !(key instanceof String) || isCharacterType(column.getSqlType())) {
+                st.setObject(index, key);
+            } else {
+                st.setObject(index, key, column.getSqlType());
             }
         }
+
+        private static boolean isCharacterType(int sqlType) {
+            return sqlType == Types.VARCHAR || sqlType == Types.CHAR || sqlType == Types.LONGVARCHAR
+                || sqlType == Types.NVARCHAR || sqlType == Types.NCHAR || sqlType == Types.LONGNVARCHAR;
+        }
+
+        private DbParameterAccessor findColumn(String tableName, String columnName) {
+            Map<String, DbParameterAccessor> columns = columnsByTable.get(tableName);
+            if (columns == null) {
+                try {
+                    columns = environment.getAllColumns(tableName);
+                } catch (Exception e) {
+                    // keys are bound without conversion
+                    columns = new HashMap<String, DbParameterAccessor>();
+                }
+                columnsByTable.put(tableName, columns);
+            }
+            return columns.get(NameNormaliser.normaliseName(columnName));
+        }
+
+        private PreparedStatement createStatement(SQLQuery q) throws SQLException {
+            return environment.createStatementWithBoundFixtureSymbols(
+                    FitNesseTestHost.getInstance(), q.toString());
+        }
     }
 
     public static class SQLQuery {
@@ -102,21 +241,12 @@ public class Clean extends fit.ColumnFixture {
             }
         }
 
-        protected static String whereColumnIn(String columnName, Object[] values, boolean quoted) {
-            return columnName + " in (" + joinedWithCommas(values, quoted) + ")";
-        }
-
-        protected static String joinedWithCommas(Object[] ids, boolean quoted) {
-            StringBuilder sb = new StringBuilder();
-            String comma = "";
-            for (Object x : ids) {
-                sb.append(comma);
-                if (quoted) sb.append("'");
-                sb.append(x.toString());
-                if (quoted) sb.append("'");
-                comma = ", ";
+        protected static String whereColumnIn(String columnName, int parameterCount) {
+            StringBuilder sb = new StringBuilder(columnName).append(" in (");
+            for (int i = 0; i < parameterCount; i++) {
+                sb.append(i > 0 ? ", ?" : "?");
             }
-            return sb.toString();
+            return sb.append(")").toString();
         }
 
         public String toString() {
@@ -141,8 +271,8 @@ public class Clean extends fit.ColumnFixture {
     }
 
     public static class DeleteByInclusionQuery extends DeleteQuery {
-        public DeleteByInclusionQuery(String tableName, String whereClause, String column, Object[] values, boolean quoted) {
-            super(tableName, whereClause, whereColumnIn(column, values, quoted));
+        public DeleteByInclusionQuery(String tableName, String whereClause, String column, int keyCount) {
+            super(tableName, whereClause, whereColumnIn(column, keyCount));
         }
     }
 }
@@ -0,0 +1,323 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.api.DbEnvironmentFactory;
+import dbfit.util.Log;
+import dbfit.util.Options;
+import fit.Parse;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Deletes all rows from the tables of a schema whose names match a LIKE
+ * pattern. The foreign keys between the tables are read from the database,
+ * and tables are deleted after all tables referencing them, in the current
+ * transaction. With the clean threads option, tables which do not depend on
+ * each other are deleted at the same time instead, each on its own
+ * connection with auto-commit. With the disable constraints
+ * option, foreign keys are disabled while deleting instead, where the
+ * database supports it.
+ *
+ * With truncate as the third argument, tables which are not referenced by
+ * other tables are truncated. A row with the number of deleted rows is
+ * appended for each table.
+ *
+ * <pre>
+ * |Clean Schema|dbo|order%|
+ * </pre>
+ */
+public class CleanSchema extends fit.Fixture {
+    private DBEnvironment environment;
+    private String schema;
+    private String pattern;
+    private boolean truncate;
+
+    public CleanSchema() {
+        environment = DbEnvironmentFactory.getDefaultEnvironment();
+    }
+
+    public CleanSchema(DBEnvironment environment, String schema, String pattern, String mode) {
+        this.environment = environment;
+        this.schema = schema;
+        this.pattern = pattern;
+        this.truncate = isTruncate(mode);
+    }
+
+    private static boolean isTruncate(String mode) {
+        if (mode == null || "delete".equalsIgnoreCase(mode.trim())) {
+            return false;
+        }
+        if ("truncate".equalsIgnoreCase(mode.trim())) {
+            return true;
+        }
+        throw new IllegalArgumentException("Unknown mode " + mode + ", use delete or truncate");
+    }
+
+    private interface TableCommand {
+        long run(Connection connection, String tableName) throws SQLException;
+    }
+
+    @Override
+    public void doTable(Parse table) {
+        if (schema == null) {
+            if (args == null || args.length < 1) {
+                throw new UnsupportedOperationException(
+                        "No schema specified to CleanSchema constructor or argument list");
+            }
+            schema = args[0];
+            pattern = (args.length > 1) ? args[1] : null;
+            truncate = isTruncate((args.length > 2) ? args[2] : null);
+        }
+
+        long start = System.nanoTime();
+        try {
+            Map<String, Set<String>> dependencies = environment.getTableDependencies(
+                    schema, (pattern == null) ? "%" : pattern);
+            Set<String> referenced = new HashSet<String>();
+            for (Set<String> parents : dependencies.values()) {
+                referenced.addAll(parents);
+            }
+
+            Map<String, Object> results;
+            if (Options.isDisableConstraints() && canDisableConstraints(dependencies.keySet())) {
+                results = cleanWithoutConstraints(dependencies.keySet(), referenced);
+            } else {
+                results = new LinkedHashMap<String, Object>();
+                for (List<String> level : orderForDeletion(dependencies)) {
+                    if (hasFailures(results)) {
+                        break;
+                    }
+                    results.putAll(runOnTables(level, cleanCommand(referenced)));
+                }
+            }
+
+            long rows = report(table, dependencies.keySet(), results);
+            StatisticsRow.append(table.parts, "tables: " + dependencies.size(), "rows: " + rows,
+                    "rows/sec: " + StatisticsRow.perSecond(rows, System.nanoTime() - start));
+        } catch (SQLException e) {
+            throw new Error(e);
+        }
+    }
+
+    /**
+     * Orders the tables so that each table comes after all tables which
+     * reference it. Tables of the same level do not reference each other.
+     */
+    static List<List<String>> orderForDeletion(Map<String, Set<String>> dependencies) {
+        Map<String, Integer> referencingTables = new TreeMap<String, Integer>();
+        for (String table : dependencies.keySet()) {
+            referencingTables.put(table, 0);
+        }
+        for (Set<String> parents : dependencies.values()) {
+            for (String parent : parents) {
+                referencingTables.put(parent, referencingTables.get(parent) + 1);
+            }
+        }
+
+        List<List<String>> levels = new ArrayList<List<String>>();
+        while (!referencingTables.isEmpty()) {
+            List<String> level = new ArrayList<String>();
+            for (Map.Entry<String, Integer> table : referencingTables.entrySet()) {
+                if (table.getValue() == 0) {
+                    level.add(table.getKey());
+                }
+            }
+            if (level.isEmpty()) {
+                throw new IllegalStateException("Cannot order tables with circular foreign keys: "
+                        + referencingTables.keySet() + ", set option disable constraints");
+            }
+            for (String table : level) {
+                referencingTables.remove(table);
+                for (String parent : dependencies.get(table)) {
+                    referencingTables.put(parent, referencingTables.get(parent) - 1);
+                }
+            }
+            levels.add(level);
+        }
+        return levels;
+    }
+
+    private boolean canDisableConstraints(Set<String> tables) {
+        for (String table : tables) {
+            if (environment.buildDisableConstraintsCommand(table) == null) {
+                Log.log("Cannot disable constraints on this database, deleting %s in dependency order", schema);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Map<String, Object> cleanWithoutConstraints(Set<String> tables, Set<String> referenced)
+            throws SQLException {
+        List<String> tableList = new ArrayList<String>(tables);
+        Map<String, Object> disabled = runOnTables(tableList, new TableCommand() {
+            public long run(Connection connection, String tableName) throws SQLException {
+                return execute(connection, environment.buildDisableConstraintsCommand(tableName));
+            }
+        });
+        try {
+            if (hasFailures(disabled)) {
+                Map<String, Object> failures = new LinkedHashMap<String, Object>();
+                for (Map.Entry<String, Object> table : disabled.entrySet()) {
+                    if (table.getValue() instanceof Throwable) {
+                        failures.put(table.getKey(), table.getValue());
+                    }
+                }
+                return failures;
+            }
+            return runOnTables(tableList, cleanCommand(referenced));
+        } finally {
+            List<String> enable = new ArrayList<String>();
+            for (Map.Entry<String, Object> table : disabled.entrySet()) {
+                if (!(table.getValue() instanceof Throwable)) {
+                    enable.add(table.getKey());
+                }
+            }
+            Map<String, Object> enabled = runOnTables(enable, new TableCommand() {
+                public long run(Connection connection, String tableName) throws SQLException {
+                    return execute(connection, environment.buildEnableConstraintsCommand(tableName));
+                }
+            });
+            for (Map.Entry<String, Object> table : enabled.entrySet()) {
+                if (table.getValue() instanceof SQLException) {
+                    throw (SQLException) table.getValue();
+                }
+            }
+        }
+    }
+
+    /**
+     * Tables referenced by foreign keys are deleted even in truncate mode,
+     * as most databases do not truncate them.
+     */
+    private TableCommand cleanCommand(final Set<String> referenced) {
+        final Clean.DeleteData deleteData = new Clean.DeleteData(environment);
+        return new TableCommand() {
+            public long run(Connection connection, String tableName) throws SQLException {
+                if (truncate && !referenced.contains(tableName)) {
+                    return deleteData.truncateTable(connection, tableName);
+                }
+                return execute(connection, "delete from " + tableName);
+            }
+        };
+    }
+
+    private static long execute(Connection connection, String command) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            return st.executeUpdate(command);
+        }
+    }
+
+    private static boolean hasFailures(Map<String, Object> results) {
+        for (Object result : results.values()) {
+            if (result instanceof Throwable) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs a command on each table, and returns the number of rows or the
+     * exception for each table. With more than one clean thread, the tables
+     * are processed at the same time on new connections with auto-commit,
+     * otherwise one after another in the current transaction.
+     */
+    private Map<String, Object> runOnTables(List<String> tables, final TableCommand command)
+            throws SQLException {
+        Map<String, Object> results = new LinkedHashMap<String, Object>();
+        int threads = Math.min(Options.getCleanThreads(), tables.size());
+        if (threads <= 1) {
+            for (String table : tables) {
+                try {
+                    results.put(table, command.run(environment.getConnection(), table));
+                } catch (SQLException e) {
+                    results.put(table, e);
+                }
+            }
+            return results;
+        }
+
+        final BlockingQueue<Connection> connections = new ArrayBlockingQueue<Connection>(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                connections.add(environment.openConnection());
+            }
+            Map<String, Future<Long>> futures = new LinkedHashMap<String, Future<Long>>();
+            for (final String table : tables) {
+                futures.put(table, executor.submit(new Callable<Long>() {
+                    public Long call() throws Exception {
+                        Connection connection = connections.take();
+                        try {
+                            return command.run(connection, table);
+                        } finally {
+                            connections.put(connection);
+                        }
+                    }
+                }));
+            }
+            for (Map.Entry<String, Future<Long>> future : futures.entrySet()) {
+                try {
+                    results.put(future.getKey(), future.getValue().get());
+                } catch (ExecutionException e) {
+                    results.put(future.getKey(), e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while cleaning " + future.getKey(), e);
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Reports the tables in the order they were cleaned, followed by the
+     * tables which were skipped after a failure.
+     */
+    private long report(Parse table, Set<String> tables, Map<String, Object> results) {
+        Set<String> order = new LinkedHashSet<String>(results.keySet());
+        order.addAll(tables);
+        long rows = 0;
+        for (String tableName : order) {
+            Parse nameCell = new Parse("td", tableName, null, null);
+            Parse resultCell = new Parse("td", "", null, null);
+            nameCell.more = resultCell;
+            table.parts.last().more = new Parse("tr", null, nameCell, null);
+
+            Object result = results.get(tableName);
+            if (result == null) {
+                ignore(resultCell);
+            } else if (result instanceof Throwable) {
+                exception(resultCell, (Throwable) result);
+            } else {
+                rows += (Long) result;
+                resultCell.addToBody(result + " rows deleted");
+                right(resultCell);
+            }
+        }
+        return rows;
+    }
+}
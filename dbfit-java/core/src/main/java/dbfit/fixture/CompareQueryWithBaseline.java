@@ -0,0 +1,126 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.api.DbEnvironmentFactory;
+import dbfit.diff.SortedRowStreamDiff;
+import dbfit.util.DataColumn;
+import dbfit.util.DataRow;
+import dbfit.util.FitNesseTestHost;
+import dbfit.util.Log;
+import dbfit.util.Options;
+import dbfit.util.PrefetchingDataRowIterator;
+import dbfit.util.RowStructure;
+import dbfit.util.baseline.BaselineReader;
+import dbfit.util.baseline.BaselineWriter;
+import static dbfit.util.RowStructureLoader.loadRowStructure;
+
+import fit.Parse;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the results of a live query with a baseline file recorded by an
+ * earlier run, either with this fixture or with {@link StoreQuery}. Rows of
+ * the baseline are expected, rows of the query are actual. As with
+ * {@link CompareStreamedQueries}, both must be sorted by the key columns and
+ * are merge-compared while being read.
+ *
+ * <pre>
+ * !|Compare Query With Baseline|select * from t order by id|baselines/t.dbfit|
+ * |id                          |name?                                        |
+ * </pre>
+ *
+ * When the recordbaselines option is set, the query results are written to
+ * the baseline file instead, approving the current results for later runs.
+ */
+public class CompareQueryWithBaseline extends CompareStoredQueries {
+    private static final int PREFETCH_ROWS = 1000;
+
+    private DBEnvironment environment;
+    private String query;
+    private String baselineFile;
+
+    public CompareQueryWithBaseline() {
+        environment = DbEnvironmentFactory.getDefaultEnvironment();
+    }
+
+    public CompareQueryWithBaseline(DBEnvironment environment, String query, String baselineFile) {
+        this.environment = environment;
+        this.query = query;
+        this.baselineFile = baselineFile;
+    }
+
+    private void initialiseArguments() {
+        if (query == null || baselineFile == null) {
+            if (args.length < 2) {
+                throw new UnsupportedOperationException(
+                        "No query and baseline file specified to CompareQueryWithBaseline constructor or argument list");
+            }
+
+            query = args[0];
+            baselineFile = args[1];
+        }
+    }
+
+    @Override
+    public void doTable(Parse table) {
+        initialiseArguments();
+        Parse lastRow = table.parts.more;
+        if (lastRow == null) {
+            throw new Error("Query structure missing from second row");
+        }
+
+        try (
+            PreparedStatement st = environment.createStatementWithBoundFixtureSymbols(
+                    FitNesseTestHost.getInstance(), query)
+        ) {
+            if (Options.isRecordBaselines()) {
+                long rows = recordBaseline(st);
+                addSummaryRow(table, "recorded " + rows + " rows to " + baselineFile, true);
+            } else {
+                compareWithBaseline(table, loadRowStructure(lastRow), st);
+            }
+        } catch (SQLException | IOException e) {
+            throw new Error(e);
+        }
+    }
+
+    private long recordBaseline(PreparedStatement st) throws SQLException, IOException {
+        Log.log("Recording baseline %s from query '%s'", baselineFile, query);
+        try (ResultSet rs = st.executeQuery()) {
+            ResultSetMetaData rsmd = rs.getMetaData();
+            List<DataColumn> columns = new ArrayList<DataColumn>();
+            for (int i = 1; i <= rsmd.getColumnCount(); i++) {
+                columns.add(new DataColumn(rsmd, i));
+            }
+
+            try (BaselineWriter writer = new BaselineWriter(baselineFile, columns)) {
+                while (rs.next()) {
+                    writer.writeRow(new DataRow(rs, rsmd));
+                }
+                writer.finish();
+                return writer.getRowCount();
+            }
+        }
+    }
+
+    private void compareWithBaseline(Parse table, RowStructure rowStructure,
+            PreparedStatement st) throws SQLException, IOException {
+        SortedRowStreamDiff diff = new SortedRowStreamDiff(rowStructure);
+        Log.log("Comparing query '%s' with baseline %s", query, baselineFile);
+        try (
+            BaselineReader expected = new BaselineReader(baselineFile);
+            PrefetchingDataRowIterator actual = new PrefetchingDataRowIterator(st, PREFETCH_ROWS)
+        ) {
+            diffAndReport(diff, expected, actual, table);
+        }
+
+        addReportSummary(table);
+    }
+}
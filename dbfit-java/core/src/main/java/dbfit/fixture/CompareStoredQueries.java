@@ -1,14 +1,19 @@
 package dbfit.fixture;
 
 import dbfit.api.DBEnvironment;
+import dbfit.api.Diff;
 import dbfit.diff.DataTableDiff;
+import dbfit.fixture.report.BoundedReportingSystem;
 import dbfit.fixture.report.ReportingSystem;
 import dbfit.fixture.report.FitFixtureReportingSystem;
+import dbfit.util.AsyncDiffListener;
 import dbfit.util.DataTable;
 import dbfit.util.DataRow;
 import dbfit.util.DataCell;
+import dbfit.util.DiffListener;
 import dbfit.util.MatchResult;
 import dbfit.util.NoOpDiffListenerAdapter;
+import dbfit.util.Options;
 import dbfit.util.SymbolUtil;
 import static dbfit.util.RowStructureLoader.loadRowStructure;
 import static dbfit.util.MatchStatus.*;
@@ -20,6 +25,7 @@ public class CompareStoredQueries extends fit.Fixture {
     private String symbol2;
     private DataTable dt1;
     private DataTable dt2;
+    private BoundedReportingSystem boundedReportingSystem;
 
     public CompareStoredQueries() {
     }
@@ -52,14 +58,72 @@ public class CompareStoredQueries extends fit.Fixture {
         }
 
         DataTableDiff diff = new DataTableDiff(loadRowStructure(lastRow));
-        diff.addListener(getReporter(table));
+        diffAndReport(diff, dt1, dt2, table);
+        addReportSummary(table);
+    }
+
+    /**
+     * Runs the diff reporting into the table; with the asyncreporting
+     * option set the results are rendered on a separate thread.
+     */
+    protected <T> void diffAndReport(Diff<T, T> diff, T object1, T object2, Parse table) {
+        DiffListener reporter = getReporter(table);
+        if (!Options.isAsyncReporting()) {
+            diff.addListener(reporter);
+            diff.diff(object1, object2);
+            return;
+        }
 
-        diff.diff(dt1, dt2);
+        try (AsyncDiffListener asyncReporter = new AsyncDiffListener(reporter)) {
+            diff.addListener(asyncReporter);
+            diff.diff(object1, object2);
+        }
+    }
+
+    /**
+     * Appends mismatch totals to the table if reporting has been bounded.
+     */
+    protected void addReportSummary(Parse table) {
+        if (boundedReportingSystem != null) {
+            addSummaryRow(table, boundedReportingSystem.getSummary(),
+                    !boundedReportingSystem.hasMismatches());
+        }
     }
 
     protected FitFixtureReporter getReporter(final Parse table) {
-        return new FitFixtureReporter(
-                new FitFixtureReportingSystem(this, table));
+        return new FitFixtureReporter(createReportingSystem(table));
+    }
+
+    /**
+     * Creates the reporting system for the given table, limiting the
+     * number of rendered mismatches if maxreportedrows option is set.
+     */
+    protected ReportingSystem createReportingSystem(final Parse table) {
+        ReportingSystem reportingSystem = new FitFixtureReportingSystem(this, table);
+        int maxReportedRows = Options.getMaxReportedRows();
+        if (maxReportedRows <= 0) {
+            return reportingSystem;
+        }
+
+        boundedReportingSystem = new BoundedReportingSystem(reportingSystem, maxReportedRows);
+        return boundedReportingSystem;
+    }
+
+    protected void addSummaryRow(Parse table, String text, boolean pass) {
+        Parse summary = new Parse("tr", null, null, null);
+        summary.addToTag(pass ? " class=\"pass\"" : " class=\"fail\"");
+        summary.parts = new Parse("td", text, null, null);
+        summary.parts.addToTag(" colspan=\"" + numColumns(table) + "\"");
+        table.parts.last().more = summary;
+    }
+
+    protected int numColumns(Parse table) {
+        int cnt = 0;
+        for (Parse row = table.parts; row != null; row = row.more) {
+            cnt = Math.max(cnt, row.size());
+        }
+
+        return cnt;
     }
 
     public static class FitFixtureReporter extends NoOpDiffListenerAdapter {
@@ -1,7 +1,6 @@
 package dbfit.fixture;
 
 import dbfit.api.DBEnvironment;
-import dbfit.fixture.report.FitFixtureReportingSystem;
 import dbfit.util.DataRow;
 import dbfit.util.DataCell;
 import dbfit.util.MatchResult;
@@ -42,18 +41,9 @@ public class CompareStoredQueriesHideMatchingRows extends CompareStoredQueries {
         return summary;
     }
 
-    private int numColumns(Parse table) {
-        int cnt = 0;
-        for (Parse row = table.parts; row != null; row = row.more) {
-            cnt = Math.max(cnt, row.size());
-        }
-
-        return cnt;
-    }
-
     @Override
     protected FitFixtureReporter getReporter(final Parse table) {
-        return new FitFixtureReporter(new FitFixtureReportingSystem(this, table)) {
+        return new FitFixtureReporter(createReportingSystem(table)) {
             List<MatchResult<DataCell, DataCell>> lastRow = new ArrayList<>();
 
             @Override
@@ -0,0 +1,96 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.api.DbEnvironmentFactory;
+import dbfit.diff.SortedRowStreamDiff;
+import dbfit.util.FitNesseTestHost;
+import dbfit.util.Log;
+import dbfit.util.PrefetchingDataRowIterator;
+import static dbfit.util.RowStructureLoader.loadRowStructure;
+
+import fit.Parse;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Compares the results of two live queries, running on different database
+ * environments, without storing them first. Both queries must return their
+ * rows sorted ascending by the key columns (the ones without a question
+ * mark), with strings in binary order, ie by character code, and nulls
+ * last (see {@link SortedRowStreamDiff}); the rows are then merge-compared
+ * while being fetched, so memory use does not depend on the number of rows.
+ * Rows out of that order fail the table.
+ *
+ * The queries are fetched at the same time, so they must run on different
+ * environments, and thus different connections. Environments are referred
+ * to by the names given to them with {@link DatabaseEnvironment}:
+ *
+ * <pre>
+ * !|Compare Streamed Queries|source|select * from t order by id|target|select * from t order by id|
+ * |id                       |name?                                                                  |
+ * </pre>
+ */
+public class CompareStreamedQueries extends CompareStoredQueries {
+    private static final int PREFETCH_ROWS = 1000;
+
+    private DBEnvironment environment1;
+    private String query1;
+    private DBEnvironment environment2;
+    private String query2;
+
+    public CompareStreamedQueries() {
+    }
+
+    public CompareStreamedQueries(DBEnvironment environment1, String query1,
+            DBEnvironment environment2, String query2) {
+        this.environment1 = environment1;
+        this.query1 = query1;
+        this.environment2 = environment2;
+        this.query2 = query2;
+    }
+
+    private void initialiseQueries() {
+        if (query1 == null || query2 == null) {
+            if (args.length < 4) {
+                throw new UnsupportedOperationException(
+                        "No environments and queries specified to CompareStreamedQueries constructor or argument list");
+            }
+
+            environment1 = DbEnvironmentFactory.getNamedEnvironment(args[0]);
+            query1 = args[1];
+            environment2 = DbEnvironmentFactory.getNamedEnvironment(args[2]);
+            query2 = args[3];
+        }
+        if (environment1 == environment2) {
+            throw new IllegalArgumentException("CompareStreamedQueries fetches both queries at the same time,"
+                    + " which needs two different environments; use CompareStoredQueries for queries of one environment");
+        }
+    }
+
+    @Override
+    public void doTable(Parse table) {
+        initialiseQueries();
+        Parse lastRow = table.parts.more;
+        if (lastRow == null) {
+            throw new Error("Query structure missing from second row");
+        }
+
+        SortedRowStreamDiff diff = new SortedRowStreamDiff(loadRowStructure(lastRow));
+        Log.log("Streamed queries: '%s' and '%s'", query1, query2);
+        try (
+            PreparedStatement st1 = environment1.createStatementWithBoundFixtureSymbols(
+                    FitNesseTestHost.getInstance(), query1);
+            PreparedStatement st2 = environment2.createStatementWithBoundFixtureSymbols(
+                    FitNesseTestHost.getInstance(), query2);
+            PrefetchingDataRowIterator rows1 = new PrefetchingDataRowIterator(st1, PREFETCH_ROWS);
+            PrefetchingDataRowIterator rows2 = new PrefetchingDataRowIterator(st2, PREFETCH_ROWS)
+        ) {
+            diffAndReport(diff, rows1, rows2, table);
+        } catch (SQLException sqle) {
+            throw new Error(sqle);
+        }
+
+        addReportSummary(table);
+    }
+}
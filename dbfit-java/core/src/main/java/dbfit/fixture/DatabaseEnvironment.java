@@ -19,9 +19,21 @@ public class DatabaseEnvironment extends fitlibrary.SequenceFixture {
         if (args.length > 0) {
             setDatabaseEnvironment(args[0]);
         }
+        if (args.length > 1) {
+            nameEnvironment(args[1]);
+        }
         super.doTable(table);
     }
 
+    /**
+     * Registers the current default environment under the given name
+     * (see {@link CompareStreamedQueries}).
+     */
+    public void nameEnvironment(String name) {
+        DbEnvironmentFactory.setNamedEnvironment(name,
+                DbEnvironmentFactory.getDefaultEnvironment());
+    }
+
     public void setDatabaseEnvironment(String requestedEnv) {
         try {
             DBEnvironment oe =
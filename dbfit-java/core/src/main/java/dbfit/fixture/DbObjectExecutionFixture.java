@@ -6,13 +6,18 @@ import fit.Binding;
 import fit.Fixture;
 import fit.Parse;
 
+import java.sql.BatchUpdateException;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static dbfit.util.Direction.*;
+import static dbfit.util.NameNormaliser.normaliseName;
 
 /**
  * this class handles all cases where a statement should be executed for each row with
@@ -47,6 +52,16 @@ public abstract class DbObjectExecutionFixture extends Fixture {
         return 0;
     }
 
+    /**
+     * override this method to execute rows in JDBC batches of the given size. Batches are
+     * only used for tables which expect no exception, and whose output columns, if any,
+     * are generated keys the driver returns for all rows of a batch. By default, each row
+     * is executed on its own
+     */
+    protected int getBatchSize() {
+        return 1;
+    }
+
     /**
      * override this method and supply the dbObject implementation that will be executed for each row
      */
@@ -74,9 +89,13 @@ public abstract class DbObjectExecutionFixture extends Fixture {
             try (StatementExecution preparedStatement
                     = dbObject.buildPreparedStatement(accessors.toArray())) {
                 execution = preparedStatement;
-                Parse row = rows;
-                while ((row = row.more) != null) {
-                    runRow(row);
+                if (isBatched(rows)) {
+                    runRowsInBatches(rows);
+                } else {
+                    Parse row = rows;
+                    while ((row = row.more) != null) {
+                        runRow(row);
+                    }
                 }
             }
         } catch (Throwable e) {
@@ -140,16 +159,150 @@ public abstract class DbObjectExecutionFixture extends Fixture {
         return bindings;
     }
 
+    private boolean isBatched(Parse rows) {
+        return getBatchSize() > 1
+            && hasOnlyBatchableOutputs()
+            && getExpectedBehaviour() == ExpectedBehaviour.NO_EXCEPTION
+            && !readsSymbolsSetByOutputs(rows);
+    }
+
     /**
-     * execute a single row
+     * a batch sets the inputs of all its rows before executing any of them, so a row reading a
+     * symbol which an output of an earlier row stores, eg the generated key of a parent row,
+     * would see an undefined or stale value. such tables are executed row by row
      */
-    private void runRow(Parse row) throws Throwable {
-        //first set input params
+    private boolean readsSymbolsSetByOutputs(Parse rows) {
+        Set<String> read = new HashSet<String>();
+        Set<String> set = new HashSet<String>();
+        for (Parse row = rows.more; row != null; row = row.more) {
+            Map<DbParameterAccessor, Parse> cellMap = accessors.zipWith(asCellList(row));
+            for (DbParameterAccessor accessor : accessors.toArray()) {
+                Parse cell = cellMap.get(accessor);
+                if (cell == null) {
+                    continue;
+                }
+                String text = cell.text();
+                if (accessor.hasDirection(INPUT) && SymbolUtil.isSymbolGetter(text)) {
+                    read.add(normaliseName(SymbolUtil.getSymbolName(text)));
+                } else if (!accessor.hasDirection(INPUT) && SymbolUtil.isSymbolSetter(text)) {
+                    set.add(normaliseName(SymbolUtil.getSymbolName(text)));
+                }
+            }
+        }
+        read.retainAll(set);
+        return !read.isEmpty();
+    }
+
+    private boolean hasOnlyBatchableOutputs() {
+        for (DbParameterAccessor accessor : accessors.getOutputAccessors()) {
+            if (!(accessor instanceof DbAutoGeneratedKeyAccessor)
+                    || !((DbAutoGeneratedKeyAccessor) accessor).isBatchable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * execute all rows, sending them to the database in batches. processing stops
+     * after the first batch with a failed row
+     */
+    private void runRowsInBatches(Parse rows) throws Throwable {
+        List<Parse> batch = new ArrayList<Parse>();
+        Parse row = rows;
+        while ((row = row.more) != null) {
+            setInputs(row);
+            execution.addBatch();
+            batch.add(row);
+            if (batch.size() >= getBatchSize() && !executeBatch(batch)) {
+                while ((row = row.more) != null) {
+                    BatchRows.markNotExecuted(this, row);
+                }
+                return;
+            }
+        }
+        executeBatch(batch);
+    }
+
+    /**
+     * execute the batched rows, marking the failed ones. returns false if any row failed
+     */
+    private boolean executeBatch(List<Parse> batch) throws SQLException {
+        if (batch.isEmpty()) {
+            return true;
+        }
+
+        try {
+            execution.runBatch();
+            evaluateBatchOutputs(batch);
+            return true;
+        } catch (BatchUpdateException e) {
+            e.printStackTrace();
+            markFailedRows(batch, e);
+            return false;
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * distribute the keys generated by the batch to the output cells of its rows, in order
+     */
+    private void evaluateBatchOutputs(List<Parse> batch) throws SQLException {
+        List<DbParameterAccessor> outputAccessors = accessors.getOutputAccessors();
+        if (outputAccessors.isEmpty()) {
+            return;
+        }
+
+        List<Object> keys = execution.getGeneratedKeys(outputAccessors.get(0).getJavaType());
+        if (keys.size() != batch.size()) {
+            throw new SQLException("Driver returned " + keys.size() + " generated keys for "
+                    + batch.size() + " rows");
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Map<DbParameterAccessor, Parse> cellMap = accessors.zipWith(asCellList(batch.get(i)));
+            for (DbParameterAccessor outputAccessor : outputAccessors) {
+                ((DbAutoGeneratedKeyAccessor) outputAccessor).setBatchedKey(keys.get(i));
+                Parse cell = cellMap.get(outputAccessor);
+                try {
+                    columnBindings.get(outputAccessor).doCell(this, cell);
+                } catch (Throwable t) {
+                    exception(cell, t);
+                }
+            }
+        }
+    }
+
+    /**
+     * drivers either stop at the first failed row, returning update counts of the rows
+     * before it, or continue and return EXECUTE_FAILED for each failed row. rows after
+     * the one a driver stopped at are marked as not executed
+     */
+    private void markFailedRows(List<Parse> batch, BatchUpdateException e) {
+        int[] updateCounts = e.getUpdateCounts() == null ? new int[0] : e.getUpdateCounts();
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > updateCounts.length) {
+                BatchRows.markNotExecuted(this, batch.get(i));
+            } else if (i == updateCounts.length || updateCounts[i] == Statement.EXECUTE_FAILED) {
+                exception(batch.get(i).parts, e);
+            }
+        }
+    }
+
+    private void setInputs(Parse row) throws Throwable {
         Map<DbParameterAccessor, Parse> cellMap = accessors.zipWith(asCellList(row));
         for (DbParameterAccessor inputAccessor : accessors.getInputAccessors()) {
             Parse cell = cellMap.get(inputAccessor);
             columnBindings.get(inputAccessor).doCell(this, cell);
         }
+    }
+
+    /**
+     * execute a single row
+     */
+    private void runRow(Parse row) throws Throwable {
+        //first set input params
+        setInputs(row);
 
         if (getExpectedBehaviour() == ExpectedBehaviour.NO_EXCEPTION) {
             executeStatementAndEvaluateOutputs(row);
@@ -4,9 +4,16 @@ import dbfit.api.DBEnvironment;
 import dbfit.api.DbEnvironmentFactory;
 import dbfit.api.DbObject;
 import dbfit.api.DbStoredProcedure;
+import dbfit.util.Options;
 
 import java.sql.SQLException;
 
+/**
+ * Executes a stored procedure or function for each row. Procedures with
+ * only input parameters are called in JDBC batches sized by the procedure
+ * batch size option, if it is set; procedures with output parameters and
+ * functions are always called row by row, to check the outputs.
+ */
 public class ExecuteProcedure extends DbObjectExecutionFixture {
     protected DBEnvironment environment;
     protected String procName;
@@ -25,4 +32,9 @@ public class ExecuteProcedure extends DbObjectExecutionFixture {
         if (procName==null) procName=args[0];
         return new DbStoredProcedure(environment, procName);
     }
+
+    @Override
+    protected int getBatchSize() {
+        return Options.getProcedureBatchSize();
+    }
 }
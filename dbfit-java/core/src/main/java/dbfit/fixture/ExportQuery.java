@@ -0,0 +1,77 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.api.DbEnvironmentFactory;
+import dbfit.util.FitNesseTestHost;
+import dbfit.util.Log;
+import dbfit.util.export.ResultSetExporter;
+import fit.Parse;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Streams query results into a file, without rendering them into the page.
+ * The format is given by the optional third argument, csv or columnar; by
+ * default *.csv files are written as CSV and other files as columnar.
+ * A row reporting the number of rows, bytes written and rows per second
+ * is appended to the table.
+ *
+ * <pre>
+ * !|Export Query|select * from orders|orders.csv|
+ * </pre>
+ */
+public class ExportQuery extends fit.Fixture {
+    private static final int FETCH_SIZE = 1000;
+
+    private DBEnvironment dbEnvironment;
+    private String query;
+    private String file;
+    private String format;
+
+    public ExportQuery() {
+        dbEnvironment = DbEnvironmentFactory.getDefaultEnvironment();
+    }
+
+    public ExportQuery(DBEnvironment environment, String query, String file, String format) {
+        this.dbEnvironment = environment;
+        this.query = query;
+        this.file = file;
+        this.format = format;
+    }
+
+    public void doTable(Parse table) {
+        if (query == null || file == null) {
+            if (args.length < 2) {
+                throw new UnsupportedOperationException(
+                        "No query and file specified to ExportQuery constructor or argument list");
+            }
+            query = args[0];
+            file = args[1];
+            if (args.length > 2) {
+                format = args[2];
+            }
+        }
+
+        Log.log("Exporting query '%s' to %s", query, file);
+        long start = System.nanoTime();
+        try (
+            PreparedStatement st =
+                dbEnvironment.createStatementWithBoundFixtureSymbols(
+                    FitNesseTestHost.getInstance(), query);
+            ResultSetExporter exporter = ResultSetExporter.create(file, format)
+        ) {
+            st.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = st.executeQuery()) {
+                long rows = exporter.export(rs);
+                StatisticsRow.append(table.parts, "rows: " + rows,
+                        "bytes: " + exporter.getBytesWritten(),
+                        "rows/sec: " + StatisticsRow.perSecond(rows, System.nanoTime() - start));
+            }
+        } catch (SQLException | IOException e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package dbfit.fixture;
+
+import dbfit.api.BatchInsertLoader;
+import dbfit.api.DBEnvironment;
+import dbfit.api.DbEnvironmentFactory;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Log;
+import dbfit.util.NameNormaliser;
+import dbfit.util.Options;
+import dbfit.util.generate.DataGenerator;
+import dbfit.util.generate.ValueGenerator;
+import dbfit.util.generate.ValueGenerators;
+import fit.Parse;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inserts generated rows into a table, eg for performance tests. Each
+ * column gets a generator by type, which can be changed with a row of the
+ * column name and a generator specification (see {@link ValueGenerators}).
+ * The same seed generates the same rows on every database.
+ *
+ * The rows are inserted through the bulk loader of the environment in the
+ * current transaction. With more than one load thread, blocks of rows are
+ * inserted at the same time instead, each thread on its own connection,
+ * and committed after each block. A row reporting the number of
+ * rows and rows per second is appended to the table.
+ *
+ * <pre>
+ * |Generate Data|orders|1000000|42|
+ * |column     |generator          |
+ * |id         |sequence 1         |
+ * |customer_id|reference customers.id|
+ * |amount     |normal 100.00, 25  |
+ * </pre>
+ */
+public class GenerateData extends fit.Fixture {
+    private DBEnvironment environment;
+    private String tableName;
+    private long rows = -1;
+    private long seed;
+
+    public GenerateData() {
+        environment = DbEnvironmentFactory.getDefaultEnvironment();
+    }
+
+    public GenerateData(DBEnvironment environment, String tableName, long rows, long seed) {
+        this.environment = environment;
+        this.tableName = tableName;
+        this.rows = rows;
+        this.seed = seed;
+    }
+
+    @Override
+    public void doTable(Parse table) {
+        if (tableName == null) {
+            if (args == null || args.length < 2) {
+                throw new UnsupportedOperationException(
+                        "No table and number of rows specified to GenerateData constructor or argument list");
+            }
+            tableName = args[0];
+            rows = Long.parseLong(args[1].trim());
+            seed = (args.length > 2) ? Long.parseLong(args[2].trim()) : 0;
+        }
+
+        Map<String, Parse> specs = new LinkedHashMap<String, Parse>();
+        Parse row = (table.parts.more == null) ? null : table.parts.more.more;
+        for (; row != null; row = row.more) {
+            specs.put(NameNormaliser.normaliseName(row.parts.text()), row.parts);
+        }
+
+        List<DbParameterAccessor> columns = new ArrayList<DbParameterAccessor>();
+        List<ValueGenerator> generators = new ArrayList<ValueGenerator>();
+        try {
+            for (DbParameterAccessor column : getColumnsInOrder()) {
+                Parse spec = specs.remove(NameNormaliser.normaliseName(column.getName()));
+                ValueGenerator generator;
+                try {
+                    generator = ValueGenerators.forColumn(column,
+                            (spec == null || spec.more == null) ? null : spec.more.text(), environment);
+                } catch (Exception e) {
+                    exception(spec == null ? table.parts.parts : spec.more, e);
+                    return;
+                }
+                if (generator != null) {
+                    columns.add(column);
+                    generators.add(generator);
+                }
+            }
+            for (Parse unknown : specs.values()) {
+                exception(unknown, new IllegalArgumentException(
+                            "No column " + unknown.text() + " in " + tableName));
+            }
+            if (!specs.isEmpty()) {
+                return;
+            }
+
+            DbParameterAccessor[] accessors = columns.toArray(new DbParameterAccessor[columns.size()]);
+            DataGenerator generator = new DataGenerator(
+                    generators.toArray(new ValueGenerator[generators.size()]), seed);
+            int threads = (int) Math.min(Options.getLoadThreads(),
+                    (rows + DataGenerator.ROWS_PER_BLOCK - 1) / DataGenerator.ROWS_PER_BLOCK);
+            Log.log("Generating %d rows into %s with seed %d on %d threads", rows, tableName, seed, threads);
+
+            long start = System.nanoTime();
+            long count = (threads <= 1)
+                ? BatchInsertLoader.forTable(environment, tableName, accessors)
+                    .load(tableName, accessors, generator.rows(0, rows))
+                : insertInParallel(accessors, generator, threads);
+            StatisticsRow.append(table.parts, "rows: " + count,
+                    "rows/sec: " + StatisticsRow.perSecond(count, System.nanoTime() - start));
+        } catch (Throwable e) {
+            exception(table.parts.parts, e);
+        }
+    }
+
+    private List<DbParameterAccessor> getColumnsInOrder() throws SQLException {
+        List<DbParameterAccessor> columns = new ArrayList<DbParameterAccessor>(
+                environment.getAllColumns(tableName).values());
+        Collections.sort(columns, new Comparator<DbParameterAccessor>() {
+            public int compare(DbParameterAccessor a, DbParameterAccessor b) {
+                return a.getPosition() - b.getPosition();
+            }
+        });
+        return columns;
+    }
+
+    /**
+     * Each thread takes the next block of rows until all blocks are
+     * inserted, or another thread failed.
+     */
+    private long insertInParallel(final DbParameterAccessor[] columns, final DataGenerator generator,
+            int threads) throws Exception {
+        final String command = environment.buildInsertCommand(tableName, columns);
+        final long blocks = (rows + DataGenerator.ROWS_PER_BLOCK - 1) / DataGenerator.ROWS_PER_BLOCK;
+        final AtomicLong nextBlock = new AtomicLong();
+        final AtomicBoolean failed = new AtomicBoolean();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> futures = new ArrayList<Future<Long>>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<Long>() {
+                    public Long call() throws Exception {
+                        try (Connection connection = environment.openConnection()) {
+                            connection.setAutoCommit(false);
+                            try (PreparedStatement statement = connection.prepareStatement(command)) {
+                                long count = 0;
+                                long block;
+                                while (!failed.get() && (block = nextBlock.getAndIncrement()) < blocks) {
+                                    long first = block * DataGenerator.ROWS_PER_BLOCK;
+                                    count += insertRows(statement, columns, generator.rows(
+                                                first, Math.min(first + DataGenerator.ROWS_PER_BLOCK, rows)));
+                                    connection.commit();
+                                }
+                                return count;
+                            } catch (Exception e) {
+                                failed.set(true);
+                                connection.rollback();
+                                throw e;
+                            }
+                        }
+                    }
+                }));
+            }
+
+            long count = 0;
+            Throwable failure = null;
+            for (Future<Long> future : futures) {
+                try {
+                    count += future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+            if (failure instanceof Exception) {
+                throw (Exception) failure;
+            } else if (failure != null) {
+                throw (Error) failure;
+            }
+            return count;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long insertRows(PreparedStatement statement, DbParameterAccessor[] columns,
+            Iterator<Object[]> rows) throws SQLException {
+        int batchSize = Math.max(Options.getBatchSize(), 1);
+        long count = 0;
+        while (rows.hasNext()) {
+            Object[] values = rows.next();
+            for (int i = 0; i < columns.length; i++) {
+                Object value = columns[i].toJdbcCompatibleValue(values[i]);
+                if (value == null) {
+                    statement.setNull(i + 1, columns[i].getSqlType());
+                } else {
+                    statement.setObject(i + 1, value, columns[i].getSqlType());
+                }
+            }
+            statement.addBatch();
+            if (++count % batchSize == 0) {
+                statement.executeBatch();
+            }
+        }
+        if (count % batchSize != 0) {
+            statement.executeBatch();
+        }
+        return count;
+    }
+}
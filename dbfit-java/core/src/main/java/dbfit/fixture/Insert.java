@@ -4,12 +4,23 @@ import dbfit.api.DBEnvironment;
 import dbfit.api.DbEnvironmentFactory;
 import dbfit.api.DbObject;
 import dbfit.api.DbTable;
+import dbfit.util.Options;
+import fit.Parse;
 
 import java.sql.SQLException;
 
+/**
+ * Inserts rows into a table. With "bulk" as the second argument, tables
+ * are loaded as with {@link BulkInsert}. Tables with output columns, eg to
+ * read back identity values, are still inserted row by row unless the bulk
+ * loader of the environment can return them.
+ */
 public class Insert extends DbObjectExecutionFixture {
+    public static final String MODE_BULK = "bulk";
+
     private DBEnvironment environment;
     private String tableName;
+    private String mode;
 
     public Insert() {
         environment = DbEnvironmentFactory.getDefaultEnvironment();
@@ -24,11 +35,44 @@ public class Insert extends DbObjectExecutionFixture {
         this.environment = dbEnvironment;
     }
 
-    @Override
-    protected DbObject getTargetDbObject() throws SQLException {
+    public Insert(DBEnvironment dbEnvironment, String tableName, String mode) {
+        this(dbEnvironment, tableName);
+        this.mode = mode;
+    }
+
+    private String getTableName() {
         if ((tableName == null || tableName.trim().length() == 0) && args.length > 0) {
             tableName = args[0];
-        };
-        return new DbTable(environment, tableName);
+        }
+        return tableName;
+    }
+
+    private boolean isBulk() {
+        if (mode == null && args != null && args.length > 1) {
+            mode = args[1];
+        }
+        return mode != null && MODE_BULK.equalsIgnoreCase(mode.trim());
+    }
+
+    @Override
+    public void doRows(Parse rows) {
+        if (rows != null && isBulk()) {
+            BulkInsert bulkInsert = new BulkInsert(environment, getTableName());
+            bulkInsert.counts = counts;
+            if (bulkInsert.loadRows(rows)) {
+                return;
+            }
+        }
+        super.doRows(rows);
+    }
+
+    @Override
+    protected DbObject getTargetDbObject() throws SQLException {
+        return new DbTable(environment, getTableName());
+    }
+
+    @Override
+    protected int getBatchSize() {
+        return Options.getBatchSize();
     }
 }
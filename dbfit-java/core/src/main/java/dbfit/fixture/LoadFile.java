@@ -0,0 +1,152 @@
+package dbfit.fixture;
+
+import dbfit.api.BatchInsertLoader;
+import dbfit.api.BulkLoader;
+import dbfit.api.DBEnvironment;
+import dbfit.api.DbEnvironmentFactory;
+import dbfit.api.DbTable;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.DelimitedFileReader;
+import dbfit.util.Log;
+import dbfit.util.ParseHelper;
+import fit.Parse;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static dbfit.util.Direction.INPUT;
+
+/**
+ * Loads rows from a CSV file into a table, without rendering them into the
+ * page. The first line of the file holds the column names; the values are
+ * parsed like cells of {@link Insert}, and empty fields are loaded as null.
+ * The file is read while loading, through the bulk loader of the
+ * environment or with JDBC batches, so files of any size can be loaded.
+ * Files ending with .tsv or .tab are read as tab separated, and gzipped
+ * files are decompressed. A row reporting the number of rows, bytes read
+ * and rows per second is appended to the table.
+ *
+ * <pre>
+ * !|Load File|orders|orders.csv.gz|
+ * </pre>
+ */
+public class LoadFile extends fit.Fixture {
+    private DBEnvironment environment;
+    private String tableName;
+    private String file;
+
+    public LoadFile() {
+        environment = DbEnvironmentFactory.getDefaultEnvironment();
+    }
+
+    public LoadFile(DBEnvironment environment, String tableName, String file) {
+        this.environment = environment;
+        this.tableName = tableName;
+        this.file = file;
+    }
+
+    @Override
+    public void doTable(Parse table) {
+        if (tableName == null || file == null) {
+            if (args == null || args.length < 2) {
+                throw new UnsupportedOperationException(
+                        "No table and file specified to LoadFile constructor or argument list");
+            }
+            tableName = args[0];
+            file = args[1];
+        }
+
+        Log.log("Loading %s into %s", file, tableName);
+        long start = System.nanoTime();
+        try (DelimitedFileReader reader = DelimitedFileReader.open(file)) {
+            String[] header = reader.readRecord();
+            if (header == null) {
+                throw new IOException("File " + file + " has no header line");
+            }
+            DbParameterAccessor[] columns = getColumns(new DbTable(environment, tableName), header);
+            BulkLoader loader = BatchInsertLoader.forTable(environment, tableName, columns);
+            Log.log("Loading into %s with %s", tableName, loader.getClass().getSimpleName());
+
+            long count = loader.load(tableName, columns, new FileValues(reader, columns));
+            StatisticsRow.append(table.parts, "rows: " + count,
+                    "bytes: " + new File(file).length(),
+                    "rows/sec: " + StatisticsRow.perSecond(count, System.nanoTime() - start));
+        } catch (Throwable e) {
+            exception(table.parts.parts, e);
+        }
+    }
+
+    private static DbParameterAccessor[] getColumns(DbTable table, String[] header) {
+        DbParameterAccessor[] columns = new DbParameterAccessor[header.length];
+        for (int i = 0; i < header.length; i++) {
+            if (header[i] == null) {
+                throw new IllegalArgumentException("Column " + (i + 1) + " of the header line has no name");
+            }
+            columns[i] = table.getDbParameterAccessor(header[i].trim(), INPUT);
+        }
+        return columns;
+    }
+
+    /**
+     * Reads and parses the next record when the loader asks for it.
+     */
+    private class FileValues implements Iterator<Object[]> {
+        private final DelimitedFileReader reader;
+        private final DbParameterAccessor[] columns;
+        private final ParseHelper[] parsers;
+        private String[] record;
+
+        FileValues(DelimitedFileReader reader, DbParameterAccessor[] columns) throws IOException {
+            this.reader = reader;
+            this.columns = columns;
+            this.parsers = new ParseHelper[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                parsers[i] = new ParseHelper(LoadFile.this, columns[i].getJavaType());
+            }
+            record = reader.readRecord();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return record != null;
+        }
+
+        @Override
+        public Object[] next() {
+            if (record == null) {
+                throw new NoSuchElementException();
+            }
+            if (record.length != columns.length) {
+                throw new IllegalArgumentException("Line " + reader.getLineNumber() + " has "
+                        + record.length + " fields, expected " + columns.length);
+            }
+
+            Object[] values = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                if (record[i] != null) {
+                    try {
+                        values[i] = parsers[i].parse(record[i]);
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException("Cannot parse " + columns[i].getName()
+                                + " '" + record[i] + "' on line " + reader.getLineNumber(), e);
+                    }
+                }
+            }
+
+            try {
+                record = reader.readRecord();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read " + file + " after line "
+                        + reader.getLineNumber() + ": " + e.getMessage(), e);
+            }
+            return values;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Rows cannot be removed");
+        }
+    }
+}
@@ -0,0 +1,475 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.api.DbEnvironmentFactory;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.LatencyHistogram;
+import dbfit.util.Log;
+import dbfit.util.NameNormaliser;
+import dbfit.util.ParseHelper;
+import dbfit.util.TypeTransformerFactory;
+import dbfit.util.generate.ValueGenerator;
+import dbfit.util.generate.ValueGenerators;
+import fit.Parse;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Calls a procedure, or runs a statement with symbol parameters, on many
+ * connections at the same time for a given time, eg to check throughput
+ * under concurrent load. The arguments are the procedure name or
+ * statement, the number of sessions, the duration in seconds, and
+ * optionally the ramp-up time in seconds, over which the sessions are
+ * started one after another, and thresholds. Each session runs on its own
+ * thread and connection with auto-commit, so changes are not rolled back
+ * at the end of the test.
+ *
+ * The header row names the input parameters, and each call takes its
+ * values from the next of the following rows. A cell generate:spec
+ * generates the value of each call from a {@link ValueGenerators}
+ * specification instead.
+ *
+ * A row with the number of successful calls, errors, calls per second and
+ * latency percentiles in milliseconds is appended to the table. Thresholds
+ * such as calls/sec >= 500, p99 <= 50 or errors = 0, separated by commas,
+ * mark their cell of that row right or wrong.
+ *
+ * <pre>
+ * |Load Test|place_order|32|60|10|calls/sec >= 500, p99 <= 50|
+ * |customer_id               |amount                     |
+ * |generate: range 1, 1000   |generate: normal 100.00, 25|
+ * </pre>
+ */
+public class LoadTest extends fit.Fixture {
+    static final String GENERATE_PREFIX = "generate:";
+
+    private static final Pattern THRESHOLD = Pattern.compile(
+            "(calls/sec|calls|errors|p50|p95|p99|max)\\s*(<=|>=|<|>|=)\\s*([0-9]+(\\.[0-9]+)?)",
+            Pattern.CASE_INSENSITIVE);
+    private static final List<String> STATISTICS = Arrays.asList(
+            "calls", "errors", "calls/sec", "p50", "p95", "p99", "max");
+
+    private DBEnvironment environment;
+    private String command;
+    private int sessions;
+    private double seconds;
+    private double rampUpSeconds;
+    private String thresholds;
+
+    private String[] columnNames;
+    private Map<String, DbParameterAccessor> procedureParameters;
+    private int[] parameterColumns;
+
+    public LoadTest() {
+        environment = DbEnvironmentFactory.getDefaultEnvironment();
+    }
+
+    public LoadTest(DBEnvironment environment, String command, int sessions, double seconds,
+            double rampUpSeconds, String thresholds) {
+        this.environment = environment;
+        this.command = command;
+        this.sessions = sessions;
+        this.seconds = seconds;
+        this.rampUpSeconds = rampUpSeconds;
+        this.thresholds = thresholds;
+    }
+
+    private interface Session extends AutoCloseable {
+        void call(Object[] values) throws SQLException;
+
+        void close() throws SQLException;
+    }
+
+    /**
+     * A limit on one of the statistics, such as p99 <= 50.
+     */
+    static class Threshold {
+        final String statistic;
+        final String operator;
+        final BigDecimal limit;
+
+        Threshold(String statistic, String operator, BigDecimal limit) {
+            this.statistic = statistic;
+            this.operator = operator;
+            this.limit = limit;
+        }
+
+        static List<Threshold> parseAll(String text) {
+            List<Threshold> result = new ArrayList<Threshold>();
+            if (text == null || text.trim().length() == 0) {
+                return result;
+            }
+            for (String threshold : text.split(",")) {
+                Matcher m = THRESHOLD.matcher(threshold.trim());
+                if (!m.matches()) {
+                    throw new IllegalArgumentException("Cannot parse threshold " + threshold.trim()
+                            + ", use eg calls/sec >= 500 or p99 <= 50");
+                }
+                result.add(new Threshold(m.group(1).toLowerCase(), m.group(2), new BigDecimal(m.group(3))));
+            }
+            return result;
+        }
+
+        boolean isMetBy(BigDecimal value) {
+            int c = value.compareTo(limit);
+            switch (operator) {
+                case "<":
+                    return c < 0;
+                case "<=":
+                    return c <= 0;
+                case ">":
+                    return c > 0;
+                case ">=":
+                    return c >= 0;
+                default:
+                    return c == 0;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return statistic + " " + operator + " " + limit.toPlainString();
+        }
+    }
+
+    @Override
+    public void doTable(Parse table) {
+        if (command == null) {
+            if (args == null || args.length < 3) {
+                throw new UnsupportedOperationException(
+                        "No command, number of sessions and duration specified to LoadTest constructor or argument list");
+            }
+            command = args[0];
+            sessions = Integer.parseInt(args[1].trim());
+            seconds = Double.parseDouble(args[2].trim());
+            int next = 3;
+            if (args.length > next && args[next].trim().matches("[0-9]+(\\.[0-9]+)?")) {
+                rampUpSeconds = Double.parseDouble(args[next++].trim());
+            }
+            thresholds = (args.length > next) ? args[next] : null;
+        }
+        if (sessions < 1) {
+            throw new IllegalArgumentException("Load test needs at least one session");
+        }
+
+        try {
+            List<Threshold> limits = Threshold.parseAll(thresholds);
+            Parse header = table.parts.more;
+            columnNames = getColumnNames(header);
+            DbParameterAccessor[] columns = describeColumns();
+
+            List<Object[]> parameterSets = new ArrayList<Object[]>();
+            for (Parse row = (header == null) ? null : header.more; row != null; row = row.more) {
+                Object[] values = parseRow(row, columns);
+                if (values == null) {
+                    return;
+                }
+                parameterSets.add(values);
+            }
+            if (parameterSets.isEmpty()) {
+                if (columnNames.length > 0) {
+                    throw new IllegalArgumentException("No parameter rows after the header row");
+                }
+                parameterSets.add(new Object[0]);
+            }
+
+            runSessions(table, parameterSets, limits);
+        } catch (Throwable e) {
+            exception(table.parts.parts, e);
+        }
+    }
+
+    private static String[] getColumnNames(Parse header) {
+        List<String> names = new ArrayList<String>();
+        for (Parse cell = (header == null) ? null : header.parts; cell != null; cell = cell.more) {
+            names.add(NameNormaliser.normaliseName(cell.text()));
+        }
+        return names.toArray(new String[names.size()]);
+    }
+
+    private static boolean isProcedure(String command) {
+        return command.trim().split("\\s+").length == 1;
+    }
+
+    /**
+     * Checks that the columns and the parameters match, and returns the
+     * accessors the values of the columns are parsed for.
+     */
+    private DbParameterAccessor[] describeColumns() throws SQLException {
+        DbParameterAccessor[] columns = new DbParameterAccessor[columnNames.length];
+        if (isProcedure(command)) {
+            procedureParameters = environment.getAllProcedureParameters(command.trim());
+            if (procedureParameters.isEmpty()) {
+                throw new SQLException("Retrieved empty list of parameters for "
+                        + command + " - check spelling and access rights");
+            }
+            for (int i = 0; i < columnNames.length; i++) {
+                columns[i] = procedureParameters.get(columnNames[i]);
+                if (columns[i] == null || !columns[i].getDirection().isInOrInout()) {
+                    throw new SQLException("Cannot find input parameter \"" + columnNames[i] + "\"");
+                }
+            }
+            for (Map.Entry<String, DbParameterAccessor> parameter : procedureParameters.entrySet()) {
+                if (parameter.getValue().getDirection().isInOrInout()
+                        && indexOf(parameter.getKey()) < 0) {
+                    throw new SQLException("No column for input parameter \"" + parameter.getKey() + "\"");
+                }
+            }
+            return columns;
+        }
+
+        String[] parameterNames = environment.extractParamNames(command);
+        parameterColumns = new int[parameterNames.length];
+        for (int j = 0; j < parameterNames.length; j++) {
+            parameterColumns[j] = indexOf(NameNormaliser.normaliseName(parameterNames[j]));
+            if (parameterColumns[j] < 0) {
+                throw new SQLException("No column for parameter \"" + parameterNames[j] + "\"");
+            }
+        }
+        for (int i = 0; i < columnNames.length; i++) {
+            columns[i] = new DbParameterAccessor(columnNames[i], Direction.INPUT, Types.OTHER,
+                    Object.class, i, new TypeTransformerFactory());
+        }
+        return columns;
+    }
+
+    private int indexOf(String columnName) {
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equals(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses the values of a row, or returns null if a cell cannot be
+     * parsed. Generated values are kept as their generators; statement
+     * parameters are parsed as text.
+     */
+    private Object[] parseRow(Parse row, DbParameterAccessor[] columns) throws Exception {
+        Object[] values = new Object[columns.length];
+        Parse cell = row.parts;
+        for (int i = 0; i < columns.length; i++, cell = (cell == null) ? null : cell.more) {
+            if (cell == null) {
+                throw new IllegalArgumentException("Missing value of " + columnNames[i]);
+            }
+            String text = cell.text();
+            try {
+                if (text.startsWith(GENERATE_PREFIX)) {
+                    values[i] = ValueGenerators.forColumn(columns[i],
+                            text.substring(GENERATE_PREFIX.length()), environment);
+                } else {
+                    Class<?> type = (procedureParameters == null) ? String.class : columns[i].getJavaType();
+                    values[i] = new ParseHelper(this, type).parse(text);
+                }
+            } catch (Exception e) {
+                exception(cell, e);
+                return null;
+            }
+        }
+        return values;
+    }
+
+    private Session openSession(Connection connection) throws SQLException {
+        if (procedureParameters != null) {
+            return new ProcedureSession(connection);
+        }
+        return new StatementSession(connection);
+    }
+
+    private class ProcedureSession implements Session {
+        private final StatementExecution statement;
+        private final DbParameterAccessor[] inputs = new DbParameterAccessor[columnNames.length];
+
+        ProcedureSession(Connection connection) throws SQLException {
+            Map<String, DbParameterAccessor> parameters = new HashMap<String, DbParameterAccessor>();
+            for (Map.Entry<String, DbParameterAccessor> parameter : procedureParameters.entrySet()) {
+                parameters.put(parameter.getKey(), parameter.getValue().clone());
+            }
+            statement = environment.newStoredProcedureCall(command.trim(),
+                    parameters.values().toArray(new DbParameterAccessor[parameters.size()]))
+                .toStatementExecution(connection);
+            for (int i = 0; i < columnNames.length; i++) {
+                inputs[i] = parameters.get(columnNames[i]);
+            }
+        }
+
+        public void call(Object[] values) throws SQLException {
+            for (int i = 0; i < inputs.length; i++) {
+                try {
+                    inputs[i].set(values[i]);
+                } catch (SQLException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new SQLException("Cannot set parameter " + columnNames[i] + ": " + e.getMessage(), e);
+                }
+            }
+            statement.run();
+        }
+
+        public void close() throws SQLException {
+            statement.close();
+        }
+    }
+
+    private class StatementSession implements Session {
+        private final PreparedStatement statement;
+
+        StatementSession(Connection connection) throws SQLException {
+            statement = connection.prepareStatement(environment.buildParameterisedCommand(command));
+        }
+
+        public void call(Object[] values) throws SQLException {
+            for (int j = 0; j < parameterColumns.length; j++) {
+                statement.setObject(j + 1, values[parameterColumns[j]]);
+            }
+            if (statement.execute()) {
+                try (ResultSet rs = statement.getResultSet()) {
+                    while (rs.next()) {
+                        // fetch all rows, as a client would
+                    }
+                }
+            }
+        }
+
+        public void close() throws SQLException {
+            statement.close();
+        }
+    }
+
+    /**
+     * The values of a call, with generated values drawn for the call.
+     */
+    private static Object[] valuesOf(Object[] parameterSet, long call, Random random) {
+        Object[] values = parameterSet.clone();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] instanceof ValueGenerator) {
+                values[i] = ((ValueGenerator) values[i]).next(call, random);
+            }
+        }
+        return values;
+    }
+
+    private void runSessions(Parse table, final List<Object[]> parameterSets, List<Threshold> limits)
+            throws Exception {
+        Log.log("Load testing %s with %d sessions for %s seconds", command, sessions, seconds);
+        final LatencyHistogram latencies = new LatencyHistogram();
+        final AtomicLong nextCall = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicReference<SQLException> firstError = new AtomicReference<SQLException>();
+        final long start = System.nanoTime();
+        final long end = start + (long) (seconds * 1e9);
+        long rampUp = (long) (rampUpSeconds * 1e9);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(sessions, 1));
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < sessions; i++) {
+                final long sessionStart = start + rampUp * i / sessions;
+                final long seed = i;
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        TimeUnit.NANOSECONDS.sleep(sessionStart - System.nanoTime());
+                        if (System.nanoTime() >= end) {
+                            return null;
+                        }
+                        try (Connection connection = environment.openConnection();
+                                Session session = openSession(connection)) {
+                            Random random = new Random(seed);
+                            while (System.nanoTime() < end) {
+                                long call = nextCall.getAndIncrement();
+                                Object[] values = valuesOf(
+                                        parameterSets.get((int) (call % parameterSets.size())), call, random);
+                                long callStart = System.nanoTime();
+                                try {
+                                    session.call(values);
+                                    latencies.record((System.nanoTime() - callStart) / 1000);
+                                } catch (SQLException e) {
+                                    errors.incrementAndGet();
+                                    firstError.compareAndSet(null, e);
+                                }
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw (Error) e.getCause();
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long calls = latencies.getCount();
+        BigDecimal[] statistics = {
+            BigDecimal.valueOf(calls),
+            BigDecimal.valueOf(errors.get()),
+            BigDecimal.valueOf(StatisticsRow.perSecond(calls, System.nanoTime() - start)),
+            toMillis(latencies.getValueAtPercentile(50)),
+            toMillis(latencies.getValueAtPercentile(95)),
+            toMillis(latencies.getValueAtPercentile(99)),
+            toMillis(latencies.getMax())
+        };
+        Parse cell = StatisticsRow.append(table.parts, "calls: " + statistics[0],
+                "errors: " + statistics[1], "calls/sec: " + statistics[2], "p50 ms: " + statistics[3],
+                "p95 ms: " + statistics[4], "p99 ms: " + statistics[5], "max ms: " + statistics[6]);
+        if (firstError.get() != null) {
+            firstError.get().printStackTrace();
+            cell.more.addToBody(gray(" " + firstError.get().getMessage()));
+        }
+        checkThresholds(cell, statistics, limits);
+    }
+
+    private static BigDecimal toMillis(long micros) {
+        return BigDecimal.valueOf(micros, 3).setScale(1, RoundingMode.HALF_UP);
+    }
+
+    private void checkThresholds(Parse firstCell, BigDecimal[] statistics, List<Threshold> limits) {
+        for (Threshold limit : limits) {
+            int index = STATISTICS.indexOf(limit.statistic);
+            Parse cell = firstCell;
+            for (int i = 0; i < index; i++) {
+                cell = cell.more;
+            }
+            if (limit.isMetBy(statistics[index])) {
+                right(cell);
+            } else {
+                wrong(cell);
+            }
+            cell.addToBody(gray(" (" + limit + ")"));
+        }
+    }
+}
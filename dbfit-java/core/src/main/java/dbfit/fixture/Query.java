@@ -7,6 +7,7 @@ import dbfit.util.*;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.Future;
 
 import static dbfit.util.SymbolUtil.isSymbolGetter;
 
@@ -14,6 +15,7 @@ public class Query extends RowSetFixture {
     private DBEnvironment dbEnvironment;
     private String queryOrSymbol;
     private boolean isOrdered;
+    private Future<DataTable> prefetchedResults;
 
     public Query() {
         dbEnvironment = DbEnvironmentFactory.getDefaultEnvironment();
@@ -30,6 +32,14 @@ public class Query extends RowSetFixture {
         this.isOrdered = isOrdered;
     }
 
+    /**
+     * Uses the results of the query prefetched by a {@link QueryPrefetcher}
+     * instead of running the query.
+     */
+    public void setPrefetchedResults(Future<DataTable> results) {
+        this.prefetchedResults = results;
+    }
+
     public MatchableDataTable getDataTable() throws SQLException {
         if (queryOrSymbol == null) {
             queryOrSymbol = args[0];
@@ -39,11 +49,26 @@ public class Query extends RowSetFixture {
             return new MatchableDataTable(getFromSymbol());
         }
 
+        if (prefetchedResults != null) {
+            DataTable prefetched = QueryPrefetcher.resultsOf(prefetchedResults);
+            if (prefetched != null) {
+                Log.log("Query (prefetched): '%s'", queryOrSymbol);
+                return new MatchableDataTable(prefetched);
+            }
+        }
+
         Log.log("Query: '%s'", queryOrSymbol);
         try (PreparedStatement st =
                 dbEnvironment.createStatementWithBoundFixtureSymbols(
                     FitNesseTestHost.getInstance(), queryOrSymbol)) {
-            return new MatchableDataTable(new DataTable(st.executeQuery()));
+            QueryWatchdog.Watch watch = QueryWatchdog.watch(st);
+            try {
+                return new MatchableDataTable(new DataTable(st.executeQuery()));
+            } catch (SQLException e) {
+                throw watch.check(e);
+            } finally {
+                watch.close();
+            }
         }
     }
 
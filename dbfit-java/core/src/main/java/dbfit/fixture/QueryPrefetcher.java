@@ -0,0 +1,253 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.util.DataTable;
+import dbfit.util.FitNesseTestHost;
+import dbfit.util.Log;
+import dbfit.util.Options;
+import dbfit.util.QueryTimeoutException;
+import dbfit.util.QueryWatchdog;
+import dbfit.util.SymbolReference;
+import dbfit.util.SymbolUtil;
+
+import static dbfit.util.NameNormaliser.normaliseName;
+
+import fit.Fixture;
+import fit.Parse;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs the query of the next table of a page on a connection of its own
+ * while the current table is processed, so that waiting for the database
+ * overlaps with checking and rendering the current table.
+ *
+ * The query is prefetched only when the prefetch queries option is set,
+ * the connection of the environment is in auto-commit mode, so that the
+ * other connection sees the same data, and both tables only read: the
+ * current table is looked ahead of with {@link #lookAhead}, and the next
+ * table is a Query, Ordered Query or Store Query whose symbol parameters
+ * are not set by the current table. The fixture of the next table takes
+ * the results with {@link #take}.
+ *
+ * The prefetched query runs with the query timeout of the next table.
+ */
+public class QueryPrefetcher implements AutoCloseable {
+    private static final List<String> QUERY_FIXTURES =
+        Arrays.asList("query", "orderedquery", "storequery");
+
+    private final DBEnvironment environment;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "dbfit query prefetch");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    // only used on the thread of the executor
+    private Connection connection;
+    private String query;
+    private Future<DataTable> results;
+    private boolean started;
+
+    public QueryPrefetcher(DBEnvironment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Wraps the fixture of a table which only reads, so that the query of
+     * the following table is prefetched while the table runs.
+     */
+    public Fixture lookAhead(final Fixture fixture) {
+        return new Fixture() {
+            @Override
+            public void doTable(Parse table) {
+                prefetchNext(table);
+                fixture.counts = counts;
+                fixture.summary = summary;
+                fixture.listener = listener;
+                fixture.doTable(table);
+            }
+        };
+    }
+
+    /**
+     * Returns the results of the query if it was prefetched, or null.
+     * Prefetched results of other queries are discarded.
+     */
+    public Future<DataTable> take(String query) {
+        if (!query.equals(this.query)) {
+            discard();
+            return null;
+        }
+        Future<DataTable> taken = results;
+        this.query = null;
+        results = null;
+        return taken;
+    }
+
+    /**
+     * Waits for prefetched results. Returns null if the query failed, so
+     * that it is run again on the connection of the environment, where it
+     * fails with the same error; a query which did not finish within the
+     * query timeout fails right away.
+     */
+    public static DataTable resultsOf(Future<DataTable> results) throws SQLException {
+        try {
+            return results.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof QueryTimeoutException) {
+                throw (QueryTimeoutException) e.getCause();
+            }
+            Log.log("Prefetched query failed: %s", e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    void prefetchNext(Parse table) {
+        Parse next = table.more;
+        if (next == null || !Options.isPrefetchQueries()) {
+            return;
+        }
+        Parse fixtureCell = next.parts.parts;
+        if (!QUERY_FIXTURES.contains(normaliseName(fixtureCell.text())) || fixtureCell.more == null) {
+            return;
+        }
+        String nextQuery = fixtureCell.more.text();
+        if (SymbolUtil.isSymbolGetter(nextQuery)) {
+            return;
+        }
+        try {
+            if (!environment.getConnection().getAutoCommit()) {
+                return;
+            }
+            prefetch(nextQuery, queryTimeoutOf(fixtureCell), symbolsSetBy(table));
+        } catch (SQLException e) {
+            Log.log(e);
+        }
+    }
+
+    /**
+     * The query timeout of a table, which Query and Ordered Query tables
+     * can set for themselves after the query.
+     */
+    private static int queryTimeoutOf(Parse fixtureCell) {
+        Parse timeoutCell = fixtureCell.more.more;
+        if (timeoutCell != null && !"storequery".equals(normaliseName(fixtureCell.text()))) {
+            try {
+                return Integer.parseInt(timeoutCell.text().trim());
+            } catch (NumberFormatException e) {
+                Log.log(e);
+            }
+        }
+        return Options.getQueryTimeout();
+    }
+
+    private void prefetch(String nextQuery, final int timeoutSeconds,
+            Set<String> symbolsSetByCurrentTable) {
+        String[] names = Options.isBindSymbols()
+            ? environment.extractParamNames(nextQuery) : new String[0];
+        final Object[] values = new Object[names.length];
+        for (int i = 0; i < names.length; i++) {
+            if (symbolsSetByCurrentTable.contains(normaliseName(names[i]))) {
+                return;
+            }
+            values[i] = FitNesseTestHost.getInstance().getSymbolValue(names[i]);
+        }
+        final String command = Options.isBindSymbols()
+            ? environment.buildParameterisedCommand(nextQuery) : nextQuery;
+        discard();
+        Log.log("Prefetching query: '%s'", nextQuery);
+        started = true;
+        query = nextQuery;
+        results = executor.submit(new Callable<DataTable>() {
+            public DataTable call() throws SQLException {
+                return execute(command, values, timeoutSeconds);
+            }
+        });
+    }
+
+    private DataTable execute(String command, Object[] values, int timeoutSeconds)
+            throws SQLException {
+        if (connection == null) {
+            connection = environment.openConnection();
+        }
+        try (PreparedStatement st = connection.prepareStatement(command)) {
+            for (int i = 0; i < values.length; i++) {
+                st.setObject(i + 1, values[i]);
+            }
+            QueryWatchdog.Watch watch = QueryWatchdog.watch(st, timeoutSeconds);
+            try {
+                return new DataTable(st.executeQuery());
+            } catch (SQLException e) {
+                throw watch.check(e);
+            } finally {
+                watch.close();
+            }
+        }
+    }
+
+    /**
+     * Names of the symbols the table sets, in >>symbol cells or as the
+     * symbol of a Store Query.
+     */
+    private static Set<String> symbolsSetBy(Parse table) {
+        Set<String> symbols = new HashSet<String>();
+        for (Parse row = table.parts; row != null; row = row.more) {
+            for (Parse cell = row.parts; cell != null; cell = cell.more) {
+                if (SymbolUtil.isSymbolSetter(cell.text())) {
+                    symbols.add(normaliseName(SymbolReference.fromFullName(cell.text()).getName()));
+                }
+            }
+        }
+        Parse fixtureCell = table.parts.parts;
+        if ("storequery".equals(normaliseName(fixtureCell.text()))
+                && fixtureCell.more != null && fixtureCell.more.more != null) {
+            symbols.add(normaliseName(fixtureCell.more.more.text()));
+        }
+        return symbols;
+    }
+
+    private void discard() {
+        if (results != null) {
+            results.cancel(false);
+        }
+        query = null;
+        results = null;
+    }
+
+    /**
+     * Closes the connection once the running query, if any, has finished.
+     */
+    @Override
+    public void close() {
+        discard();
+        if (started) {
+            executor.submit(new Callable<Void>() {
+                public Void call() throws SQLException {
+                    if (connection != null) {
+                        connection.close();
+                    }
+                    return null;
+                }
+            });
+            started = false;
+        }
+        executor.shutdown();
+    }
+}
@@ -133,7 +133,13 @@ public abstract class RowSetFixture extends ColumnFixture {
 
     private void addSurplusRows(Parse rows) {
         Parse lastRow = rows;
+        int maxReportedRows = Options.getMaxReportedRows();
+        int surplusRows = 0;
         for (DataRow dr: dt.getUnprocessedRows()) {
+            if (maxReportedRows > 0 && ++surplusRows > maxReportedRows) {
+                counts.wrong++; // counted but not rendered
+                continue;
+            }
             Parse newRow = new Parse("tr", null, null, null);
             lastRow.more = newRow;
             lastRow = newRow;
@@ -154,6 +160,20 @@ public abstract class RowSetFixture extends ColumnFixture {
                 exception(newRow, e);
             }
         }
+
+        if (maxReportedRows > 0 && surplusRows > maxReportedRows) {
+            lastRow.more = getSurplusSummaryRow(surplusRows, maxReportedRows);
+        }
+    }
+
+    private Parse getSurplusSummaryRow(int surplusRows, int maxReportedRows) {
+        Parse summary = new Parse("tr", null, null, null);
+        summary.addToTag(" class=\"fail\"");
+        summary.parts = new Parse("td", "surplus: " + surplusRows + " ("
+                + (surplusRows - maxReportedRows) + " rows not shown, limit is "
+                + maxReportedRows + " rows per kind)", null, null);
+        summary.parts.addToTag(" colspan=\"" + columnBindings.length + "\"");
+        return summary;
     }
 
     @SuppressWarnings("unchecked")
@@ -1,16 +1,74 @@
 package dbfit.fixture;
 
+import dbfit.util.FileParameter;
+import dbfit.util.QueryWatchdog;
+
+import java.io.Closeable;
+import java.io.IOException;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 
 public class StatementExecution implements AutoCloseable {
     protected PreparedStatement statement;
+    private final List<Closeable> streams = new ArrayList<Closeable>();
 
     public StatementExecution(PreparedStatement statement) {
         this.statement = statement;
     }
 
     public void run() throws SQLException {
-        statement.execute();
+        QueryWatchdog.Watch watch = QueryWatchdog.watch(statement);
+        try {
+            statement.execute();
+        } catch (SQLException e) {
+            throw watch.check(e);
+        } finally {
+            watch.close();
+            closeStreams();
+        }
+    }
+
+    /**
+     * Executes a data manipulation statement, returning the number of affected rows.
+     */
+    public int runUpdate() throws SQLException {
+        QueryWatchdog.Watch watch = QueryWatchdog.watch(statement);
+        try {
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            throw watch.check(e);
+        } finally {
+            watch.close();
+            closeStreams();
+        }
+    }
+
+    /**
+     * Adds the currently bound parameters to the batch, to be executed
+     * later by {@link #runBatch()}.
+     */
+    public void addBatch() throws SQLException {
+        statement.addBatch();
+    }
+
+    /**
+     * Executes all batched parameter sets, returning their update counts.
+     */
+    public int[] runBatch() throws SQLException {
+        QueryWatchdog.Watch watch = QueryWatchdog.watch(statement);
+        try {
+            return statement.executeBatch();
+        } catch (SQLException e) {
+            throw watch.check(e);
+        } finally {
+            watch.close();
+            closeStreams();
+        }
+    }
+
+    public void clearBatch() throws SQLException {
+        statement.clearBatch();
     }
 
     public void registerOutParameter(int index, int sqlType, boolean isReturnValue) throws SQLException {
@@ -20,6 +78,8 @@ public class StatementExecution implements AutoCloseable {
     public void setObject(int index, Object value, int sqlType, String userDefinedTypeName) throws SQLException {
         if (value == null) {
             statement.setNull(index, sqlType, userDefinedTypeName);
+        } else if (FileParameter.isFileReference(value)) {
+            streams.add(FileParameter.bind(statement, index, (String) value, sqlType));
         } else {
             // Don't use the variant that takes sqlType.
             // Derby (at least) assumes no decimal places for Types.DECIMAL and truncates the source data.
@@ -40,21 +100,52 @@ public class StatementExecution implements AutoCloseable {
     public Object getGeneratedKey(Class<?> type) throws SQLException, IllegalAccessException {
         ResultSet rs = statement.getGeneratedKeys();
         if (rs.next()) {//todo: first try to find by name (mysql does not support name-based return keys)
-            Object value;
-            if (type == Integer.class) {
-                value = rs.getInt(1);
-            } else if (type == Long.class) {
-                value = rs.getLong(1);
-            } else {
-                value = rs.getObject(1);
-            }
-            return value;
+            return readGeneratedKey(rs, type);
         }
         throw new IllegalAccessException("statement has not generated any keys");
     }
 
+    /**
+     * Reads the keys generated by all rows of the last executed batch, in
+     * the order of the rows. Only some drivers return the keys of all rows.
+     */
+    public List<Object> getGeneratedKeys(Class<?> type) throws SQLException {
+        List<Object> keys = new ArrayList<Object>();
+        try (ResultSet rs = statement.getGeneratedKeys()) {
+            while (rs.next()) {
+                keys.add(readGeneratedKey(rs, type));
+            }
+        }
+        return keys;
+    }
+
+    private static Object readGeneratedKey(ResultSet rs, Class<?> type) throws SQLException {
+        if (type == Integer.class) {
+            return rs.getInt(1);
+        } else if (type == Long.class) {
+            return rs.getLong(1);
+        } else {
+            return rs.getObject(1);
+        }
+    }
+
+    /**
+     * Closes the files streamed into parameters, once they have been sent.
+     */
+    protected void closeStreams() {
+        for (Closeable stream : streams) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        streams.clear();
+    }
+
     @Override
     public void close() throws SQLException {
+        closeStreams();
         statement.close();
     }
 }
@@ -1,5 +1,7 @@
 package dbfit.fixture;
 
+import dbfit.util.QueryWatchdog;
+
 import java.sql.*;
 
 public class StatementExecutionCapturingResultSetValue extends StatementExecution {
@@ -19,9 +21,15 @@ public class StatementExecutionCapturingResultSetValue extends StatementExecutio
 
     @Override
     public void run() throws SQLException {
+        QueryWatchdog.Watch watch = QueryWatchdog.watch(statement);
         try (ResultSet rs = statement.executeQuery()) {
             rs.next();
             returnValue = rs.getObject(1);
+        } catch (SQLException e) {
+            throw watch.check(e);
+        } finally {
+            watch.close();
+            closeStreams();
         }
     }
 
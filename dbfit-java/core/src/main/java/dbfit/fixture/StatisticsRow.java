@@ -0,0 +1,28 @@
+package dbfit.fixture;
+
+import fit.Parse;
+
+/**
+ * Appends a row of informational cells, such as the number of processed
+ * rows and the throughput, after the last row of a table.
+ */
+class StatisticsRow {
+    private StatisticsRow() {
+    }
+
+    /**
+     * Returns the first cell of the appended row.
+     */
+    static Parse append(Parse rows, String... cells) {
+        Parse first = null;
+        for (int i = cells.length - 1; i >= 0; i--) {
+            first = new Parse("td", cells[i], null, first);
+        }
+        rows.last().more = new Parse("tr", null, first, null);
+        return first;
+    }
+
+    static long perSecond(long count, long nanos) {
+        return count * 1000000000L / Math.max(nanos, 1);
+    }
+}
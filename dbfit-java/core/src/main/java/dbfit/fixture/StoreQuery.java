@@ -1,20 +1,35 @@
 package dbfit.fixture;
 
+import dbfit.api.BulkExtractor;
 import dbfit.api.DBEnvironment;
 import dbfit.api.DbEnvironmentFactory;
 import dbfit.util.DataTable;
 import dbfit.util.FitNesseTestHost;
+import dbfit.util.Log;
+import dbfit.util.Options;
+import dbfit.util.baseline.BaselineWriter;
 import fit.Parse;
 
+import java.io.IOException;
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.Future;
 
+/**
+ * Stores query results into a symbol. If a third argument is given, the
+ * results are also written to that baseline file, so that later runs can
+ * compare against them with {@link CompareQueryWithBaseline}.
+ *
+ * Queries without symbol parameters are read with the bulk extractor of the
+ * environment, if it has one that can run the query.
+ */
 public class StoreQuery extends fit.Fixture {
 
     private DBEnvironment dbEnvironment;
     private String query;
     private String symbolName;
+    private String baselineFile;
+    private Future<DataTable> prefetchedResults;
 
     public StoreQuery() {
         dbEnvironment = DbEnvironmentFactory.getDefaultEnvironment();
@@ -26,6 +41,20 @@ public class StoreQuery extends fit.Fixture {
         this.symbolName = symbolName;
     }
 
+    public StoreQuery(DBEnvironment environment, String query, String symbolName,
+            String baselineFile) {
+        this(environment, query, symbolName);
+        this.baselineFile = baselineFile;
+    }
+
+    /**
+     * Uses the results of the query prefetched by a {@link QueryPrefetcher}
+     * instead of running the query.
+     */
+    public void setPrefetchedResults(Future<DataTable> results) {
+        this.prefetchedResults = results;
+    }
+
     public void doTable(Parse table) {
         if (query == null || symbolName == null) {
             if (args.length < 2) {
@@ -34,6 +63,34 @@ public class StoreQuery extends fit.Fixture {
             }
             query = args[0];
             symbolName = args[1];
+            if (args.length > 2) {
+                baselineFile = args[2];
+            }
+        }
+
+        try {
+            DataTable dt = getResults();
+            dbfit.util.SymbolUtil.setSymbol(symbolName, dt);
+            if (baselineFile != null) {
+                BaselineWriter.write(dt, baselineFile);
+            }
+        } catch (SQLException | IOException e) {
+            throw new Error(e);
+        }
+    }
+
+    private DataTable getResults() throws SQLException {
+        if (prefetchedResults != null) {
+            DataTable prefetched = QueryPrefetcher.resultsOf(prefetchedResults);
+            if (prefetched != null) {
+                return prefetched;
+            }
+        }
+
+        BulkExtractor extractor = dbEnvironment.getBulkExtractor();
+        if (extractor != null && !hasSymbolParameters() && extractor.canExtract(query)) {
+            Log.log("Extracting query '%s' with %s", query, extractor.getClass().getSimpleName());
+            return extractor.extract(query);
         }
 
         try (
@@ -41,11 +98,11 @@ public class StoreQuery extends fit.Fixture {
                 dbEnvironment.createStatementWithBoundFixtureSymbols(
                     FitNesseTestHost.getInstance(), query)
         ) {
-            ResultSet rs = st.executeQuery();
-            DataTable dt = new DataTable(rs);
-            dbfit.util.SymbolUtil.setSymbol(symbolName, dt);
-        } catch (SQLException sqle) {
-            throw new Error(sqle);
+            return new DataTable(st.executeQuery());
         }
     }
+
+    private boolean hasSymbolParameters() {
+        return Options.isBindSymbols() && dbEnvironment.extractParamNames(query).length > 0;
+    }
 }
@@ -0,0 +1,36 @@
+package dbfit.fixture;
+
+import dbfit.util.Options;
+
+import fit.Fixture;
+import fit.Parse;
+
+/**
+ * Runs the table of another fixture with an option set to a value for that
+ * table only, eg the query timeout of a single query.
+ */
+public class TableOption extends Fixture {
+    private final String option;
+    private final String value;
+    private final Fixture fixture;
+
+    public TableOption(String option, String value, Fixture fixture) {
+        this.option = option;
+        this.value = value;
+        this.fixture = fixture;
+    }
+
+    @Override
+    public void doTable(Parse table) {
+        fixture.counts = counts;
+        fixture.summary = summary;
+        fixture.listener = listener;
+        String previous = Options.get(option);
+        Options.setOption(option, value);
+        try {
+            fixture.doTable(table);
+        } finally {
+            Options.setOption(option, previous);
+        }
+    }
+}
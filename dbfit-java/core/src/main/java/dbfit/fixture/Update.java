@@ -5,11 +5,14 @@ import dbfit.api.DbEnvironmentFactory;
 import dbfit.util.DbParameterAccessor;
 import dbfit.util.DbParameterAccessorTypeAdapter;
 import dbfit.util.NameNormaliser;
+import dbfit.util.Options;
 import dbfit.util.SymbolAccessSetBinding;
 import fit.Binding;
 import fit.Parse;
 
+import java.sql.BatchUpdateException;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -86,10 +89,7 @@ public class Update extends fit.Fixture {
             initParameters(rows.parts); //init parameters from the first row
             try (StatementExecution st = buildUpdateCommand()) {
                 statement = st;
-                Parse row = rows;
-                while ((row = row.more) != null) {
-                    runRow(row);
-                }
+                runRows(rows);
             }
         } catch (Throwable e) {
             e.printStackTrace();
@@ -132,18 +132,99 @@ public class Update extends fit.Fixture {
         updateAccessors = updateAcc.toArray(new DbParameterAccessor[0]);
     }
 
+    /**
+     * execute all rows, in JDBC batches if the batchsize option is more than one
+     */
+    private void runRows(Parse rows) throws Throwable {
+        int batchSize = Options.getBatchSize();
+        List<Parse> batch = new ArrayList<Parse>();
+        Parse row = rows;
+        while ((row = row.more) != null) {
+            if (batchSize <= 1) {
+                runRow(row);
+                continue;
+            }
+
+            setInputs(row);
+            statement.addBatch();
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                runBatch(batch);
+            }
+        }
+        runBatch(batch);
+    }
+
+    private void setInputs(Parse row) throws Throwable {
+        Parse cell = row.parts;
+        for (int column = 0; column < columnBindings.length; column++, cell = cell.more) {
+            columnBindings[column].doCell(this, cell);
+        }
+    }
+
     private void runRow(Parse row) throws Throwable {
         try {
-            Parse cell = row.parts;
             //first set input params
-            for (int column = 0; column < columnBindings.length; column++, cell = cell.more) {
-                columnBindings[column].doCell(this, cell);
-            }
-            statement.run();
+            setInputs(row);
+            checkUpdateCount(row, statement.runUpdate());
         } catch (SQLException sqle) {
             sqle.printStackTrace();
-            exception(row,sqle);
-            row.parts.last().more = new Parse("td", sqle.getMessage(), null, null);
+            markException(row, sqle);
+        }
+    }
+
+    /**
+     * execute the batched rows and check their update counts. if the driver stopped
+     * at a failed row, the rows after it are marked as not executed
+     */
+    private void runBatch(List<Parse> batch) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            int[] updateCounts = statement.runBatch();
+            for (int i = 0; i < batch.size(); i++) {
+                checkUpdateCount(batch.get(i), updateCounts[i]);
+            }
+        } catch (BatchUpdateException bue) {
+            bue.printStackTrace();
+            statement.clearBatch();
+            int[] updateCounts = bue.getUpdateCounts() == null ? new int[0] : bue.getUpdateCounts();
+            for (int i = 0; i < batch.size(); i++) {
+                if (i > updateCounts.length) {
+                    BatchRows.markNotExecuted(this, batch.get(i));
+                } else if (i == updateCounts.length || updateCounts[i] == Statement.EXECUTE_FAILED) {
+                    markException(batch.get(i), bue);
+                } else {
+                    checkUpdateCount(batch.get(i), updateCounts[i]);
+                }
+            }
+        } finally {
+            batch.clear();
         }
     }
+
+    /**
+     * with the fail on zero updates option, marks rows which updated nothing as
+     * wrong, and rows whose update count the driver did not report (eg Oracle for
+     * batches) as not verified, rather than letting them pass unchecked
+     */
+    private void checkUpdateCount(Parse row, int updateCount) {
+        if (!Options.isFailOnZeroUpdates()) {
+            return;
+        }
+        if (updateCount == 0) {
+            wrong(row);
+            row.parts.addToBody(fit.Fixture.gray(" no rows updated"));
+        } else if (updateCount == Statement.SUCCESS_NO_INFO) {
+            ignore(row);
+            row.parts.addToBody(fit.Fixture.gray(" update count unknown, not verified"));
+        }
+    }
+
+    private void markException(Parse row, SQLException sqle) {
+        exception(row, sqle);
+        row.parts.last().more = new Parse("td", sqle.getMessage(), null, null);
+    }
 }
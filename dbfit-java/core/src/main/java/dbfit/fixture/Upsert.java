@@ -0,0 +1,217 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.api.DbEnvironmentFactory;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.DbParameterAccessorTypeAdapter;
+import dbfit.util.Direction;
+import dbfit.util.NameNormaliser;
+import dbfit.util.Options;
+import dbfit.util.SymbolAccessSetBinding;
+import fit.Binding;
+import fit.Parse;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts rows, or updates them if a row with the same key already exists,
+ * with one statement per row, eg to set reference data without cleaning the
+ * table first. Columns without suffix are the key, columns ending with = are
+ * set, like in {@link Update}. Rows are sent in JDBC batches sized by the
+ * batch size option. The numbers of inserted and updated rows are reported
+ * where the database tells them apart for each row, otherwise only the
+ * number of upserted rows.
+ *
+ * <pre>
+ * |Upsert|currencies|
+ * |code|name=     |
+ * |EUR |Euro      |
+ * |GBP |Pound     |
+ * </pre>
+ */
+public class Upsert extends fit.Fixture {
+    private DBEnvironment environment;
+    private StatementExecution statement;
+    private String tableName;
+    private Binding[] columnBindings;
+    private long upsertedRows;
+    private long insertedRows;
+    private boolean insertsKnown = true;
+
+    public Upsert() {
+        this.environment = DbEnvironmentFactory.getDefaultEnvironment();
+    }
+
+    public Upsert(DBEnvironment dbEnvironment) {
+        this.environment = dbEnvironment;
+    }
+
+    public Upsert(DBEnvironment dbEnvironment, String tableName) {
+        this.tableName = tableName;
+        this.environment = dbEnvironment;
+    }
+
+    public void doRows(Parse rows) {
+        if ((tableName == null || tableName.trim().length() == 0) && args.length > 0) {
+            tableName = args[0];
+        }
+
+        try {
+            try (StatementExecution st = buildUpsertCommand(rows.parts)) {
+                statement = st;
+                runRows(rows);
+                if (insertsKnown) {
+                    StatisticsRow.append(rows, "inserted: " + insertedRows,
+                            "updated: " + (upsertedRows - insertedRows));
+                } else {
+                    StatisticsRow.append(rows, "upserted: " + upsertedRows);
+                }
+            }
+        } catch (Throwable e) {
+            e.printStackTrace();
+            exception(rows.parts, e);
+        }
+    }
+
+    private StatementExecution buildUpsertCommand(Parse headerCells) throws SQLException {
+        Map<String, DbParameterAccessor> allParams = environment.getAllColumns(tableName);
+        if (allParams.isEmpty()) {
+            throw new SQLException("Cannot retrieve list of columns for " + tableName + " - check spelling and access rights");
+        }
+
+        columnBindings = new Binding[headerCells.size()];
+        List<DbParameterAccessor> keyAcc = new ArrayList<DbParameterAccessor>();
+        List<DbParameterAccessor> valueAcc = new ArrayList<DbParameterAccessor>();
+        for (int i = 0; headerCells != null; i++, headerCells = headerCells.more) {
+            String paramName = NameNormaliser.normaliseName(headerCells.text());
+            DbParameterAccessor orig = allParams.get(paramName);
+            if (orig == null) {
+                wrong(headerCells);
+                throw new SQLException("Cannot find column " + paramName);
+            }
+            DbParameterAccessor acc = orig.clone();
+            acc.setDirection(Direction.INPUT);
+            if (headerCells.text().endsWith("=")) {
+                valueAcc.add(acc);
+            } else {
+                keyAcc.add(acc);
+            }
+            columnBindings[i] = new SymbolAccessSetBinding();
+            columnBindings[i].adapter = new DbParameterAccessorTypeAdapter(acc, this);
+        }
+        if (keyAcc.isEmpty()) {
+            throw new Error("Upsert fixture must have at least one key column. Have you added = after all column names?");
+        }
+
+        DbParameterAccessor[] keyAccessors = keyAcc.toArray(new DbParameterAccessor[0]);
+        DbParameterAccessor[] valueAccessors = valueAcc.toArray(new DbParameterAccessor[0]);
+        PreparedStatement upsert =
+            environment.buildUpsertPreparedStatement(tableName, keyAccessors, valueAccessors);
+        if (upsert == null) {
+            throw new UnsupportedOperationException("Upsert is not supported by "
+                    + environment.getClass().getSimpleName());
+        }
+
+        StatementExecution cs = environment.createStatementExecution(upsert);
+        for (int i = 0; i < keyAccessors.length; i++) {
+            keyAccessors[i].bindTo(cs, i + 1);
+        }
+        for (int j = 0; j < valueAccessors.length; j++) {
+            valueAccessors[j].bindTo(cs, j + keyAccessors.length + 1);
+        }
+        return cs;
+    }
+
+    /**
+     * count the executed rows, and the inserted ones while the environment
+     * can tell them from the updated ones
+     */
+    private void countRows(int[] updateCounts) throws SQLException {
+        upsertedRows += updateCounts.length;
+        boolean[] inserts = insertsKnown ? environment.getUpsertInserts(statement, updateCounts) : null;
+        if (inserts == null) {
+            insertsKnown = false;
+            return;
+        }
+        for (boolean inserted : inserts) {
+            if (inserted) {
+                insertedRows++;
+            }
+        }
+    }
+
+    /**
+     * execute all rows, in JDBC batches if the batchsize option is more than one
+     */
+    private void runRows(Parse rows) throws Throwable {
+        int batchSize = Options.getBatchSize();
+        List<Parse> batch = new ArrayList<Parse>();
+        Parse row = rows;
+        while ((row = row.more) != null) {
+            setInputs(row);
+            if (batchSize <= 1) {
+                runRow(row);
+                continue;
+            }
+
+            statement.addBatch();
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                runBatch(batch);
+            }
+        }
+        runBatch(batch);
+    }
+
+    private void setInputs(Parse row) throws Throwable {
+        Parse cell = row.parts;
+        for (int column = 0; column < columnBindings.length; column++, cell = cell.more) {
+            columnBindings[column].doCell(this, cell);
+        }
+    }
+
+    private void runRow(Parse row) {
+        try {
+            countRows(new int[] { statement.runUpdate() });
+        } catch (SQLException sqle) {
+            sqle.printStackTrace();
+            exception(row, sqle);
+        }
+    }
+
+    /**
+     * execute the batched rows. if the driver stopped at a failed row, the
+     * rows after it are marked as not executed
+     */
+    private void runBatch(List<Parse> batch) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            countRows(statement.runBatch());
+        } catch (BatchUpdateException bue) {
+            bue.printStackTrace();
+            statement.clearBatch();
+            insertsKnown = false;
+            int[] updateCounts = bue.getUpdateCounts() == null ? new int[0] : bue.getUpdateCounts();
+            for (int i = 0; i < batch.size(); i++) {
+                if (i > updateCounts.length) {
+                    BatchRows.markNotExecuted(this, batch.get(i));
+                } else if (i == updateCounts.length || updateCounts[i] == Statement.EXECUTE_FAILED) {
+                    exception(batch.get(i), bue);
+                } else {
+                    upsertedRows++;
+                }
+            }
+        } finally {
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package dbfit.fixture.report;
+
+import dbfit.util.MatchResult;
+import dbfit.util.MatchStatus;
+import static dbfit.util.MatchStatus.*;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reporting system decorator which renders at most maxReportedRows
+ * mismatched rows of each kind (missing, surplus, wrong, exception).
+ * Rows beyond the limit are not rendered but are still counted, both
+ * in the fixture right/wrong/exception counts and in the mismatch totals.
+ */
+public class BoundedReportingSystem implements ReportingSystem {
+
+    private static final MatchStatus[] MISMATCH_KINDS = {
+        MISSING, SURPLUS, WRONG, EXCEPTION
+    };
+
+    private final ReportingSystem delegate;
+    private final int maxReportedRows;
+    private final Map<MatchStatus, Integer> totals =
+        new EnumMap<MatchStatus, Integer>(MatchStatus.class);
+    private final List<MatchResult> pendingCells = new ArrayList<MatchResult>();
+    private int suppressedRows = 0;
+
+    public BoundedReportingSystem(final ReportingSystem delegate, int maxReportedRows) {
+        this.delegate = delegate;
+        this.maxReportedRows = maxReportedRows;
+
+        for (MatchStatus kind: MISMATCH_KINDS) {
+            totals.put(kind, 0);
+        }
+    }
+
+    @Override
+    public void addCell(final MatchResult res) {
+        // cells are held back until the row status is known
+        pendingCells.add(res);
+    }
+
+    @Override
+    public void endRow(final MatchResult res) {
+        endRow(res, null);
+    }
+
+    @Override
+    public void endRow(final MatchResult res, final String description) {
+        if (isReported(res.getStatus())) {
+            flushPendingCells();
+            delegate.endRow(res, description);
+        } else {
+            countPendingCells();
+            if (res.getStatus() == MISSING || res.getStatus() == SURPLUS) {
+                delegate.incWrong();
+            }
+            ++suppressedRows;
+        }
+    }
+
+    @Override
+    public void addException(final Throwable ex) {
+        flushPendingCells();
+        delegate.addException(ex);
+    }
+
+    @Override
+    public void incRight() {
+        delegate.incRight();
+    }
+
+    @Override
+    public void incWrong() {
+        delegate.incWrong();
+    }
+
+    @Override
+    public void incExceptions() {
+        delegate.incExceptions();
+    }
+
+    private boolean isReported(final MatchStatus status) {
+        Integer total = totals.get(status);
+        if (total == null) {
+            return true; // matching rows are not limited
+        }
+
+        totals.put(status, total + 1);
+        return total < maxReportedRows;
+    }
+
+    private void flushPendingCells() {
+        for (MatchResult cell: pendingCells) {
+            delegate.addCell(cell);
+        }
+        pendingCells.clear();
+    }
+
+    private void countPendingCells() {
+        for (MatchResult cell: pendingCells) {
+            switch (cell.getStatus()) {
+            case SUCCESS:
+                delegate.incRight();
+                break;
+            case EXCEPTION:
+                delegate.incExceptions();
+                break;
+            default:
+                delegate.incWrong();
+                break;
+            }
+        }
+        pendingCells.clear();
+    }
+
+    public int getTotal(final MatchStatus kind) {
+        return totals.get(kind);
+    }
+
+    public int getSuppressedRows() {
+        return suppressedRows;
+    }
+
+    public boolean hasMismatches() {
+        for (MatchStatus kind: MISMATCH_KINDS) {
+            if (getTotal(kind) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        String comma = "";
+        for (MatchStatus kind: MISMATCH_KINDS) {
+            sb.append(comma).append(kind.name().toLowerCase())
+              .append(": ").append(getTotal(kind));
+            comma = ", ";
+        }
+
+        if (suppressedRows > 0) {
+            sb.append(" (").append(suppressedRows)
+              .append(" rows not shown, limit is ").append(maxReportedRows)
+              .append(" rows per kind)");
+        }
+
+        return sb.toString();
+    }
+}
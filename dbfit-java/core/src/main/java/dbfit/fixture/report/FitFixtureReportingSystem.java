@@ -129,6 +129,16 @@ public class FitFixtureReportingSystem implements ReportingSystem {
         ++fixture.counts.right;
     }
 
+    @Override
+    public void incWrong() {
+        ++fixture.counts.wrong;
+    }
+
+    @Override
+    public void incExceptions() {
+        ++fixture.counts.exceptions;
+    }
+
     public Parse getTable() {
         return table;
     }
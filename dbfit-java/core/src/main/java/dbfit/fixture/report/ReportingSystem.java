@@ -8,4 +8,6 @@ public interface ReportingSystem {
     public void endRow(MatchResult res, String description);
     public void addException(Throwable ex);
     public void incRight(); // increment right counts
+    public void incWrong(); // increment wrong counts
+    public void incExceptions(); // increment exception counts
 }
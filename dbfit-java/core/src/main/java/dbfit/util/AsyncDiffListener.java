@@ -0,0 +1,133 @@
+package dbfit.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Forwards diff events to a delegate listener on a separate thread, so
+ * that reporting (eg rendering the results into the page) overlaps with
+ * comparing. Events are passed in batches through a bounded queue; when
+ * the queue is full the comparing thread waits for the reporting thread
+ * to catch up. Events are delivered in the order they were raised.
+ *
+ * Results must not be changed after they have been raised, which holds
+ * for the results of the dbfit diffs. {@link #close()} waits until all
+ * events are delivered and rethrows any failure of the delegate.
+ */
+public class AsyncDiffListener implements DiffListener, AutoCloseable {
+    public static final int DEFAULT_BATCH_SIZE = 256;
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final List<MatchResult> END_OF_EVENTS = new ArrayList<MatchResult>();
+
+    private final DiffListener delegate;
+    private final int batchSize;
+    private final BlockingQueue<List<MatchResult>> queue;
+    private final Thread consumer;
+    private List<MatchResult> batch;
+    private volatile Throwable failure = null;
+    private boolean closed = false;
+
+    public AsyncDiffListener(final DiffListener delegate) {
+        this(delegate, DEFAULT_BATCH_SIZE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param batchSize number of events passed to the reporting thread at once
+     * @param capacity number of batches that may be waiting to be reported
+     */
+    public AsyncDiffListener(final DiffListener delegate, int batchSize, int capacity) {
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<List<MatchResult>>(capacity);
+        this.batch = new ArrayList<MatchResult>(batchSize);
+        this.consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                consumeEvents();
+            }
+        }, "dbfit-report");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @Override
+    public void onEvent(final MatchResult result) {
+        if (closed) {
+            throw new IllegalStateException("Listener is closed");
+        }
+
+        batch.add(result);
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (!batch.isEmpty()) {
+            put(batch);
+            batch = new ArrayList<MatchResult>(batchSize);
+        }
+    }
+
+    private void put(final List<MatchResult> events) {
+        try {
+            queue.put(events);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reporting", e);
+        }
+    }
+
+    private void consumeEvents() {
+        try {
+            List<MatchResult> events;
+            while ((events = queue.take()) != END_OF_EVENTS) {
+                if (failure != null) {
+                    continue; // keep draining so the comparing thread is not blocked
+                }
+
+                try {
+                    for (MatchResult result: events) {
+                        delegate.onEvent(result);
+                    }
+                } catch (Throwable t) {
+                    failure = t;
+                }
+            }
+        } catch (InterruptedException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Delivers any remaining events and waits for the reporting thread
+     * to finish.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flush();
+        put(END_OF_EVENTS);
+
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reporting", e);
+        }
+
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new IllegalStateException(failure);
+        }
+    }
+}
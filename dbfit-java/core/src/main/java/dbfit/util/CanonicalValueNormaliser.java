@@ -0,0 +1,60 @@
+package dbfit.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Normalises values to a vendor-invariant form so that results from
+ * different database environments can be compared and ordered: values
+ * are first passed through the registered type normalisers
+ * (see {@link TypeNormaliserFactory}), then all numbers are converted
+ * to {@link NormalisedBigDecimal} and dates to {@link Timestamp}.
+ */
+public class CanonicalValueNormaliser {
+    private static TypeTransformerFactory canonicalisers = new TypeTransformerFactory();
+
+    static {
+        canonicalisers.setTransformer(Number.class, new NumberCanonicaliser());
+        canonicalisers.setTransformer(java.sql.Date.class, new DateCanonicaliser());
+    }
+
+    public static Object normaliseValue(Object value) throws SQLException {
+        Object normalised = ValueNormaliser.normaliseValue(value);
+        if (normalised == null) {
+            return null;
+        }
+
+        TypeTransformer canonicaliser = canonicalisers.getTransformer(normalised.getClass());
+        return (canonicaliser == null) ? normalised : canonicaliser.transform(normalised);
+    }
+
+    private static class NumberCanonicaliser implements TypeTransformer {
+        @Override
+        public Object transform(Object o) {
+            BigDecimal bd;
+            if (o instanceof BigDecimal) {
+                bd = (BigDecimal) o;
+            } else if (o instanceof BigInteger) {
+                bd = new BigDecimal((BigInteger) o);
+            } else if (o instanceof Double || o instanceof Float) {
+                try {
+                    bd = new BigDecimal(o.toString());
+                } catch (NumberFormatException e) {
+                    return o; // NaN and infinities have no decimal form
+                }
+            } else {
+                bd = BigDecimal.valueOf(((Number) o).longValue());
+            }
+            return new NormalisedBigDecimal(bd);
+        }
+    }
+
+    private static class DateCanonicaliser implements TypeTransformer {
+        @Override
+        public Object transform(Object o) {
+            return new Timestamp(((java.sql.Date) o).getTime());
+        }
+    }
+}
@@ -6,9 +6,34 @@ import java.lang.reflect.InvocationTargetException;
 import java.sql.SQLException;
 
 public class DbAutoGeneratedKeyAccessor extends DbParameterAccessor {
+    private final boolean batchable;
+    private Object batchedKey;
+    private boolean hasBatchedKey;
 
     public DbAutoGeneratedKeyAccessor(DbParameterAccessor c) {
+        this(c, false);
+    }
+
+    /**
+     * @param batchable whether the driver returns the keys of all rows of a
+     * batch, so that rows with this column can be inserted in batches
+     */
+    public DbAutoGeneratedKeyAccessor(DbParameterAccessor c, boolean batchable) {
         super(c.getName(), Direction.OUTPUT, c.getSqlType(), c.getJavaType(), c.getPosition(), c.getDbfitToJdbcTransformerFactory());
+        this.batchable = batchable;
+    }
+
+    public boolean isBatchable() {
+        return batchable;
+    }
+
+    /**
+     * Sets the key generated for the current row of a batch, which is then
+     * returned instead of the key of the last execution of the statement.
+     */
+    public void setBatchedKey(Object key) {
+        this.batchedKey = key;
+        this.hasBatchedKey = true;
     }
 
     @Override
@@ -23,6 +48,9 @@ public class DbAutoGeneratedKeyAccessor extends DbParameterAccessor {
 
     @Override
     public Object get() throws IllegalAccessException, InvocationTargetException {
+        if (hasBatchedKey) {
+            return batchedKey;
+        }
         try {
             return cs.getGeneratedKey(getJavaType());
         } catch (SQLException e) {
@@ -60,7 +60,7 @@ public class DbParameterAccessor {
         this.dbfitToJdbcTransformerFactory = dbfitToJdbcTransformerFactory;
     }
 
-    protected int getSqlType() {
+    public int getSqlType() {
         return sqlType;
     }
 
@@ -88,7 +88,11 @@ public class DbParameterAccessor {
         }
     }
 
-    private Object toJdbcCompatibleValue(Object value) throws SQLException {
+    /**
+     * Converts a value parsed from a cell to the value passed to the driver,
+     * as done when setting the parameter.
+     */
+    public Object toJdbcCompatibleValue(Object value) throws SQLException {
         TypeTransformer dbfitToJdbcTransformer = null;
         Object transformedValue;
         if (value != null) {
@@ -0,0 +1,144 @@
+package dbfit.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads records of a delimited text file one at a time, so files of any
+ * size can be read. Fields may be quoted as in RFC 4180, with doubled
+ * quotes inside quoted fields; quoted fields may span lines. Unquoted
+ * empty fields are read as null, quoted empty fields as empty strings.
+ */
+public class DelimitedFileReader implements Closeable {
+    private static final int BUFFER_SIZE = 65536;
+
+    private final Reader in;
+    private final char delimiter;
+    private int next = -2;
+    private long line = 1;
+    private long recordLine;
+
+    public DelimitedFileReader(Reader in, char delimiter) {
+        this.in = in;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Opens a UTF-8 file, which is decompressed if it is gzipped. Files
+     * ending with .tsv or .tab, optionally followed by .gz, are read as
+     * tab separated, other files as comma separated.
+     */
+    public static DelimitedFileReader open(String path) throws IOException {
+        InputStream is = new BufferedInputStream(new FileInputStream(path), BUFFER_SIZE);
+        try {
+            is.mark(2);
+            int magic = is.read() | (is.read() << 8);
+            is.reset();
+            if (magic == GZIPInputStream.GZIP_MAGIC) {
+                is = new GZIPInputStream(is, BUFFER_SIZE);
+            }
+        } catch (IOException e) {
+            is.close();
+            throw e;
+        }
+
+        String name = path.toLowerCase();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        char delimiter = (name.endsWith(".tsv") || name.endsWith(".tab")) ? '\t' : ',';
+        return new DelimitedFileReader(new BufferedReader(
+                    new InputStreamReader(is, StandardCharsets.UTF_8), BUFFER_SIZE), delimiter);
+    }
+
+    /**
+     * Line number where the last record read starts.
+     */
+    public long getLineNumber() {
+        return recordLine;
+    }
+
+    private int peek() throws IOException {
+        if (next == -2) {
+            next = in.read();
+        }
+        return next;
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        next = -2;
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    /**
+     * Reads the next record, or returns null at the end of the file. Empty
+     * lines are skipped.
+     */
+    public String[] readRecord() throws IOException {
+        while (peek() == '\r' || peek() == '\n') {
+            read();
+        }
+        if (peek() == -1) {
+            return null;
+        }
+
+        recordLine = line;
+        List<String> fields = new ArrayList<String>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            int c = read();
+            if (c == '"' && field.length() == 0 && !quoted) {
+                quoted = true;
+                readQuoted(field);
+            } else if (c == delimiter || c == '\n' || c == '\r' || c == -1) {
+                fields.add((field.length() == 0 && !quoted) ? null : field.toString());
+                field.setLength(0);
+                quoted = false;
+                if (c != delimiter) {
+                    if (c == '\r' && peek() == '\n') {
+                        read();
+                    }
+                    return fields.toArray(new String[fields.size()]);
+                }
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private void readQuoted(StringBuilder field) throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new IOException("Unterminated quoted field starting at line " + recordLine);
+            }
+            if (c == '"') {
+                if (peek() != '"') {
+                    return;
+                }
+                read();
+            }
+            field.append((char) c);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
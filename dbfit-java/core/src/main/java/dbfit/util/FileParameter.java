@@ -0,0 +1,117 @@
+package dbfit.util;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Binds the content of a file to a statement parameter, streamed from disk
+ * instead of read into memory, eg for large CLOB and BLOB values. With the
+ * file parameters option set, a cell or symbol value file:path refers to a
+ * file, relative to the directory FitNesse is started from. Binary columns
+ * get the bytes of the file, other columns its text, read as UTF-8.
+ */
+public class FileParameter {
+    public static final String PREFIX = "file:";
+
+    private FileParameter() {
+    }
+
+    public static boolean isFileReference(Object value) {
+        return value instanceof String && ((String) value).startsWith(PREFIX)
+            && Options.isFileParameters();
+    }
+
+    /**
+     * Binds the file as a stream, which the caller closes once the
+     * statement has been executed.
+     */
+    public static Closeable bind(PreparedStatement statement, int index, String reference, int sqlType)
+            throws SQLException {
+        File file = new File(reference.substring(PREFIX.length()).trim());
+        try {
+            if (isBinary(sqlType)) {
+                int length = toLength(file, file.length());
+                InputStream in = new BufferedInputStream(new FileInputStream(file));
+                try {
+                    statement.setBinaryStream(index, in, length);
+                } catch (SQLException | RuntimeException e) {
+                    closeAfterFailure(in, e);
+                    throw e;
+                }
+                return in;
+            }
+
+            int length = toLength(file, countCharacters(file));
+            Reader reader = openReader(file);
+            try {
+                statement.setCharacterStream(index, reader, length);
+            } catch (SQLException | RuntimeException e) {
+                closeAfterFailure(reader, e);
+                throw e;
+            }
+            return reader;
+        } catch (FileNotFoundException e) {
+            throw new SQLException("Cannot find file " + file.getAbsolutePath(), e);
+        } catch (IOException e) {
+            throw new SQLException("Cannot read file " + file.getAbsolutePath() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void closeAfterFailure(Closeable stream, Exception failure) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private static boolean isBinary(int sqlType) {
+        switch (sqlType) {
+            case Types.BLOB:
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static Reader openReader(File file) throws IOException {
+        return new InputStreamReader(new BufferedInputStream(new FileInputStream(file)), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Drivers need the length of character streams in characters, which
+     * differs from the file size for multi-byte characters.
+     */
+    private static long countCharacters(File file) throws IOException {
+        try (Reader reader = openReader(file)) {
+            char[] buffer = new char[8192];
+            long count = 0;
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                count += read;
+            }
+            return count;
+        }
+    }
+
+    private static int toLength(File file, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("File " + file + " is too large to bind as a parameter");
+        }
+        return (int) length;
+    }
+}
@@ -1,26 +1,61 @@
 package dbfit.util;
 
-import java.util.HashMap;
+import dbfit.api.TestContext;
+
 import java.util.Map;
 
+/**
+ * Options of the current test, kept in its {@link TestContext}.
+ */
 public class Options {
     public static String OPTION_FIXED_LENGTH_STRING_PARSING = "fixedlengthstringparsing";
     public static String OPTION_BIND_SYMBOLS = "bindsymbols";
     public static String OPTION_DEBUG_LOG = "debuglog";
     public static String OPTION_AUTO_COMMIT = "autocommit";
+    public static String OPTION_MAX_REPORTED_ROWS = "maxreportedrows";
+    public static String OPTION_RECORD_BASELINES = "recordbaselines";
+    public static String OPTION_ASYNC_REPORTING = "asyncreporting";
+    public static String OPTION_BATCH_SIZE = "batchsize";
+    public static String OPTION_FAIL_ON_ZERO_UPDATES = "failonzeroupdates";
+    public static String OPTION_CLEAN_THREADS = "cleanthreads";
+    public static String OPTION_DISABLE_CONSTRAINTS = "disableconstraints";
+    public static String OPTION_LOAD_THREADS = "loadthreads";
+    public static String OPTION_FILE_PARAMETERS = "fileparameters";
+    public static String OPTION_QUERY_TIMEOUT = "querytimeout";
+    public static String OPTION_PREFETCH_QUERIES = "prefetchqueries";
+    public static String OPTION_PROCEDURE_BATCH_SIZE = "procedurebatchsize";
 
-    private static Map<String, String> options = new HashMap<String, String>();
-
-    static {
-        reset();
+    private static Map<String, String> options() {
+        return TestContext.current().getOptions();
     }
 
     public static void reset() {
-        options.clear();
-        setOption(OPTION_FIXED_LENGTH_STRING_PARSING, "false");
-        setOption(OPTION_BIND_SYMBOLS, "true");
-        setOption(OPTION_DEBUG_LOG, "false");
-        setOption(OPTION_AUTO_COMMIT, "false");
+        reset(options());
+    }
+
+    /**
+     * Sets all options of the map to their defaults.
+     */
+    public static void reset(Map<String, String> options) {
+        synchronized (options) {
+            options.clear();
+            setOption(options, OPTION_FIXED_LENGTH_STRING_PARSING, "false");
+            setOption(options, OPTION_BIND_SYMBOLS, "true");
+            setOption(options, OPTION_DEBUG_LOG, "false");
+            setOption(options, OPTION_AUTO_COMMIT, "false");
+            setOption(options, OPTION_MAX_REPORTED_ROWS, "0");
+            setOption(options, OPTION_RECORD_BASELINES, "false");
+            setOption(options, OPTION_ASYNC_REPORTING, "false");
+            setOption(options, OPTION_BATCH_SIZE, "100");
+            setOption(options, OPTION_FAIL_ON_ZERO_UPDATES, "false");
+            setOption(options, OPTION_CLEAN_THREADS, "1");
+            setOption(options, OPTION_DISABLE_CONSTRAINTS, "false");
+            setOption(options, OPTION_LOAD_THREADS, "1");
+            setOption(options, OPTION_FILE_PARAMETERS, "false");
+            setOption(options, OPTION_QUERY_TIMEOUT, "0");
+            setOption(options, OPTION_PREFETCH_QUERIES, "false");
+            setOption(options, OPTION_PROCEDURE_BATCH_SIZE, "1");
+        }
     }
 
     public static boolean isFixedLengthStringParsing() {
@@ -35,19 +70,124 @@ public class Options {
         return is(OPTION_DEBUG_LOG);
     }
 
+    /**
+     * Maximum number of mismatched rows of each kind rendered by comparing
+     * fixtures. Zero (the default) means no limit.
+     */
+    public static int getMaxReportedRows() {
+        return getInt(OPTION_MAX_REPORTED_ROWS);
+    }
+
+    /**
+     * When set, baseline comparisons record the current query results as
+     * the new baseline instead of comparing against the stored one.
+     */
+    public static boolean isRecordBaselines() {
+        return is(OPTION_RECORD_BASELINES);
+    }
+
+    /**
+     * When set, comparing fixtures render their results on a separate
+     * thread while comparing.
+     */
+    public static boolean isAsyncReporting() {
+        return is(OPTION_ASYNC_REPORTING);
+    }
+
+    /**
+     * Number of rows sent to the database at once by fixtures which
+     * support JDBC batches. One or less disables batching.
+     */
+    public static int getBatchSize() {
+        return getInt(OPTION_BATCH_SIZE);
+    }
+
+    /**
+     * Number of calls Execute Procedure sends to the database at once for
+     * procedures with only input parameters. One or less (the default)
+     * calls the procedure row by row.
+     */
+    public static int getProcedureBatchSize() {
+        return getInt(OPTION_PROCEDURE_BATCH_SIZE);
+    }
+
+    /**
+     * When set, Update marks rows which did not update any record as wrong.
+     */
+    public static boolean isFailOnZeroUpdates() {
+        return is(OPTION_FAIL_ON_ZERO_UPDATES);
+    }
+
+    /**
+     * Number of tables Clean Schema deletes at the same time, each on its
+     * own connection with auto-commit. One or less (the default) deletes the
+     * tables one after another in the current transaction.
+     */
+    public static int getCleanThreads() {
+        return getInt(OPTION_CLEAN_THREADS);
+    }
+
+    /**
+     * When set, Clean Schema disables foreign keys while deleting, where
+     * the database supports it, instead of deleting in dependency order.
+     */
+    public static boolean isDisableConstraints() {
+        return is(OPTION_DISABLE_CONSTRAINTS);
+    }
+
+    /**
+     * Number of connections Generate Data inserts rows on at the same time,
+     * committing after each block of rows. One or less (the default)
+     * inserts the rows in the current transaction.
+     */
+    public static int getLoadThreads() {
+        return getInt(OPTION_LOAD_THREADS);
+    }
+
+    /**
+     * When set, parameter values file:path are bound as streams of the
+     * content of the file, see {@link FileParameter}.
+     */
+    public static boolean isFileParameters() {
+        return is(OPTION_FILE_PARAMETERS);
+    }
+
+    /**
+     * Seconds a statement of Query, Execute or Execute Procedure may run
+     * before it is cancelled, see {@link QueryWatchdog}. Zero (the default)
+     * means no limit.
+     */
+    public static int getQueryTimeout() {
+        return getInt(OPTION_QUERY_TIMEOUT);
+    }
+
+    /**
+     * When set, flow mode runs the query of the next table on a second
+     * connection while the current table is processed, where this is safe,
+     * see {@link dbfit.fixture.QueryPrefetcher}.
+     */
+    public static boolean isPrefetchQueries() {
+        return is(OPTION_PREFETCH_QUERIES);
+    }
+
+    public static int getInt(String option) {
+        String value = get(option);
+        return (value == null) ? 0 : Integer.parseInt(value.trim());
+    }
+
     public static boolean is(String option) {
-        String normalname = NameNormaliser.normaliseName(option);
-        if (!options.containsKey(normalname)) {
-            return false;
-        }
-        return Boolean.parseBoolean(options.get(normalname));
+        return Boolean.parseBoolean(get(option));
     }
 
     public static String get(String option) {
-        return options.get(NameNormaliser.normaliseName(option));
+        return options().get(NameNormaliser.normaliseName(option));
     }
 
     public static void setOption(String name, String value) {
+        setOption(options(), name, value);
+    }
+
+    private static void setOption(Map<String, String> options, String name, String value) {
         options.put(NameNormaliser.normaliseName(name), value);
     }
 }
@@ -59,6 +59,10 @@ public class ParseHelper {
             return null;
         }
 
+        if (FileParameter.isFileReference(trim)) {
+            return trim;
+        }
+
         if (type.equals(String.class) && Options.isFixedLengthStringParsing() &&
                 trim.startsWith("'") && trim.endsWith("'")) {
             return trim.substring(1, trim.length() - 1);
@@ -0,0 +1,144 @@
+package dbfit.util;
+
+import static dbfit.util.NameNormaliser.normaliseName;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Iterates over the rows of a query, executing it and reading the rows
+ * ahead on a background thread into a bounded queue. No more than
+ * capacity rows are held in memory, while the next rows are being
+ * fetched from the database in parallel with processing the current ones.
+ *
+ * Values are normalised with {@link CanonicalValueNormaliser}, so rows
+ * read from different environments can be compared to each other.
+ */
+public class PrefetchingDataRowIterator implements Iterator<DataRow>, AutoCloseable {
+    private static final DataRow END_OF_DATA = new DataRow(new HashMap<String, Object>());
+
+    private final PreparedStatement statement;
+    private ResultSet rs;
+    private final BlockingQueue<DataRow> queue;
+    private final Thread fetcher;
+    private volatile boolean closed = false;
+    private volatile Exception fetchException = null;
+    private DataRow nextRow = null;
+    private boolean finished = false;
+
+    public PrefetchingDataRowIterator(final PreparedStatement statement, int capacity) {
+        this.statement = statement;
+        this.queue = new ArrayBlockingQueue<DataRow>(capacity);
+        this.fetcher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                fetchRows();
+            }
+        }, "dbfit-prefetch");
+        fetcher.setDaemon(true);
+        fetcher.start();
+    }
+
+    private void fetchRows() {
+        try {
+            statement.setFetchSize(queue.remainingCapacity());
+            rs = statement.executeQuery();
+            ResultSetMetaData rsmd = rs.getMetaData();
+            String[] names = new String[rsmd.getColumnCount()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = normaliseName(rsmd.getColumnLabel(i + 1));
+            }
+
+            while (!closed && rs.next()) {
+                Map<String, Object> values = new HashMap<String, Object>();
+                for (int i = 0; i < names.length; i++) {
+                    values.put(names[i], CanonicalValueNormaliser.normaliseValue(rs.getObject(i + 1)));
+                }
+                put(new DataRow(values));
+            }
+        } catch (InterruptedException e) {
+            return; // closed by consumer
+        } catch (Exception e) {
+            fetchException = e;
+        }
+
+        try {
+            put(END_OF_DATA);
+        } catch (InterruptedException e) {
+            // closed by consumer
+        }
+    }
+
+    private void put(final DataRow row) throws InterruptedException {
+        while (!closed) {
+            if (queue.offer(row, 100, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextRow == null && !finished) {
+            try {
+                nextRow = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while fetching rows", e);
+            }
+
+            if (nextRow == END_OF_DATA) {
+                nextRow = null;
+                finished = true;
+                if (fetchException != null) {
+                    throw new IllegalStateException("Cannot fetch rows: " + fetchException.getMessage(),
+                            fetchException);
+                }
+            }
+        }
+        return nextRow != null;
+    }
+
+    @Override
+    public DataRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        DataRow row = nextRow;
+        nextRow = null;
+        return row;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Rows cannot be removed");
+    }
+
+    /**
+     * Stops fetching and closes the result set. The statement is left
+     * open and remains owned by the caller.
+     */
+    @Override
+    public void close() throws SQLException {
+        closed = true;
+        fetcher.interrupt();
+        try {
+            fetcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        queue.clear();
+        if (rs != null) {
+            rs.close();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package dbfit.util;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+
+/**
+ * A statement which did not finish within the query timeout, with the
+ * sessions of the database at the deadline, if they could be read.
+ */
+public class QueryTimeoutException extends SQLTimeoutException {
+    private static final long serialVersionUID = 1L;
+
+    public QueryTimeoutException(int seconds, String sessions, SQLException cause) {
+        super(message(seconds, sessions), cause.getSQLState(), cause.getErrorCode(), cause);
+    }
+
+    private static String message(int seconds, String sessions) {
+        String message = "Statement did not finish within the query timeout of "
+            + seconds + " seconds";
+        if (sessions == null || sessions.isEmpty()) {
+            return message;
+        }
+        return message + "\nSessions at the deadline:\n" + sessions;
+    }
+}
@@ -0,0 +1,253 @@
+package dbfit.util;
+
+import dbfit.api.DBEnvironment;
+import dbfit.api.TestContext;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Enforces the query timeout option on the statements of fixtures. A
+ * watchdog thread cancels statements still running at the deadline, so
+ * that a runaway query or a lock wait fails its table instead of hanging
+ * the test run. Before cancelling, the watchdog takes a thread dump, which
+ * is logged when the statement fails, and reads the sessions of the
+ * database on a new connection, which are reported by the
+ * {@link QueryTimeoutException} the statement then fails with. Reading the
+ * sessions may take up to {@value #DIAGNOSTICS_SECONDS} seconds; the
+ * statement is cancelled then, whether they were read or not.
+ *
+ * The query timeout of the statement itself is set a few seconds after the
+ * deadline, so that it only ends statements the watchdog could not cancel.
+ *
+ * <pre>
+ * QueryWatchdog.Watch watch = QueryWatchdog.watch(statement);
+ * try {
+ *     statement.execute();
+ * } catch (SQLException e) {
+ *     throw watch.check(e);
+ * } finally {
+ *     watch.close();
+ * }
+ * </pre>
+ */
+public class QueryWatchdog {
+    static final int DRIVER_GRACE_SECONDS = 5;
+    static final int DIAGNOSTICS_SECONDS = 5;
+
+    private static final Watch NONE = new Watch(null, 0);
+
+    private static final ScheduledThreadPoolExecutor timer = createTimer();
+
+    // sessions are read on threads of their own, so that a database which
+    // does not answer cannot hold up the watchdog
+    private static final ExecutorService diagnostics =
+        Executors.newCachedThreadPool(daemonThreads("dbfit query diagnostics"));
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor timer =
+            new ScheduledThreadPoolExecutor(1, daemonThreads("dbfit query watchdog"));
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        return new ThreadFactory() {
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Starts watching a statement which is about to be executed on the
+     * current thread, with the query timeout of the current test.
+     */
+    public static Watch watch(Statement statement) throws SQLException {
+        return watch(statement, Options.getQueryTimeout());
+    }
+
+    /**
+     * Starts watching a statement with the given query timeout, eg on a
+     * thread which runs statements for a test.
+     */
+    public static Watch watch(Statement statement, int seconds) throws SQLException {
+        if (seconds <= 0) {
+            return NONE;
+        }
+        try {
+            statement.setQueryTimeout(seconds + DRIVER_GRACE_SECONDS);
+        } catch (SQLFeatureNotSupportedException e) {
+            Log.log(e);
+        }
+        Watch watch = new Watch(statement, seconds);
+        watch.deadline = timer.schedule(watch, seconds, TimeUnit.SECONDS);
+        return watch;
+    }
+
+    public static class Watch implements Runnable, AutoCloseable {
+        private final Statement statement;
+        private final int seconds;
+        private final Thread thread = Thread.currentThread();
+        private final TestContext context = TestContext.current();
+        private ScheduledFuture<?> deadline;
+        private boolean finished;
+        private boolean cancelled;
+        private String sessions;
+        private String threadDump;
+
+        private Watch(Statement statement, int seconds) {
+            this.statement = statement;
+            this.seconds = seconds;
+        }
+
+        /**
+         * Runs on the watchdog thread at the deadline.
+         */
+        @Override
+        public void run() {
+            String threadDump = takeThreadDump();
+            String sessions = readSessionsWithinTimeLimit();
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                this.threadDump = threadDump;
+                this.sessions = sessions;
+                cancelled = true;
+                try {
+                    statement.cancel();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        /**
+         * Returns the exception to throw for a failed statement: a
+         * {@link QueryTimeoutException} if the statement was cancelled or
+         * timed out, otherwise the exception itself.
+         */
+        public synchronized SQLException check(SQLException e) {
+            if (statement == null || !(cancelled || e instanceof SQLTimeoutException)) {
+                return e;
+            }
+            if (threadDump != null) {
+                Log.log(threadDump);
+            }
+            return new QueryTimeoutException(seconds, sessions, e);
+        }
+
+        @Override
+        public synchronized void close() {
+            finished = true;
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+        }
+
+        private String takeThreadDump() {
+            StringBuilder sb = new StringBuilder("Statement on thread " + thread.getName()
+                    + " did not finish within " + seconds + " seconds; thread dump:\n");
+            for (Map.Entry<Thread, StackTraceElement[]> entry : Thread.getAllStackTraces().entrySet()) {
+                sb.append("\"").append(entry.getKey().getName()).append("\" ")
+                    .append(entry.getKey().getState()).append("\n");
+                for (StackTraceElement element : entry.getValue()) {
+                    sb.append("    at ").append(element).append("\n");
+                }
+            }
+            return sb.toString();
+        }
+
+        private String readSessionsWithinTimeLimit() {
+            final DBEnvironment environment = findEnvironment();
+            final String query = (environment == null) ? null : environment.buildSessionDiagnosticsQuery();
+            if (query == null) {
+                return null;
+            }
+            Future<String> sessions = diagnostics.submit(new Callable<String>() {
+                public String call() throws SQLException {
+                    return readSessions(environment, query);
+                }
+            });
+            try {
+                return sessions.get(DIAGNOSTICS_SECONDS, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                return "Sessions could not be read: " + e.getCause().getMessage();
+            } catch (TimeoutException e) {
+                sessions.cancel(true);
+                return "Sessions could not be read within " + DIAGNOSTICS_SECONDS + " seconds";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        private static String readSessions(DBEnvironment environment, String query)
+                throws SQLException {
+            try (Connection connection = environment.openConnection();
+                 Statement st = connection.createStatement()) {
+                st.setQueryTimeout(DIAGNOSTICS_SECONDS);
+                try (ResultSet rs = st.executeQuery(query)) {
+                    return describeRows(rs);
+                }
+            }
+        }
+
+        /**
+         * Finds the environment whose connection runs the statement, and
+         * otherwise takes the default environment, eg for the connections
+         * of Load Test.
+         */
+        private DBEnvironment findEnvironment() {
+            Map<String, DBEnvironment> environments = context.getNamedEnvironments();
+            synchronized (environments) {
+                for (DBEnvironment environment : environments.values()) {
+                    if (isConnectionOf(environment)) {
+                        return environment;
+                    }
+                }
+            }
+            return context.getDefaultEnvironment();
+        }
+
+        private boolean isConnectionOf(DBEnvironment environment) {
+            try {
+                return environment.getConnection() == statement.getConnection();
+            } catch (Exception e) {
+                return false;
+            }
+        }
+    }
+
+    static String describeRows(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        StringBuilder sb = new StringBuilder();
+        while (rs.next()) {
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                sb.append(i > 1 ? ", " : "").append(metaData.getColumnLabel(i))
+                    .append("=").append(rs.getObject(i));
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -1,26 +1,29 @@
 package dbfit.util;
 
+import dbfit.api.TestContext;
+
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
 /** ugly workaround for fit change in release 200807, which internally converts NULL into a string value "null";
  * for db access, we need to make a difference between NULL and "null" so this class provides a centralised
- * place for the change; for dbfit fixtures use this class to access symbols rather than directly fit.fixture
+ * place for the change; for dbfit fixtures use this class to access symbols rather than directly fit.fixture.
+ * Symbols are kept in the {@link TestContext} of the current thread.
  */
 public class SymbolUtil {
     private static final Object dbNull = new Object();
 
     public static void setSymbol(String name, Object value) {
-        fit.Fixture.setSymbol(getSymbolName(name), value == null ? dbNull : value);
+        TestContext.current().setSymbol(getSymbolName(name), value == null ? dbNull : value);
     }
 
     public static Object getSymbol(String name) {
-        Object value = fit.Fixture.getSymbol(getSymbolName(name));
+        Object value = TestContext.current().getSymbol(getSymbolName(name));
         return (value == dbNull) ? null : value;
     }
 
     public static void clearSymbols() {
-        fit.Fixture.ClearSymbols();
+        TestContext.current().clearSymbols();
     }
 
     public static DataTable getDataTable(String symbolName) {
@@ -3,6 +3,10 @@ package dbfit.util;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Transformers by class, found for subclasses too. Safe to use from many
+ * threads, eg the fetchers of streamed query comparisons.
+ */
 public class TypeTransformerFactory {
     private Map<Class<?>, TypeTransformer> transformers = new HashMap<Class<?>, TypeTransformer>();
 
@@ -28,11 +32,11 @@ public class TypeTransformerFactory {
         return currentBest;
     }
 
-    public void setTransformer(Class<?> targetClass, TypeTransformer normaliser) {
+    public synchronized void setTransformer(Class<?> targetClass, TypeTransformer normaliser) {
         transformers.put(targetClass, normaliser);
     }
 
-    public TypeTransformer getTransformer(Class<?> targetClass) {
+    public synchronized TypeTransformer getTransformer(Class<?> targetClass) {
         TypeTransformer normaliser = transformers.get(targetClass);
 
         if (normaliser == null) {
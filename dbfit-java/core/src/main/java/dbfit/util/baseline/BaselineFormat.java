@@ -0,0 +1,43 @@
+package dbfit.util.baseline;
+
+/**
+ * Layout of DbFit result baseline files.
+ *
+ * <pre>
+ * header:   magic "DBFITBL" (7 bytes), format version (1 byte)
+ * payload (gzip compressed):
+ *   column count (int), then per column: name, java class name, db type name
+ *   per row: ROW marker (byte), then a tagged value per column
+ *   END marker (byte), row count (long)
+ *   CRC32 checksum of the uncompressed payload up to here (long)
+ * </pre>
+ *
+ * Short strings are dictionary encoded: the first occurrence is written
+ * inline and assigned the next dictionary id, later occurrences are
+ * written as that id.
+ */
+final class BaselineFormat {
+    static final byte[] MAGIC = { 'D', 'B', 'F', 'I', 'T', 'B', 'L' };
+    static final byte VERSION = 1;
+
+    static final byte ROW = 1;
+    static final byte END = 0;
+
+    static final byte NULL = 0;
+    static final byte STRING = 1;
+    static final byte STRING_NEW = 2;
+    static final byte STRING_REF = 3;
+    static final byte DECIMAL = 4;
+    static final byte LONG = 5;
+    static final byte DOUBLE = 6;
+    static final byte BOOLEAN = 7;
+    static final byte TIMESTAMP = 8;
+    static final byte DATE = 9;
+    static final byte TIME = 10;
+
+    static final int MAX_DICTIONARY_STRING_LENGTH = 256;
+    static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    private BaselineFormat() {
+    }
+}
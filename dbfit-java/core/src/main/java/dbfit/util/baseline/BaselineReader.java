@@ -0,0 +1,191 @@
+package dbfit.util.baseline;
+
+import static dbfit.util.NameNormaliser.normaliseName;
+import static dbfit.util.baseline.BaselineFormat.*;
+
+import dbfit.util.CanonicalValueNormaliser;
+import dbfit.util.DataColumn;
+import dbfit.util.DataRow;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads rows of a baseline file written by {@link BaselineWriter} one at
+ * a time. Values are normalised with {@link CanonicalValueNormaliser} so
+ * rows can be compared with rows of live queries. The checksum is
+ * verified when the end of the file is reached.
+ */
+public class BaselineReader implements Iterator<DataRow>, AutoCloseable {
+    private final DataInputStream in;
+    private final CheckedInputStream checked;
+    private final List<DataColumn> columns = new ArrayList<DataColumn>();
+    private final List<String> dictionary = new ArrayList<String>();
+    private String[] names;
+    private long rowCount = 0;
+    private DataRow nextRow = null;
+    private boolean finished = false;
+
+    public BaselineReader(String path) throws IOException {
+        this(new FileInputStream(path));
+    }
+
+    public BaselineReader(InputStream is) throws IOException {
+        byte[] magic = new byte[MAGIC.length + 1];
+        new DataInputStream(is).readFully(magic);
+        if (!Arrays.equals(Arrays.copyOf(magic, MAGIC.length), MAGIC)) {
+            is.close();
+            throw new IOException("Not a DbFit baseline file");
+        }
+        if (magic[MAGIC.length] != VERSION) {
+            is.close();
+            throw new IOException("Unsupported baseline file version " + magic[MAGIC.length]);
+        }
+        checked = new CheckedInputStream(
+                new BufferedInputStream(new GZIPInputStream(is, 65536), 65536), new CRC32());
+        in = new DataInputStream(checked);
+        readSchema();
+    }
+
+    private void readSchema() throws IOException {
+        int columnCount = in.readInt();
+        names = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            DataColumn column = new DataColumn(
+                    readNullableString(), readNullableString(), readNullableString());
+            columns.add(column);
+            names[i] = normaliseName(column.getName());
+        }
+    }
+
+    public List<DataColumn> getColumns() {
+        return columns;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextRow == null && !finished) {
+            try {
+                nextRow = readRow();
+            } catch (IOException | SQLException e) {
+                throw new IllegalStateException("Cannot read baseline: " + e.getMessage(), e);
+            }
+        }
+        return nextRow != null;
+    }
+
+    @Override
+    public DataRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        DataRow row = nextRow;
+        nextRow = null;
+        return row;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Rows cannot be removed");
+    }
+
+    private DataRow readRow() throws IOException, SQLException {
+        byte marker = in.readByte();
+        if (marker == END) {
+            verifyEnd();
+            return null;
+        } else if (marker != ROW) {
+            throw new IOException("Corrupt baseline file: unexpected marker " + marker);
+        }
+
+        Map<String, Object> values = new HashMap<String, Object>();
+        for (String name: names) {
+            values.put(name, CanonicalValueNormaliser.normaliseValue(readValue()));
+        }
+        ++rowCount;
+        return new DataRow(values);
+    }
+
+    private void verifyEnd() throws IOException {
+        finished = true;
+        long expectedRowCount = in.readLong();
+        long actualChecksum = checked.getChecksum().getValue();
+        long expectedChecksum = in.readLong();
+        if (expectedChecksum != actualChecksum || expectedRowCount != rowCount) {
+            throw new IOException("Corrupt baseline file: checksum mismatch");
+        }
+    }
+
+    private Object readValue() throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+        case NULL:
+            return null;
+        case STRING:
+            return readString();
+        case STRING_NEW:
+            String s = readString();
+            dictionary.add(s);
+            return s;
+        case STRING_REF:
+            return dictionary.get(in.readInt());
+        case DECIMAL:
+            BigInteger unscaled = new BigInteger(readBytes());
+            return new BigDecimal(unscaled, in.readInt());
+        case LONG:
+            return in.readLong();
+        case DOUBLE:
+            return in.readDouble();
+        case BOOLEAN:
+            return in.readBoolean();
+        case TIMESTAMP:
+            Timestamp ts = new Timestamp(in.readLong());
+            ts.setNanos(in.readInt());
+            return ts;
+        case DATE:
+            return new java.sql.Date(in.readLong());
+        case TIME:
+            return new Time(in.readLong());
+        default:
+            throw new IOException("Corrupt baseline file: unknown value type " + tag);
+        }
+    }
+
+    private String readNullableString() throws IOException {
+        return in.readBoolean() ? readString() : null;
+    }
+
+    private String readString() throws IOException {
+        return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes() throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
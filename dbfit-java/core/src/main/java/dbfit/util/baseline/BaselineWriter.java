@@ -0,0 +1,247 @@
+package dbfit.util.baseline;
+
+import static dbfit.util.baseline.BaselineFormat.*;
+
+import dbfit.util.DataColumn;
+import dbfit.util.DataRow;
+import dbfit.util.DataTable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes query results to a baseline file (see {@link BaselineFormat}).
+ * Rows are written as they come, so results of any size can be recorded.
+ *
+ * Numbers, strings, booleans, dates and times keep their values; any
+ * other type is stored as its string representation.
+ *
+ * The end marker and checksum are only written by {@link #finish}; a
+ * writer closed without finishing, eg because reading the rows failed,
+ * leaves no baseline the reader accepts. Files are written under a
+ * temporary name and replace the baseline when finished.
+ */
+public class BaselineWriter implements AutoCloseable {
+    private final DataOutputStream out;
+    private final CheckedOutputStream checked;
+    private final List<DataColumn> columns;
+    private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+    private final Path target;
+    private final Path temporary;
+    private long rowCount = 0;
+    private boolean finished = false;
+    private boolean closed = false;
+
+    public BaselineWriter(String path, List<DataColumn> columns) throws IOException {
+        this(new File(path).getAbsoluteFile(), columns);
+    }
+
+    private BaselineWriter(File file, List<DataColumn> columns) throws IOException {
+        this(createTemporary(file), file.toPath(), columns);
+    }
+
+    private BaselineWriter(File temporary, Path target, List<DataColumn> columns) throws IOException {
+        this(new FileOutputStream(temporary), temporary.toPath(), target, columns);
+    }
+
+    public BaselineWriter(OutputStream os, List<DataColumn> columns) throws IOException {
+        this(os, null, null, columns);
+    }
+
+    private BaselineWriter(OutputStream os, Path temporary, Path target,
+            List<DataColumn> columns) throws IOException {
+        this.columns = columns;
+        this.temporary = temporary;
+        this.target = target;
+        try {
+            os.write(MAGIC);
+            os.write(VERSION);
+            checked = new CheckedOutputStream(
+                    new BufferedOutputStream(new GZIPOutputStream(os, 65536), 65536), new CRC32());
+        } catch (IOException e) {
+            os.close();
+            discardTemporary();
+            throw e;
+        }
+        out = new DataOutputStream(checked);
+        try {
+            writeSchema();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private static File createTemporary(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        return File.createTempFile(file.getName() + ".", ".tmp", parent);
+    }
+
+    /**
+     * Writes all rows of the given table to a new baseline file.
+     */
+    public static void write(DataTable table, String path) throws IOException {
+        try (BaselineWriter writer = new BaselineWriter(path, table.getColumns())) {
+            for (DataRow row: table.getRows()) {
+                writer.writeRow(row);
+            }
+            writer.finish();
+        }
+    }
+
+    private void writeSchema() throws IOException {
+        out.writeInt(columns.size());
+        for (DataColumn column: columns) {
+            writeNullableString(column.getName());
+            writeNullableString(column.getJavaClassName());
+            writeNullableString(column.getDbTypeName());
+        }
+    }
+
+    public void writeRow(DataRow row) throws IOException {
+        out.writeByte(ROW);
+        for (DataColumn column: columns) {
+            writeValue(row.get(column.getName()));
+        }
+        ++rowCount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            writeDictionaryString((String) value);
+        } else if (value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte) {
+            out.writeByte(LONG);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            BigDecimal bd = (value instanceof BigDecimal)
+                ? (BigDecimal) value : new BigDecimal((BigInteger) value);
+            out.writeByte(DECIMAL);
+            writeBytes(bd.unscaledValue().toByteArray());
+            out.writeInt(bd.scale());
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Timestamp) {
+            out.writeByte(TIMESTAMP);
+            out.writeLong(((Timestamp) value).getTime());
+            out.writeInt(((Timestamp) value).getNanos());
+        } else if (value instanceof java.sql.Date) {
+            out.writeByte(DATE);
+            out.writeLong(((java.sql.Date) value).getTime());
+        } else if (value instanceof Time) {
+            out.writeByte(TIME);
+            out.writeLong(((Time) value).getTime());
+        } else {
+            writeDictionaryString(value.toString());
+        }
+    }
+
+    private void writeDictionaryString(String value) throws IOException {
+        Integer id = dictionary.get(value);
+        if (id != null) {
+            out.writeByte(STRING_REF);
+            out.writeInt(id);
+        } else if (value.length() <= MAX_DICTIONARY_STRING_LENGTH
+                && dictionary.size() < MAX_DICTIONARY_SIZE) {
+            dictionary.put(value, dictionary.size());
+            out.writeByte(STRING_NEW);
+            writeString(value);
+        } else {
+            out.writeByte(STRING);
+            writeString(value);
+        }
+    }
+
+    private void writeNullableString(String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeString(value);
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes the end marker and checksum after the last row and closes the
+     * file, which then replaces the baseline.
+     */
+    public void finish() throws IOException {
+        out.writeByte(END);
+        out.writeLong(rowCount);
+        out.writeLong(checked.getChecksum().getValue());
+        finished = true;
+        close();
+        if (target != null) {
+            try {
+                Files.move(temporary, target,
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * Closes the file. Unless finished, the rows written so far are
+     * discarded and an existing baseline is kept.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.close();
+        } finally {
+            if (!finished) {
+                discardTemporary();
+            }
+        }
+    }
+
+    private void discardTemporary() throws IOException {
+        if (temporary != null) {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
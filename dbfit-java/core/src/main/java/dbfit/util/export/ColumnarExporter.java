@@ -0,0 +1,207 @@
+package dbfit.util.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * Exports rows into a typed columnar binary file. Rows are collected into
+ * groups of up to ROW_GROUP_SIZE rows, which are written column by column.
+ *
+ * <pre>
+ * header:    magic "DBFITCOL", version (byte), column count (int),
+ *            per column: name (string), value type (byte), db type name (string)
+ * row group: row count (int), then per column: null bitmap of (rows + 7) / 8
+ *            bytes, length of values (int), values of the non-null rows
+ * footer:    row count 0 (int), total row count (long)
+ * </pre>
+ *
+ * Strings are written as length (int) and UTF-8 bytes. Values are encoded
+ * by type: LONG as long, DOUBLE as double, DECIMAL as scale (int) and
+ * unscaled value bytes, TIMESTAMP as epoch millis (long) and nanos (int),
+ * BOOLEAN as byte, BYTES as length and bytes, STRING as string.
+ */
+public class ColumnarExporter extends ResultSetExporter {
+    static final byte[] MAGIC = { 'D', 'B', 'F', 'I', 'T', 'C', 'O', 'L' };
+    static final byte VERSION = 1;
+    static final int ROW_GROUP_SIZE = 16384;
+
+    static final byte LONG = 1;
+    static final byte DOUBLE = 2;
+    static final byte DECIMAL = 3;
+    static final byte TIMESTAMP = 4;
+    static final byte BOOLEAN = 5;
+    static final byte BYTES = 6;
+    static final byte STRING = 7;
+
+    private byte[] types;
+    private ByteArrayOutputStream[] columnBytes;
+    private DataOutputStream[] columns;
+    private byte[][] nulls;
+    private int groupRows = 0;
+
+    public ColumnarExporter(String path) throws IOException {
+        super(path);
+    }
+
+    static byte getValueType(int sqlType) {
+        switch (sqlType) {
+        case Types.TINYINT:
+        case Types.SMALLINT:
+        case Types.INTEGER:
+        case Types.BIGINT:
+            return LONG;
+        case Types.REAL:
+        case Types.FLOAT:
+        case Types.DOUBLE:
+            return DOUBLE;
+        case Types.NUMERIC:
+        case Types.DECIMAL:
+            return DECIMAL;
+        case Types.DATE:
+        case Types.TIME:
+        case Types.TIMESTAMP:
+            return TIMESTAMP;
+        case Types.BIT:
+        case Types.BOOLEAN:
+            return BOOLEAN;
+        case Types.BINARY:
+        case Types.VARBINARY:
+        case Types.LONGVARBINARY:
+        case Types.BLOB:
+            return BYTES;
+        default:
+            return STRING;
+        }
+    }
+
+    @Override
+    protected void writeHeader(ResultSetMetaData md) throws SQLException, IOException {
+        int columnCount = md.getColumnCount();
+        types = new byte[columnCount];
+        columnBytes = new ByteArrayOutputStream[columnCount];
+        columns = new DataOutputStream[columnCount];
+        nulls = new byte[columnCount][(ROW_GROUP_SIZE + 7) / 8];
+
+        put(MAGIC);
+        reserve(5).put(VERSION).putInt(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            types[i] = getValueType(md.getColumnType(i + 1));
+            columnBytes[i] = new ByteArrayOutputStream();
+            columns[i] = new DataOutputStream(columnBytes[i]);
+
+            putString(md.getColumnLabel(i + 1));
+            reserve(1).put(types[i]);
+            putString(String.valueOf(md.getColumnTypeName(i + 1)));
+        }
+    }
+
+    @Override
+    protected void writeRow(ResultSet rs) throws SQLException, IOException {
+        for (int i = 0; i < types.length; i++) {
+            if (!writeValue(rs, i)) {
+                nulls[i][groupRows / 8] |= (byte) (1 << (groupRows % 8));
+            }
+        }
+
+        if (++groupRows == ROW_GROUP_SIZE) {
+            writeRowGroup();
+        }
+    }
+
+    /**
+     * Returns false if the value is null.
+     */
+    private boolean writeValue(ResultSet rs, int i) throws SQLException, IOException {
+        DataOutputStream out = columns[i];
+        int column = i + 1;
+        switch (types[i]) {
+        case LONG:
+            long l = rs.getLong(column);
+            if (rs.wasNull()) {
+                return false;
+            }
+            out.writeLong(l);
+            return true;
+        case DOUBLE:
+            double d = rs.getDouble(column);
+            if (rs.wasNull()) {
+                return false;
+            }
+            out.writeDouble(d);
+            return true;
+        case BOOLEAN:
+            boolean b = rs.getBoolean(column);
+            if (rs.wasNull()) {
+                return false;
+            }
+            out.writeByte(b ? 1 : 0);
+            return true;
+        case DECIMAL:
+            BigDecimal bd = rs.getBigDecimal(column);
+            if (bd == null) {
+                return false;
+            }
+            out.writeInt(bd.scale());
+            writeBytes(out, bd.unscaledValue().toByteArray());
+            return true;
+        case TIMESTAMP:
+            Timestamp ts = rs.getTimestamp(column);
+            if (ts == null) {
+                return false;
+            }
+            out.writeLong(ts.getTime());
+            out.writeInt(ts.getNanos());
+            return true;
+        case BYTES:
+            byte[] bytes = rs.getBytes(column);
+            if (bytes == null) {
+                return false;
+            }
+            writeBytes(out, bytes);
+            return true;
+        default:
+            String s = rs.getString(column);
+            if (s == null) {
+                return false;
+            }
+            writeBytes(out, s.getBytes(StandardCharsets.UTF_8));
+            return true;
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeRowGroup() throws IOException {
+        reserve(4).putInt(groupRows);
+        int bitmapLength = (groupRows + 7) / 8;
+        for (int i = 0; i < types.length; i++) {
+            put(Arrays.copyOf(nulls[i], bitmapLength));
+            reserve(4).putInt(columnBytes[i].size());
+            put(columnBytes[i].toByteArray());
+
+            Arrays.fill(nulls[i], (byte) 0);
+            columnBytes[i].reset();
+        }
+        groupRows = 0;
+    }
+
+    @Override
+    protected void writeFooter() throws IOException {
+        if (groupRows > 0) {
+            writeRowGroup();
+        }
+        reserve(12).putInt(0).putLong(getRowCount());
+    }
+}
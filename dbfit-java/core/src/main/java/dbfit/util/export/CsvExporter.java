@@ -0,0 +1,72 @@
+package dbfit.util.export;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Exports rows as RFC 4180 CSV with a header line of column names.
+ * Nulls are written as empty fields.
+ */
+public class CsvExporter extends ResultSetExporter {
+    private static final byte[] SEPARATOR = { ',' };
+    private static final byte[] LINE_END = { '\r', '\n' };
+
+    private int columnCount;
+
+    public CsvExporter(String path) throws IOException {
+        super(path);
+    }
+
+    @Override
+    protected void writeHeader(ResultSetMetaData md) throws SQLException, IOException {
+        columnCount = md.getColumnCount();
+        for (int i = 1; i <= columnCount; i++) {
+            writeField(i, md.getColumnLabel(i));
+        }
+        put(LINE_END);
+    }
+
+    @Override
+    protected void writeRow(ResultSet rs) throws SQLException, IOException {
+        for (int i = 1; i <= columnCount; i++) {
+            writeField(i, format(rs.getObject(i)));
+        }
+        put(LINE_END);
+    }
+
+    private void writeField(int column, String value) throws IOException {
+        if (column > 1) {
+            put(SEPARATOR);
+        }
+        if (value != null) {
+            put(quote(value).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String format(Object value) {
+        if (value == null) {
+            return null;
+        } else if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        } else if (value instanceof byte[]) {
+            StringBuilder sb = new StringBuilder();
+            for (byte b: (byte[]) value) {
+                sb.append(String.format("%02X", b));
+            }
+            return sb.toString();
+        }
+        return value.toString();
+    }
+
+    static String quote(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
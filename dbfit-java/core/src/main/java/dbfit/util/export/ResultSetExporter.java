@@ -0,0 +1,121 @@
+package dbfit.util.export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Streams the rows of a result set into a file. Rows are encoded into a
+ * large direct buffer which is written to a file channel whenever it is
+ * full, so memory use does not depend on the number of exported rows.
+ */
+public abstract class ResultSetExporter implements AutoCloseable {
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_COLUMNAR = "columnar";
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long bytesWritten = 0;
+    private long rowCount = 0;
+
+    protected ResultSetExporter(String path) throws IOException {
+        channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Creates an exporter for the given format; if format is null it is
+     * derived from the file name: csv for *.csv files, columnar otherwise.
+     */
+    public static ResultSetExporter create(String path, String format) throws IOException {
+        if (format == null) {
+            format = path.toLowerCase().endsWith(".csv") ? FORMAT_CSV : FORMAT_COLUMNAR;
+        }
+
+        if (FORMAT_CSV.equalsIgnoreCase(format.trim())) {
+            return new CsvExporter(path);
+        } else if (FORMAT_COLUMNAR.equalsIgnoreCase(format.trim())) {
+            return new ColumnarExporter(path);
+        }
+        throw new IllegalArgumentException("Unsupported export format " + format);
+    }
+
+    /**
+     * Writes all remaining rows of the result set and returns their number.
+     */
+    public long export(ResultSet rs) throws SQLException, IOException {
+        writeHeader(rs.getMetaData());
+        while (rs.next()) {
+            writeRow(rs);
+            ++rowCount;
+        }
+        writeFooter();
+        flush();
+        return rowCount;
+    }
+
+    protected abstract void writeHeader(ResultSetMetaData md) throws SQLException, IOException;
+
+    protected abstract void writeRow(ResultSet rs) throws SQLException, IOException;
+
+    protected void writeFooter() throws IOException {
+    }
+
+    protected long getRowCount() {
+        return rowCount;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the buffer with at least the given number of bytes free,
+     * which must not be more than the buffer size.
+     */
+    protected ByteBuffer reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+        return buffer;
+    }
+
+    protected void put(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    protected void putString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        reserve(4).putInt(bytes.length);
+        put(bytes);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
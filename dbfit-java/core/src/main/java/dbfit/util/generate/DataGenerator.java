@@ -0,0 +1,73 @@
+package dbfit.util.generate;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Generates rows from the value generators of the columns. Rows are
+ * generated in blocks of {@link #ROWS_PER_BLOCK}, and each block draws from
+ * its own random numbers derived from the seed, so blocks can be generated
+ * in any order, eg in parallel, and the same seed always generates the
+ * same rows.
+ */
+public class DataGenerator {
+    public static final int ROWS_PER_BLOCK = 10000;
+
+    private final ValueGenerator[] generators;
+    private final long seed;
+
+    public DataGenerator(ValueGenerator[] generators, long seed) {
+        this.generators = generators;
+        this.seed = seed;
+    }
+
+    /**
+     * Mixes the bits of the seed and the block number (the finalizer of
+     * SplitMix64), so that neighbouring blocks draw unrelated numbers.
+     */
+    static long blockSeed(long seed, long block) {
+        long z = seed + (block + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Generates the rows from first, which must start a block, up to but
+     * not including end.
+     */
+    public Iterator<Object[]> rows(final long first, final long end) {
+        if (first % ROWS_PER_BLOCK != 0) {
+            throw new IllegalArgumentException("Row " + first + " does not start a block");
+        }
+
+        return new Iterator<Object[]>() {
+            private long row = first;
+            private Random random;
+
+            public boolean hasNext() {
+                return row < end;
+            }
+
+            public Object[] next() {
+                if (row >= end) {
+                    throw new NoSuchElementException();
+                }
+                if (row % ROWS_PER_BLOCK == 0) {
+                    random = new Random(blockSeed(seed, row / ROWS_PER_BLOCK));
+                }
+                Object[] values = new Object[generators.length];
+                for (int i = 0; i < generators.length; i++) {
+                    values[i] = generators[i].next(row, random);
+                }
+                row++;
+                return values;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException("Rows cannot be removed");
+            }
+        };
+    }
+}
@@ -0,0 +1,15 @@
+package dbfit.util.generate;
+
+import java.util.Random;
+
+/**
+ * Generates the values of one column. Values may only depend on the row
+ * number and the random numbers drawn, so that the same seed generates the
+ * same rows.
+ */
+public interface ValueGenerator {
+    /**
+     * Generates the value of the zero-based row.
+     */
+    Object next(long row, Random random);
+}
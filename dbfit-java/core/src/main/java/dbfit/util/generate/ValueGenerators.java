@@ -0,0 +1,388 @@
+package dbfit.util.generate;
+
+import dbfit.api.DBEnvironment;
+import dbfit.util.DbParameterAccessor;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Creates the value generators of columns from specifications such as:
+ * <ul>
+ * <li>sequence [start[, step]] - numbers counting up from start, 1 by default</li>
+ * <li>range min, max - uniformly distributed numbers, dates or timestamps;
+ *     decimals have the scale of the bounds</li>
+ * <li>normal mean, deviation - normally distributed numbers</li>
+ * <li>values a, b, c - one of the values</li>
+ * <li>pattern ORD-#### - text with # replaced by digits, ? by letters and
+ *     * by letters or digits; \ escapes the next character</li>
+ * <li>reference table.column - one of the values of a column of another
+ *     table, eg for foreign keys</li>
+ * <li>constant value, null - the same value in all rows</li>
+ * <li>skip - the column is not inserted</li>
+ * </ul>
+ * Columns without specification get a generator by type.
+ */
+public class ValueGenerators {
+    private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String ALPHANUMERICS = LETTERS + "0123456789";
+
+    private ValueGenerators() {
+    }
+
+    /**
+     * Returns the generator of the specification converting values to the
+     * type of the column, or null if the column is skipped.
+     */
+    public static ValueGenerator forColumn(DbParameterAccessor column, String spec,
+            DBEnvironment environment) throws SQLException {
+        ValueGenerator generator = (spec == null || spec.trim().length() == 0)
+            ? forType(column.getJavaType()) : parse(spec.trim(), environment);
+        return (generator == null) ? null : new Converting(generator, column.getJavaType());
+    }
+
+    static ValueGenerator forType(Class<?> type) {
+        if (type == Integer.class || type == Long.class || type == Short.class
+                || type == Byte.class || type == BigInteger.class) {
+            return new Sequence(BigDecimal.ONE, BigDecimal.ONE);
+        }
+        if (type == BigDecimal.class || type == Double.class || type == Float.class) {
+            return range("0.00", "1000.00");
+        }
+        if (type == String.class) {
+            return new Pattern("????????");
+        }
+        if (type == java.sql.Date.class) {
+            return range("2000-01-01", "2030-12-31");
+        }
+        if (type == Timestamp.class) {
+            return range("2000-01-01 00:00:00", "2030-12-31 23:59:59");
+        }
+        if (type == Boolean.class) {
+            return new ValueGenerator() {
+                public Object next(long row, Random random) {
+                    return random.nextBoolean();
+                }
+            };
+        }
+        return null;
+    }
+
+    static ValueGenerator parse(String spec, DBEnvironment environment) throws SQLException {
+        int space = spec.indexOf(' ');
+        String kind = ((space < 0) ? spec : spec.substring(0, space)).toLowerCase();
+        String arguments = (space < 0) ? "" : spec.substring(space + 1).trim();
+        String[] args = arguments.length() == 0 ? new String[0] : arguments.split("\\s*,\\s*");
+
+        if ("skip".equals(kind)) {
+            return null;
+        }
+        if ("null".equals(kind)) {
+            return constant(null);
+        }
+        if ("constant".equals(kind)) {
+            return constant(arguments);
+        }
+        if ("pattern".equals(kind)) {
+            return new Pattern(arguments);
+        }
+        if ("values".equals(kind) && args.length > 0) {
+            return new Choice(args);
+        }
+        if ("sequence".equals(kind) && args.length <= 2) {
+            return new Sequence(args.length > 0 ? new BigDecimal(args[0]) : BigDecimal.ONE,
+                    args.length > 1 ? new BigDecimal(args[1]) : BigDecimal.ONE);
+        }
+        if ("range".equals(kind) && args.length == 2) {
+            return range(args[0], args[1]);
+        }
+        if ("normal".equals(kind) && args.length == 2) {
+            return new Normal(new BigDecimal(args[0]), new BigDecimal(args[1]));
+        }
+        if ("reference".equals(kind) && arguments.lastIndexOf('.') > 0) {
+            int dot = arguments.lastIndexOf('.');
+            return new Choice(loadValues(environment,
+                        arguments.substring(0, dot), arguments.substring(dot + 1)));
+        }
+        throw new IllegalArgumentException("Unknown generator: " + spec);
+    }
+
+    private static ValueGenerator constant(final Object value) {
+        return new ValueGenerator() {
+            public Object next(long row, Random random) {
+                return value;
+            }
+        };
+    }
+
+    /**
+     * Reads the distinct values of a column in order, so that the same seed
+     * picks the same values on every database.
+     */
+    private static Object[] loadValues(DBEnvironment environment, String table, String column)
+            throws SQLException {
+        List<Object> values = new ArrayList<Object>();
+        try (PreparedStatement st = environment.getConnection().prepareStatement(
+                    "select distinct " + column + " from " + table + " where " + column
+                    + " is not null order by " + column);
+                ResultSet rs = st.executeQuery()) {
+            while (rs.next()) {
+                values.add(rs.getObject(1));
+            }
+        }
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("No values to reference in " + table + "." + column);
+        }
+        return values.toArray();
+    }
+
+    private static ValueGenerator range(String min, String max) {
+        if (isNumber(min) && isNumber(max)) {
+            BigDecimal low = new BigDecimal(min);
+            BigDecimal high = new BigDecimal(max);
+            int scale = Math.max(Math.max(low.scale(), high.scale()), 0);
+            return new NumberRange(low.setScale(scale), high.setScale(scale));
+        }
+        if (min.indexOf(':') < 0 && max.indexOf(':') < 0) {
+            return new DateRange(java.sql.Date.valueOf(min), java.sql.Date.valueOf(max));
+        }
+        return new TimestampRange(Timestamp.valueOf(min), Timestamp.valueOf(max));
+    }
+
+    private static boolean isNumber(String text) {
+        try {
+            new BigDecimal(text);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * A uniformly distributed number between 0 and bound - 1.
+     */
+    private static long nextLong(Random random, long bound) {
+        return (long) Math.min(Math.floor(random.nextDouble() * bound), bound - 1);
+    }
+
+    private static class Sequence implements ValueGenerator {
+        private final BigDecimal start;
+        private final BigDecimal step;
+
+        Sequence(BigDecimal start, BigDecimal step) {
+            this.start = start;
+            this.step = step;
+        }
+
+        public Object next(long row, Random random) {
+            return start.add(step.multiply(BigDecimal.valueOf(row)));
+        }
+    }
+
+    private static class NumberRange implements ValueGenerator {
+        private final long low;
+        private final long count;
+        private final int scale;
+
+        NumberRange(BigDecimal low, BigDecimal high) {
+            if (low.compareTo(high) > 0) {
+                throw new IllegalArgumentException("Empty range " + low + ", " + high);
+            }
+            this.scale = low.scale();
+            this.low = low.unscaledValue().longValue();
+            this.count = high.unscaledValue().longValue() - this.low + 1;
+        }
+
+        public Object next(long row, Random random) {
+            return BigDecimal.valueOf(low + nextLong(random, count), scale);
+        }
+    }
+
+    private static class DateRange implements ValueGenerator {
+        private final java.sql.Date low;
+        private final int days;
+
+        DateRange(java.sql.Date low, java.sql.Date high) {
+            this.low = low;
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTime(low);
+            int count = 0;
+            while (!calendar.getTime().after(high)) {
+                calendar.add(Calendar.DAY_OF_MONTH, 1);
+                count++;
+            }
+            if (count == 0) {
+                throw new IllegalArgumentException("Empty range " + low + ", " + high);
+            }
+            this.days = count;
+        }
+
+        /**
+         * Adds days with the calendar, so that the dates stay at midnight in
+         * time zones with daylight saving time.
+         */
+        public Object next(long row, Random random) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.setTime(low);
+            calendar.add(Calendar.DAY_OF_MONTH, random.nextInt(days));
+            return new java.sql.Date(calendar.getTimeInMillis());
+        }
+    }
+
+    private static class TimestampRange implements ValueGenerator {
+        private final long low;
+        private final long seconds;
+
+        TimestampRange(Timestamp low, Timestamp high) {
+            if (low.after(high)) {
+                throw new IllegalArgumentException("Empty range " + low + ", " + high);
+            }
+            this.low = low.getTime();
+            this.seconds = (high.getTime() - this.low) / 1000 + 1;
+        }
+
+        public Object next(long row, Random random) {
+            return new Timestamp(low + nextLong(random, seconds) * 1000);
+        }
+    }
+
+    private static class Normal implements ValueGenerator {
+        private final double mean;
+        private final double deviation;
+        private final int scale;
+
+        Normal(BigDecimal mean, BigDecimal deviation) {
+            this.mean = mean.doubleValue();
+            this.deviation = deviation.doubleValue();
+            this.scale = Math.max(Math.max(mean.scale(), deviation.scale()), 0);
+        }
+
+        public Object next(long row, Random random) {
+            return BigDecimal.valueOf(mean + deviation * random.nextGaussian())
+                .setScale(scale, RoundingMode.HALF_UP);
+        }
+    }
+
+    private static class Choice implements ValueGenerator {
+        private final Object[] values;
+
+        Choice(Object[] values) {
+            this.values = values;
+        }
+
+        public Object next(long row, Random random) {
+            return values[random.nextInt(values.length)];
+        }
+    }
+
+    private static class Pattern implements ValueGenerator {
+        private final String pattern;
+
+        Pattern(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public Object next(long row, Random random) {
+            StringBuilder sb = new StringBuilder(pattern.length());
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '#') {
+                    sb.append((char) ('0' + random.nextInt(10)));
+                } else if (c == '?') {
+                    sb.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+                } else if (c == '*') {
+                    sb.append(ALPHANUMERICS.charAt(random.nextInt(ALPHANUMERICS.length())));
+                } else if (c == '\\' && i + 1 < pattern.length()) {
+                    sb.append(pattern.charAt(++i));
+                } else {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Converts the generated values to the Java type of the column.
+     */
+    private static class Converting implements ValueGenerator {
+        private final ValueGenerator generator;
+        private final Class<?> type;
+
+        Converting(ValueGenerator generator, Class<?> type) {
+            this.generator = generator;
+            this.type = type;
+        }
+
+        public Object next(long row, Random random) {
+            return convert(generator.next(row, random), type);
+        }
+    }
+
+    static Object convert(Object value, Class<?> type) {
+        if (value == null || type.isInstance(value)) {
+            return value;
+        }
+        if (value instanceof String) {
+            String text = (String) value;
+            if (Number.class.isAssignableFrom(type)) {
+                value = new BigDecimal(text);
+            } else if (type == java.sql.Date.class) {
+                return java.sql.Date.valueOf(text);
+            } else if (type == Timestamp.class) {
+                return Timestamp.valueOf(text);
+            } else if (type == Time.class) {
+                return Time.valueOf(text);
+            } else if (type == Boolean.class) {
+                return Boolean.valueOf(text);
+            }
+        }
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            if (type == Integer.class) {
+                return number.intValue();
+            } else if (type == Long.class) {
+                return number.longValue();
+            } else if (type == Short.class) {
+                return number.shortValue();
+            } else if (type == Byte.class) {
+                return number.byteValue();
+            } else if (type == Double.class) {
+                return number.doubleValue();
+            } else if (type == Float.class) {
+                return number.floatValue();
+            } else if (type == BigDecimal.class) {
+                return new BigDecimal(number.toString());
+            } else if (type == BigInteger.class) {
+                return new BigDecimal(number.toString()).toBigInteger();
+            } else if (type == Boolean.class) {
+                return number.intValue() != 0;
+            } else if (type == String.class) {
+                return (number instanceof BigDecimal) ? ((BigDecimal) number).toPlainString() : number.toString();
+            }
+        }
+        if (value instanceof java.util.Date) {
+            long time = ((java.util.Date) value).getTime();
+            if (type == java.sql.Date.class) {
+                return new java.sql.Date(time);
+            } else if (type == Timestamp.class) {
+                return new Timestamp(time);
+            }
+        }
+        if (type == String.class) {
+            return value.toString();
+        }
+        throw new IllegalArgumentException("Cannot generate " + type.getSimpleName()
+                + " values from " + value.getClass().getSimpleName());
+    }
+}
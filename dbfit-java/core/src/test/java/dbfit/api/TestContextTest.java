@@ -0,0 +1,121 @@
+package dbfit.api;
+
+import dbfit.util.Options;
+import dbfit.util.SymbolUtil;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestContextTest {
+
+    @Mock private DBEnvironment environment;
+
+    @After
+    public void resetGlobalContext() {
+        Options.reset();
+        SymbolUtil.clearSymbols();
+        DbEnvironmentFactory.setDefaultEnvironment(null);
+    }
+
+    @Test
+    public void newContextShouldStartWithDefaultOptionsAndNoSymbols() {
+        Options.setOption(Options.OPTION_BATCH_SIZE, "7");
+        SymbolUtil.setSymbol("s", "global");
+        DbEnvironmentFactory.setDefaultEnvironment(environment);
+
+        try (TestContext context = TestContext.begin()) {
+            assertThat(Options.getBatchSize(), is(100));
+            assertThat(SymbolUtil.getSymbol("s"), is(nullValue()));
+            assertThat(DbEnvironmentFactory.getDefaultEnvironment(), is(nullValue()));
+
+            Options.setOption(Options.OPTION_BATCH_SIZE, "1");
+            SymbolUtil.setSymbol("s", "local");
+        }
+
+        assertThat(Options.getBatchSize(), is(7));
+        assertThat(SymbolUtil.getSymbol("s"), is((Object) "global"));
+        assertThat(DbEnvironmentFactory.getDefaultEnvironment(), is(sameInstance(environment)));
+    }
+
+    @Test
+    public void globalContextShouldKeepSymbolsInFitSymbolTable() {
+        SymbolUtil.setSymbol(">>s", "value");
+
+        assertThat(fit.Fixture.getSymbol("s"), is((Object) "value"));
+    }
+
+    @Test
+    public void threadsShouldInheritContextOfCreatingThread() throws Exception {
+        try (TestContext context = TestContext.begin()) {
+            SymbolUtil.setSymbol("s", "local");
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<Object> symbol = executor.submit(new Callable<Object>() {
+                    public Object call() {
+                        return SymbolUtil.getSymbol("s");
+                    }
+                });
+                assertThat(symbol.get(), is((Object) "local"));
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void contextsOnDifferentThreadsShouldBeIndependent() throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(runTest(barrier, "first"));
+            Future<String> second = executor.submit(runTest(barrier, "second"));
+
+            assertThat(first.get(), is("first/first"));
+            assertThat(second.get(), is("second/second"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Callable<String> runTest(final CyclicBarrier barrier, final String name) {
+        return new Callable<String>() {
+            public String call() throws Exception {
+                try (TestContext context = TestContext.begin()) {
+                    SymbolUtil.setSymbol("name", name);
+                    Options.setOption(Options.OPTION_DEBUG_LOG, name);
+                    barrier.await();
+                    return SymbolUtil.getSymbol("name") + "/" + Options.get(Options.OPTION_DEBUG_LOG);
+                }
+            }
+        };
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void closingContextOfAnotherThreadShouldFail() throws Exception {
+        final TestContext[] context = new TestContext[1];
+        Thread thread = new Thread() {
+            public void run() {
+                context[0] = TestContext.begin();
+            }
+        };
+        thread.start();
+        thread.join();
+
+        context[0].close();
+    }
+}
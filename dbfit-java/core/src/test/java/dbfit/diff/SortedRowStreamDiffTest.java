@@ -0,0 +1,121 @@
+package dbfit.diff;
+
+import static dbfit.util.DiffTestUtils.*;
+
+import dbfit.util.DataRow;
+import dbfit.util.MatchResult;
+import dbfit.util.DiffListenerAdapter;
+import dbfit.util.DiffHandler;
+import dbfit.util.RowStructure;
+import dbfit.util.MatchStatus;
+import static dbfit.util.MatchStatus.*;
+
+import org.junit.Test;
+import org.junit.Before;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.Mock;
+import org.mockito.Captor;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import static java.util.Arrays.asList;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SortedRowStreamDiffTest {
+
+    private RowStructure rowStructure = new RowStructure(
+            new String[] { "n", "2n" }, /* names */
+            new boolean[] { true, false } /* keys */
+        );
+
+    @Mock private DiffHandler handler;
+    @Mock DataRowDiff childDiff;
+    @Captor ArgumentCaptor<MatchResult<DataRow, DataRow>> rowResultCaptor;
+    @Captor ArgumentCaptor<DataRow> arg1Captor;
+    @Captor ArgumentCaptor<DataRow> arg2Captor;
+
+    private SortedRowStreamDiff diff;
+
+    DataRow r1 = createRow(1, 2);
+    DataRow r2 = createRow(2, 4);
+    DataRow r3 = createRow(3, 6);
+    DataRow r4 = createRow(4, 8);
+    DataRow b2 = createRow(2, 44);
+
+    @Before
+    public void prepare() {
+        diff = new SortedRowStreamDiff(rowStructure);
+        diff.addListener(new DiffListenerAdapter(handler));
+    }
+
+    @Test
+    public void shouldPairRowsByKeyWhileMerging() {
+        diff = new SortedRowStreamDiff(rowStructure, childDiff);
+
+        diff.diff(stream(r1, r2, r3), stream(r1, b2, r4));
+
+        verify(childDiff, times(4)).diff(
+                arg1Captor.capture(), arg2Captor.capture());
+
+        assertThat(arg1Captor.getAllValues(), contains(r1, r2, r3, null));
+        assertThat(arg2Captor.getAllValues(), contains(r1, b2, null, r4));
+    }
+
+    @Test
+    public void testMismatchWithRightWrongMissingAndSurplus() {
+        diff.diff(stream(r1, r2, r3), stream(r1, b2, r4));
+        verifyRowStatuses(SUCCESS, WRONG, MISSING, SURPLUS);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailOnRowsNotSortedByKey() {
+        diff.diff(stream(r1, r3, r2), stream(r1, r2, r3));
+    }
+
+    @Test
+    public void shouldReportRemainderOfLongerStream() {
+        diff.diff(stream(r1), stream(r1, r2, r3));
+        verifyRowStatuses(SUCCESS, SURPLUS, SURPLUS);
+    }
+
+    @Test
+    public void shouldHandleEmptyStreams() {
+        diff.diff(stream(), stream());
+        verify(handler, never()).endRow(rowResultCaptor.capture());
+    }
+
+    @Test
+    public void nullsShouldSortLast() {
+        assertThat(SortedRowStreamDiff.compareValues(null, 1), greaterThan(0));
+        assertThat(SortedRowStreamDiff.compareValues(1, null), lessThan(0));
+        assertThat(SortedRowStreamDiff.compareValues(null, null), is(0));
+    }
+
+    @Test
+    public void shouldCompareComparableValuesNaturally() {
+        assertThat(SortedRowStreamDiff.compareValues(
+                    new BigDecimal("9"), new BigDecimal("10.0")), lessThan(0));
+    }
+
+    private void verifyRowStatuses(MatchStatus... expectedStatuses) {
+        verify(handler, times(expectedStatuses.length)).endRow(
+                rowResultCaptor.capture());
+
+        assertThat(statusesOf(rowResultCaptor.getAllValues()),
+                equalTo(asList(expectedStatuses)));
+    }
+
+    private DataRow createRow(Integer... items) {
+        return createDataRowBuilder(rowStructure).createRow(items);
+    }
+
+    private Iterator<DataRow> stream(DataRow... rows) {
+        return asList(rows).iterator();
+    }
+}
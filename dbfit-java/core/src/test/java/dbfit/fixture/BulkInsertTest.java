@@ -0,0 +1,172 @@
+package dbfit.fixture;
+
+import dbfit.api.BulkLoader;
+import dbfit.api.DBEnvironment;
+import dbfit.api.ReturningBulkLoader;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.Options;
+import dbfit.util.TypeTransformerFactory;
+
+import fit.Parse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import static org.mockito.Mockito.*;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkInsertTest {
+
+    @Mock private DBEnvironment environment;
+    @Mock private PreparedStatement statement;
+    @Mock private BulkLoader loader;
+    @Mock private ReturningBulkLoader returningLoader;
+
+    @Before
+    public void prepare() throws Exception {
+        Map<String, DbParameterAccessor> columns = new HashMap<String, DbParameterAccessor>();
+        columns.put("id", new DbParameterAccessor("id", Direction.INPUT,
+                    Types.INTEGER, Integer.class, 0, new TypeTransformerFactory()));
+        columns.put("name", new DbParameterAccessor("name", Direction.INPUT,
+                    Types.VARCHAR, String.class, 1, new TypeTransformerFactory()));
+        when(environment.getAllColumns("t")).thenReturn(columns);
+        when(environment.buildInsertPreparedStatement(eq("t"), any(DbParameterAccessor[].class)))
+            .thenReturn(statement);
+        when(environment.createStatementExecution(statement))
+            .thenReturn(new StatementExecution(statement));
+    }
+
+    @After
+    public void resetOptions() {
+        Options.reset();
+    }
+
+    private Parse runBulkInsert(int rows) throws Exception {
+        StringBuilder html = new StringBuilder(
+                "<table><tr><td>Bulk Insert</td><td>t</td></tr><tr><td>id</td><td>name</td></tr>");
+        for (int i = 1; i <= rows; i++) {
+            html.append("<tr><td>").append(i).append("</td><td>n").append(i).append("</td></tr>");
+        }
+        Parse table = new Parse(html.append("</table>").toString());
+        new BulkInsert(environment, "t").doTable(table);
+        return table;
+    }
+
+    @Test
+    public void shouldFallBackToBatchedInsertsWithoutBulkLoader() throws Exception {
+        Options.setOption(Options.OPTION_BATCH_SIZE, "2");
+
+        Parse table = runBulkInsert(3);
+
+        verify(statement).setObject(1, 1);
+        verify(statement).setObject(2, "n3");
+        verify(statement, times(3)).addBatch();
+        verify(statement, times(2)).executeBatch();
+        assertThat(table.parts.last().parts.text(), is("rows: 3"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldPassParsedRowsToBulkLoader() throws Exception {
+        final List<Object> ids = new ArrayList<Object>();
+        when(environment.getBulkLoader()).thenReturn(loader);
+        when(loader.canLoad(eq("t"), any(DbParameterAccessor[].class))).thenReturn(true);
+        when(loader.load(eq("t"), any(DbParameterAccessor[].class), any(Iterator.class)))
+            .thenAnswer(new Answer<Long>() {
+                @Override
+                public Long answer(InvocationOnMock invocation) {
+                    Iterator<Object[]> rows = (Iterator<Object[]>) invocation.getArguments()[2];
+                    while (rows.hasNext()) {
+                        ids.add(rows.next()[0]);
+                    }
+                    return (long) ids.size();
+                }
+            });
+
+        runBulkInsert(2);
+
+        assertThat(ids, contains((Object) 1, 2));
+        verify(statement, never()).addBatch();
+    }
+
+    private void stubOutputColumn() {
+        when(environment.createAutogeneratedPrimaryKeyAccessor(any(DbParameterAccessor.class)))
+            .thenReturn(new DbParameterAccessor("id", Direction.OUTPUT,
+                    Types.INTEGER, Integer.class, 0, new TypeTransformerFactory()));
+    }
+
+    private Parse runBulkInsertWithOutputs() throws Exception {
+        stubOutputColumn();
+        Parse table = new Parse("<table><tr><td>Bulk Insert</td><td>t</td></tr>"
+                + "<tr><td>id?</td><td>name</td></tr>"
+                + "<tr><td>1</td><td>n1</td></tr><tr><td>3</td><td>n2</td></tr></table>");
+        new BulkInsert(environment, "t").doTable(table);
+        return table;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldCheckValuesReturnedByBulkLoader() throws Exception {
+        when(environment.getBulkLoader()).thenReturn(returningLoader);
+        when(returningLoader.canLoad(eq("t"), any(DbParameterAccessor[].class))).thenReturn(true);
+        when(returningLoader.loadReturning(eq("t"), any(DbParameterAccessor[].class), any(Iterator.class)))
+            .thenAnswer(new Answer<List<Object[]>>() {
+                @Override
+                public List<Object[]> answer(InvocationOnMock invocation) {
+                    Iterator<Object[]> rows = (Iterator<Object[]>) invocation.getArguments()[2];
+                    List<Object[]> outputs = new ArrayList<Object[]>();
+                    while (rows.hasNext()) {
+                        Object[] row = rows.next();
+                        outputs.add(new Object[] { outputs.size() + 1, row[1] });
+                    }
+                    return outputs;
+                }
+            });
+
+        Parse table = runBulkInsertWithOutputs();
+
+        Parse firstRow = table.parts.more.more;
+        assertThat(firstRow.parts.tag, containsString("pass"));
+        assertThat(firstRow.more.parts.tag, containsString("fail"));
+        assertThat(table.parts.last().parts.text(), is("rows: 2"));
+    }
+
+    @Test
+    public void shouldRejectOutputColumnsWithoutReturningBulkLoader() throws Exception {
+        when(environment.getBulkLoader()).thenReturn(loader);
+
+        Parse table = runBulkInsertWithOutputs();
+
+        assertThat(table.parts.more.parts.tag, containsString("error"));
+        assertThat(table.parts.more.parts.body, containsString("cannot return output columns"));
+    }
+
+    @Test
+    public void shouldRejectOutputColumns() throws Exception {
+        Parse table = new Parse(
+                "<table><tr><td>Bulk Insert</td><td>t</td></tr><tr><td>id?</td></tr><tr><td>1</td></tr></table>");
+
+        new BulkInsert(environment, "t").doTable(table);
+
+        assertThat(table.parts.more.parts.tag, containsString("error"));
+    }
+}
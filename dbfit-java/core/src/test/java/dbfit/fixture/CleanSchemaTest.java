@@ -0,0 +1,149 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.util.Options;
+
+import fit.Parse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CleanSchemaTest {
+
+    @Mock private DBEnvironment environment;
+    @Mock private Connection connection;
+    @Mock private Statement statement;
+    @Mock private ResultSet count;
+
+    private final Map<String, Set<String>> dependencies = new TreeMap<String, Set<String>>();
+
+    private void table(String name, String... referenced) {
+        dependencies.put(name, new TreeSet<String>(Arrays.asList(referenced)));
+    }
+
+    @Before
+    public void prepare() {
+        Options.setOption(Options.OPTION_CLEAN_THREADS, "1");
+        table("customers");
+        table("orders", "customers");
+        table("lines", "orders", "products");
+        table("products");
+        table("log");
+    }
+
+    @After
+    public void resetOptions() {
+        Options.reset();
+    }
+
+    private Parse runCleanSchema() throws Exception {
+        return runCleanSchema(null);
+    }
+
+    private Parse runCleanSchema(String mode) throws Exception {
+        when(environment.getTableDependencies("dbo", "%")).thenReturn(dependencies);
+        when(environment.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        Parse table = new Parse("<table><tr><td>Clean Schema</td><td>dbo</td></tr></table>");
+        new CleanSchema(environment, "dbo", null, mode).doTable(table);
+        return table;
+    }
+
+    @Test
+    public void shouldDeleteTablesAfterTablesReferencingThem() {
+        List<List<String>> levels = CleanSchema.orderForDeletion(dependencies);
+
+        assertThat(levels.size(), is(3));
+        assertThat(levels.get(0), contains("lines", "log"));
+        assertThat(levels.get(1), contains("orders", "products"));
+        assertThat(levels.get(2), contains("customers"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectCircularForeignKeys() {
+        table("customers", "lines");
+
+        CleanSchema.orderForDeletion(dependencies);
+    }
+
+    @Test
+    public void shouldDeleteInDependencyOrderAndReportRows() throws Exception {
+        when(statement.executeUpdate(anyString())).thenReturn(2);
+
+        Parse table = runCleanSchema();
+
+        InOrder inOrder = inOrder(statement);
+        inOrder.verify(statement).executeUpdate("delete from lines");
+        inOrder.verify(statement).executeUpdate("delete from orders");
+        inOrder.verify(statement).executeUpdate("delete from customers");
+        assertThat(table.parts.more.parts.text(), is("lines"));
+        assertThat(table.parts.more.parts.more.text(), is("2 rows deleted"));
+        assertThat(table.parts.last().parts.text(), is("tables: 5"));
+        assertThat(table.parts.last().parts.more.text(), is("rows: 10"));
+    }
+
+    @Test
+    public void shouldTruncateTablesWhichAreNotReferenced() throws Exception {
+        when(environment.buildTruncateCommand(anyString())).thenReturn("truncate");
+        when(statement.executeQuery(anyString())).thenReturn(count);
+        when(count.next()).thenReturn(true);
+        when(count.getInt(1)).thenReturn(3);
+
+        Parse table = runCleanSchema("truncate");
+
+        verify(statement, times(2)).execute("truncate");
+        verify(statement).executeUpdate("delete from orders");
+        verify(statement).executeUpdate("delete from products");
+        verify(statement).executeUpdate("delete from customers");
+        assertThat(table.parts.more.parts.more.text(), is("3 rows deleted"));
+    }
+
+    @Test
+    public void shouldSkipReferencedTablesAfterFailure() throws Exception {
+        when(statement.executeUpdate(anyString())).thenReturn(1);
+        when(statement.executeUpdate("delete from lines")).thenThrow(new SQLException("locked"));
+
+        Parse table = runCleanSchema();
+
+        verify(statement, never()).executeUpdate("delete from customers");
+        assertThat(table.parts.more.parts.more.body, containsString("locked"));
+        assertThat(table.parts.last().parts.text(), is("tables: 5"));
+    }
+
+    @Test
+    public void shouldDisableConstraintsWhileDeleting() throws Exception {
+        Options.setOption(Options.OPTION_DISABLE_CONSTRAINTS, "true");
+        when(environment.buildDisableConstraintsCommand(anyString())).thenReturn("disable");
+        when(environment.buildEnableConstraintsCommand(anyString())).thenReturn("enable");
+
+        runCleanSchema();
+
+        InOrder inOrder = inOrder(statement);
+        inOrder.verify(statement, times(5)).executeUpdate("disable");
+        inOrder.verify(statement).executeUpdate("delete from customers");
+        inOrder.verify(statement, times(5)).executeUpdate("enable");
+    }
+}
@@ -0,0 +1,116 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.api.TestHost;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.TypeTransformerFactory;
+
+import fit.Parse;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CleanTest {
+
+    @Mock private DBEnvironment environment;
+    @Mock private PreparedStatement statement;
+    @Mock private Connection connection;
+    @Mock private Array array;
+
+    private void stubKeyDelete(int rowsPerStatement) throws Exception {
+        Map<String, DbParameterAccessor> columns = new HashMap<String, DbParameterAccessor>();
+        columns.put("id", new DbParameterAccessor("id", Direction.INPUT,
+                    Types.INTEGER, Integer.class, 0, new TypeTransformerFactory()));
+        when(environment.getAllColumns("t")).thenReturn(columns);
+        when(environment.extractParamNames(anyString())).thenReturn(new String[0]);
+        when(environment.createStatementWithBoundFixtureSymbols(any(TestHost.class), anyString()))
+            .thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(rowsPerStatement);
+    }
+
+    private static String keys(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            sb.append(i > 1 ? "," : "").append(i);
+        }
+        return sb.toString();
+    }
+
+    private Parse runClean(String header, String row) throws Exception {
+        Parse table = new Parse("<table><tr><td>Clean</td></tr><tr>" + header + "</tr><tr>" + row + "</tr></table>");
+        new Clean(environment).doTable(table);
+        return table;
+    }
+
+    @Test
+    public void shouldDeleteKeysInChunksWithOneStatement() throws Exception {
+        stubKeyDelete(100);
+
+        Parse table = runClean("<td>table</td><td>column name</td><td>keys</td><td>delete rows for keys?</td>",
+                "<td>t</td><td>id</td><td>" + keys(250) + "</td><td>true</td>");
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(environment, times(1)).createStatementWithBoundFixtureSymbols(any(TestHost.class), sql.capture());
+        assertThat(sql.getValue(), containsString("delete from t where id in (?, ?"));
+        verify(statement, times(3)).executeUpdate();
+        verify(statement).setObject(1, "201", Types.INTEGER);
+        // the last chunk is padded with its last key
+        verify(statement, times(51)).setObject(anyInt(), eq("250"), eq(Types.INTEGER));
+        assertThat(table.parts.more.more.parts.text(), containsString("(300 rows deleted)"));
+    }
+
+    @Test
+    public void shouldDeleteManyKeysWithArrayParameterIfSupported() throws Exception {
+        stubKeyDelete(250);
+        when(environment.buildArrayInclusionPredicate(any(DbParameterAccessor.class)))
+            .thenReturn("id = any(?)");
+        when(environment.getConnection()).thenReturn(connection);
+        when(connection.createArrayOf(eq("varchar"), any(Object[].class))).thenReturn(array);
+
+        runClean("<td>table</td><td>column name</td><td>keys</td><td>delete rows for keys?</td>",
+                "<td>t</td><td>id</td><td>" + keys(250) + "</td><td>true</td>");
+
+        verify(environment).createStatementWithBoundFixtureSymbols(
+                any(TestHost.class), eq("delete from t where id = any(?)"));
+        verify(statement).setArray(1, array);
+        verify(statement, times(1)).executeUpdate();
+    }
+
+    @Test
+    public void shouldNotTruncateWithWhereClause() throws Exception {
+        Parse table = runClean("<td>table</td><td>where</td><td>truncate?</td>",
+                "<td>t</td><td>id > 1</td><td>true</td>");
+
+        assertThat(table.parts.more.more.parts.more.more.body, containsString("use clean instead"));
+        verify(environment, never()).buildTruncateCommand(anyString());
+        verify(environment, never()).createStatementWithBoundFixtureSymbols(any(TestHost.class), anyString());
+    }
+
+    @Test
+    public void shouldCleanOnceIfCleanColumnIsPresent() throws Exception {
+        when(environment.createStatementWithBoundFixtureSymbols(any(TestHost.class), anyString()))
+            .thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(3);
+
+        Parse table = runClean("<td>table</td><td>clean?</td>", "<td>t</td><td>true</td>");
+
+        verify(statement, times(1)).executeUpdate();
+        assertThat(table.parts.more.more.parts.text(), containsString("(3 rows deleted)"));
+    }
+}
@@ -0,0 +1,23 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+
+import fit.Parse;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CompareStreamedQueriesTest {
+
+    @Mock private DBEnvironment environment;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectQueriesOnSameEnvironment() throws Exception {
+        Parse table = new Parse("<table><tr><td>Compare Streamed Queries</td></tr><tr><td>id</td></tr></table>");
+        new CompareStreamedQueries(environment, "select 1", environment, "select 2").doTable(table);
+    }
+}
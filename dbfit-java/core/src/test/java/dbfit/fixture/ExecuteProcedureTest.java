@@ -0,0 +1,117 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.api.DbStoredProcedureCall;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.Options;
+import dbfit.util.TypeTransformerFactory;
+
+import fit.Parse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import java.sql.BatchUpdateException;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ExecuteProcedureTest {
+
+    @Mock private DBEnvironment environment;
+    @Mock private Connection connection;
+    @Mock private CallableStatement statement;
+
+    @Before
+    public void prepare() throws Exception {
+        Map<String, DbParameterAccessor> parameters = new HashMap<String, DbParameterAccessor>();
+        parameters.put("amount", new DbParameterAccessor("amount", Direction.INPUT,
+                    Types.INTEGER, Integer.class, 0, new TypeTransformerFactory()));
+        parameters.put("balance", new DbParameterAccessor("balance", Direction.OUTPUT,
+                    Types.INTEGER, Integer.class, 1, new TypeTransformerFactory()));
+        when(environment.getAllProcedureParameters("post")).thenReturn(parameters);
+        when(environment.newStoredProcedureCall(eq("post"), any(DbParameterAccessor[].class)))
+            .thenAnswer(new org.mockito.stubbing.Answer<DbStoredProcedureCall>() {
+                public DbStoredProcedureCall answer(org.mockito.invocation.InvocationOnMock invocation) {
+                    return new DbStoredProcedureCall(environment, "post",
+                            (DbParameterAccessor[]) invocation.getArguments()[1]);
+                }
+            });
+        when(environment.getConnection()).thenReturn(connection);
+        when(connection.prepareCall(anyString())).thenReturn(statement);
+        when(environment.createStatementExecution(statement))
+            .thenReturn(new StatementExecution(statement));
+    }
+
+    @After
+    public void resetOptions() {
+        Options.reset();
+    }
+
+    private Parse execute(String header, String... rows) throws Exception {
+        StringBuilder html = new StringBuilder("<table><tr><td>Execute Procedure</td><td>post</td></tr>")
+            .append("<tr><td>").append(header.replace("|", "</td><td>")).append("</td></tr>");
+        for (String row : rows) {
+            html.append("<tr><td>").append(row.replace("|", "</td><td>")).append("</td></tr>");
+        }
+        Parse table = new Parse(html.append("</table>").toString());
+        new ExecuteProcedure(environment, "post").doTable(table);
+        return table;
+    }
+
+    @Test
+    public void shouldCallInputOnlyProcedureInBatches() throws Exception {
+        Options.setOption(Options.OPTION_PROCEDURE_BATCH_SIZE, "2");
+
+        execute("amount", "1", "2", "3");
+
+        verify(statement, times(3)).addBatch();
+        verify(statement, times(2)).executeBatch();
+        verify(statement, never()).execute();
+    }
+
+    @Test
+    public void shouldCallInputOnlyProcedureRowByRowByDefault() throws Exception {
+        execute("amount", "1", "2");
+
+        verify(statement, times(2)).execute();
+        verify(statement, never()).addBatch();
+    }
+
+    @Test
+    public void shouldMarkRowWhereBatchFailed() throws Exception {
+        Options.setOption(Options.OPTION_PROCEDURE_BATCH_SIZE, "100");
+        when(statement.executeBatch()).thenThrow(
+                new BatchUpdateException("insufficient funds", new int[] { 1 }));
+
+        Parse table = execute("amount", "1", "2", "3");
+
+        assertThat(table.at(0, 2).parts.tag, not(containsString("error")));
+        assertThat(table.at(0, 3).parts.tag, containsString("error"));
+        assertThat(table.at(0, 4).parts.tag, not(containsString("error")));
+    }
+
+    @Test
+    public void shouldCallProcedureWithOutputsRowByRow() throws Exception {
+        when(statement.getObject(2)).thenReturn(10, 20);
+
+        Parse table = execute("amount|balance?", "1|10", "2|20");
+
+        verify(statement, times(2)).execute();
+        verify(statement, never()).addBatch();
+        assertThat(table.at(0, 3, 1).tag, containsString("pass"));
+    }
+}
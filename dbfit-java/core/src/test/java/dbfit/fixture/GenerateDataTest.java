@@ -0,0 +1,86 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.Options;
+import dbfit.util.TypeTransformerFactory;
+
+import fit.Parse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GenerateDataTest {
+
+    @Mock private DBEnvironment environment;
+    @Mock private PreparedStatement statement;
+
+    @Before
+    public void prepare() throws Exception {
+        Options.setOption(Options.OPTION_LOAD_THREADS, "1");
+        Map<String, DbParameterAccessor> columns = new HashMap<String, DbParameterAccessor>();
+        columns.put("id", new DbParameterAccessor("id", Direction.INPUT,
+                    Types.INTEGER, Integer.class, 0, new TypeTransformerFactory()));
+        columns.put("name", new DbParameterAccessor("name", Direction.INPUT,
+                    Types.VARCHAR, String.class, 1, new TypeTransformerFactory()));
+        columns.put("notes", new DbParameterAccessor("notes", Direction.INPUT,
+                    Types.VARCHAR, String.class, 2, new TypeTransformerFactory()));
+        when(environment.getAllColumns("t")).thenReturn(columns);
+    }
+
+    @After
+    public void resetOptions() {
+        Options.reset();
+    }
+
+    private Parse generate(String specs) throws Exception {
+        Parse table = new Parse("<table><tr><td>Generate Data</td><td>t</td><td>3</td></tr>"
+                + "<tr><td>column</td><td>generator</td></tr>" + specs + "</table>");
+        new GenerateData(environment, "t", 3, 42).doTable(table);
+        return table;
+    }
+
+    @Test
+    public void shouldInsertGeneratedRowsWithoutSkippedColumns() throws Exception {
+        when(environment.buildInsertPreparedStatement(eq("t"), any(DbParameterAccessor[].class)))
+            .thenReturn(statement);
+        when(environment.createStatementExecution(statement))
+            .thenReturn(new StatementExecution(statement));
+
+        Parse table = generate("<tr><td>name</td><td>values arthur</td></tr>"
+                + "<tr><td>notes</td><td>skip</td></tr>");
+
+        ArgumentCaptor<DbParameterAccessor[]> columns = ArgumentCaptor.forClass(DbParameterAccessor[].class);
+        verify(environment).buildInsertPreparedStatement(eq("t"), columns.capture());
+        assertThat(columns.getValue().length, is(2));
+        verify(statement).setObject(1, 3);
+        verify(statement, times(3)).setObject(2, "arthur");
+        verify(statement, times(3)).addBatch();
+        assertThat(table.parts.last().parts.text(), is("rows: 3"));
+    }
+
+    @Test
+    public void shouldReportUnknownColumns() throws Exception {
+        Parse table = generate("<tr><td>nmae</td><td>values arthur</td></tr>");
+
+        assertThat(table.parts.more.more.parts.body, containsString("No column nmae in t"));
+        verify(environment, never()).buildInsertPreparedStatement(anyString(), any(DbParameterAccessor[].class));
+    }
+}
@@ -0,0 +1,233 @@
+package dbfit.fixture;
+
+import dbfit.api.BulkLoader;
+import dbfit.api.DBEnvironment;
+import dbfit.util.DbAutoGeneratedKeyAccessor;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.Options;
+import dbfit.util.SymbolUtil;
+import dbfit.util.TypeTransformerFactory;
+
+import fit.Parse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+@RunWith(MockitoJUnitRunner.class)
+public class InsertTest {
+
+    @Mock private DBEnvironment environment;
+    @Mock private PreparedStatement statement;
+    @Mock private BulkLoader loader;
+    @Mock private ResultSet generatedKeys;
+
+    private final Map<String, DbParameterAccessor> columns = new HashMap<String, DbParameterAccessor>();
+
+    @Before
+    public void prepare() throws Exception {
+        columns.put("name", new DbParameterAccessor("name", Direction.INPUT,
+                    Types.VARCHAR, String.class, 1, new TypeTransformerFactory()));
+        when(environment.getAllColumns("t")).thenReturn(columns);
+        when(environment.buildInsertPreparedStatement(eq("t"), any(DbParameterAccessor[].class)))
+            .thenReturn(statement);
+        when(environment.createStatementExecution(statement))
+            .thenReturn(new StatementExecution(statement));
+    }
+
+    @After
+    public void resetOptions() {
+        Options.reset();
+    }
+
+    private Parse runInsert(int rows) throws Exception {
+        return runInsert(rows, null);
+    }
+
+    private Parse runInsert(int rows, String mode) throws Exception {
+        StringBuilder html = new StringBuilder("<table><tr><td>Insert</td><td>t</td></tr><tr><td>name</td></tr>");
+        for (int i = 1; i <= rows; i++) {
+            html.append("<tr><td>n").append(i).append("</td></tr>");
+        }
+        Parse table = new Parse(html.append("</table>").toString());
+        new Insert(environment, "t", mode).doTable(table);
+        return table;
+    }
+
+    private static Parse row(Parse table, int index) {
+        return table.at(0, index + 1);
+    }
+
+    @Test
+    public void shouldSendRowsInBatchesOfConfiguredSize() throws Exception {
+        Options.setOption(Options.OPTION_BATCH_SIZE, "2");
+
+        runInsert(5);
+
+        verify(statement, times(5)).addBatch();
+        verify(statement, times(3)).executeBatch();
+        verify(statement, never()).execute();
+    }
+
+    @Test
+    public void shouldExecuteEachRowWhenBatchingIsDisabled() throws Exception {
+        Options.setOption(Options.OPTION_BATCH_SIZE, "1");
+
+        runInsert(3);
+
+        verify(statement, times(3)).execute();
+        verify(statement, never()).executeBatch();
+    }
+
+    @Test
+    public void shouldMarkRowWhereDriverStoppedBatch() throws Exception {
+        when(statement.executeBatch()).thenThrow(
+                new BatchUpdateException("duplicate", new int[] { 1 }));
+
+        Parse table = runInsert(3);
+
+        assertThat(row(table, 1).parts.tag, not(containsString("error")));
+        assertThat(row(table, 2).parts.tag, containsString("error"));
+        assertThat(row(table, 3).parts.tag, not(containsString("error")));
+        assertThat(row(table, 3).tag, containsString("ignore"));
+        assertThat(row(table, 3).parts.body, containsString("not executed"));
+    }
+
+    @Test
+    public void shouldMarkRowsOfLaterBatchesAsNotExecutedAfterFailedBatch() throws Exception {
+        Options.setOption(Options.OPTION_BATCH_SIZE, "2");
+        when(statement.executeBatch()).thenThrow(
+                new BatchUpdateException("duplicate", new int[] { Statement.EXECUTE_FAILED, 1 }));
+
+        Parse table = runInsert(4);
+
+        verify(statement, times(1)).executeBatch();
+        verify(statement, times(2)).addBatch();
+        assertThat(row(table, 1).parts.tag, containsString("error"));
+        assertThat(row(table, 3).tag, containsString("ignore"));
+        assertThat(row(table, 3).parts.body, containsString("not executed"));
+        assertThat(row(table, 4).parts.body, containsString("not executed"));
+    }
+
+    @Test
+    public void shouldMarkEachFailedRowWhenDriverContinuedBatch() throws Exception {
+        when(statement.executeBatch()).thenThrow(new BatchUpdateException("duplicate",
+                    new int[] { Statement.EXECUTE_FAILED, 1, Statement.EXECUTE_FAILED }));
+
+        Parse table = runInsert(3);
+
+        assertThat(row(table, 1).parts.tag, containsString("error"));
+        assertThat(row(table, 2).parts.tag, not(containsString("error")));
+        assertThat(row(table, 3).parts.tag, containsString("error"));
+    }
+
+    @Test
+    public void shouldLoadThroughBulkLoaderInBulkMode() throws Exception {
+        when(environment.getBulkLoader()).thenReturn(loader);
+        when(loader.canLoad(eq("t"), any(DbParameterAccessor[].class))).thenReturn(true);
+        when(loader.load(eq("t"), any(DbParameterAccessor[].class), ArgumentMatchers.<Iterator<Object[]>>any()))
+            .thenReturn(3L);
+
+        Parse table = runInsert(3, Insert.MODE_BULK);
+
+        verify(loader).load(eq("t"), any(DbParameterAccessor[].class), ArgumentMatchers.<Iterator<Object[]>>any());
+        verify(statement, never()).addBatch();
+        assertThat(table.parts.last().parts.text(), is("rows: 3"));
+    }
+
+    @Test
+    public void shouldInsertRowByRowInBulkModeIfLoaderCannotReturnOutputs() throws Exception {
+        when(environment.getBulkLoader()).thenReturn(loader);
+        when(environment.createAutogeneratedPrimaryKeyAccessor(any(DbParameterAccessor.class)))
+            .thenReturn(new DbParameterAccessor("name", Direction.OUTPUT,
+                    Types.VARCHAR, String.class, 1, new TypeTransformerFactory()));
+
+        Parse table = new Parse("<table><tr><td>Insert</td><td>t</td><td>bulk</td></tr>"
+                + "<tr><td>name?</td></tr><tr><td>n1</td></tr></table>");
+        new Insert(environment, "t", Insert.MODE_BULK).doTable(table);
+
+        verify(loader, never()).load(eq("t"), any(DbParameterAccessor[].class), ArgumentMatchers.<Iterator<Object[]>>any());
+        verify(environment).buildInsertPreparedStatement(eq("t"), any(DbParameterAccessor[].class));
+    }
+
+    private Parse runInsertReturningKeys(boolean batchable, Integer... keys) throws Exception {
+        return runInsertReturningKeys(batchable,
+                "<tr><td>n1</td><td>7</td></tr><tr><td>n2</td><td>&gt;&gt;second</td></tr>", keys);
+    }
+
+    private Parse runInsertReturningKeys(boolean batchable, String rows, Integer... keys) throws Exception {
+        columns.put("id", new DbParameterAccessor("id", Direction.INPUT,
+                    Types.INTEGER, Integer.class, 0, new TypeTransformerFactory()));
+        when(environment.createAutogeneratedPrimaryKeyAccessor(any(DbParameterAccessor.class)))
+            .thenReturn(new DbAutoGeneratedKeyAccessor(columns.get("id"), batchable));
+        when(statement.getGeneratedKeys()).thenReturn(generatedKeys);
+        Boolean[] more = new Boolean[keys.length];
+        Arrays.fill(more, true);
+        more[keys.length - 1] = false;
+        when(generatedKeys.next()).thenReturn(true, more);
+        when(generatedKeys.getInt(1)).thenReturn(keys[0], Arrays.copyOfRange(keys, 1, keys.length));
+
+        Parse table = new Parse("<table><tr><td>Insert</td><td>t</td></tr>"
+                + "<tr><td>name</td><td>id?</td></tr>" + rows + "</table>");
+        new Insert(environment, "t").doTable(table);
+        return table;
+    }
+
+    @Test
+    public void shouldDistributeGeneratedKeysOfBatchToRows() throws Exception {
+        Parse table = runInsertReturningKeys(true, 7, 8);
+
+        verify(statement, times(2)).addBatch();
+        verify(statement).executeBatch();
+        verify(statement, never()).execute();
+        assertThat(row(table, 1).parts.more.tag, containsString("pass"));
+        assertThat(SymbolUtil.getSymbol("second"), is((Object) 8));
+    }
+
+    @Test
+    public void shouldInsertRowByRowIfRowReadsKeyOfEarlierRow() throws Exception {
+        Parse table = runInsertReturningKeys(true,
+                "<tr><td>a</td><td>&gt;&gt;a_id</td></tr><tr><td>&lt;&lt;a_id</td><td>8</td></tr>", 7, 8);
+
+        verify(statement, times(2)).execute();
+        verify(statement, never()).addBatch();
+        verify(statement).setObject(1, 7);
+        assertThat(row(table, 2).parts.more.tag, containsString("pass"));
+    }
+
+    @Test
+    public void shouldInsertRowByRowIfDriverCannotReturnKeysOfBatch() throws Exception {
+        runInsertReturningKeys(false, 7);
+
+        verify(statement, times(2)).execute();
+        verify(statement, never()).addBatch();
+    }
+
+    @Test
+    public void shouldFailIfBatchReturnedFewerKeysThanRows() throws Exception {
+        Parse table = runInsertReturningKeys(true, 7);
+
+        assertThat(table.at(0, 1).parts.body, containsString("1 generated keys for 2 rows"));
+    }
+}
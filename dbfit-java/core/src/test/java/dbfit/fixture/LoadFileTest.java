@@ -0,0 +1,94 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.TypeTransformerFactory;
+
+import fit.Parse;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LoadFileTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock private DBEnvironment environment;
+    @Mock private PreparedStatement statement;
+
+    @Before
+    public void prepare() throws Exception {
+        Map<String, DbParameterAccessor> columns = new HashMap<String, DbParameterAccessor>();
+        columns.put("id", new DbParameterAccessor("id", Direction.INPUT,
+                    Types.INTEGER, Integer.class, 0, new TypeTransformerFactory()));
+        columns.put("name", new DbParameterAccessor("name", Direction.INPUT,
+                    Types.VARCHAR, String.class, 1, new TypeTransformerFactory()));
+        when(environment.getAllColumns("t")).thenReturn(columns);
+    }
+
+    private Parse load(String content) throws Exception {
+        File file = new File(folder.getRoot(), "rows.csv");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        Parse table = new Parse("<table><tr><td>Load File</td><td>t</td><td>rows.csv</td></tr></table>");
+        new LoadFile(environment, "t", file.getPath()).doTable(table);
+        return table;
+    }
+
+    private void stubInsert() throws Exception {
+        when(environment.buildInsertPreparedStatement(eq("t"), any(DbParameterAccessor[].class)))
+            .thenReturn(statement);
+        when(environment.createStatementExecution(statement))
+            .thenReturn(new StatementExecution(statement));
+    }
+
+    @Test
+    public void shouldInsertParsedRowsInBatches() throws Exception {
+        stubInsert();
+
+        Parse table = load("name,id\nn1,1\n,2\n");
+
+        verify(statement).setObject(1, "n1");
+        verify(statement).setObject(2, 2);
+        verify(statement, times(2)).addBatch();
+        verify(statement, times(1)).executeBatch();
+        assertThat(table.parts.last().parts.text(), is("rows: 2"));
+    }
+
+    @Test
+    public void shouldReportLineOfUnparseableValue() throws Exception {
+        stubInsert();
+
+        Parse table = load("id,name\n1,a\nx,b\n");
+
+        assertThat(table.parts.parts.body, containsString("'x' on line 3"));
+    }
+
+    @Test
+    public void shouldRejectRowsWithMissingFields() throws Exception {
+        stubInsert();
+
+        Parse table = load("id,name\n1\n");
+
+        assertThat(table.parts.parts.body, containsString("Line 2 has 1 fields, expected 2"));
+    }
+}
@@ -0,0 +1,162 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.api.DbStoredProcedureCall;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.FitNesseTestHost;
+import dbfit.util.TypeTransformerFactory;
+
+import fit.Parse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LoadTestTest {
+
+    @Mock private DBEnvironment environment;
+    @Mock private Connection connection;
+    @Mock private PreparedStatement statement;
+    @Mock private CallableStatement call;
+
+    @Before
+    public void prepare() throws Exception {
+        FitNesseTestHost.getInstance();
+    }
+
+    private void mockStatement(String command, String... parameters) throws Exception {
+        when(environment.extractParamNames(command)).thenReturn(parameters);
+        when(environment.buildParameterisedCommand(command)).thenReturn("prepared");
+        when(environment.openConnection()).thenReturn(connection);
+        when(connection.prepareStatement("prepared")).thenReturn(statement);
+    }
+
+    private static Parse table(String rows) throws Exception {
+        return new Parse("<table><tr><td>Load Test</td></tr>" + rows + "</table>");
+    }
+
+    private static Parse statistics(Parse table) {
+        return table.parts.last().parts;
+    }
+
+    private static Parse statistic(Parse table, int index) {
+        return statistics(table).at(index);
+    }
+
+    @Test
+    public void shouldRunStatementWithValuesOfRowsInTurn() throws Exception {
+        String command = "insert into t values (@v)";
+        mockStatement(command, "v");
+        Parse table = table("<tr><td>v</td></tr><tr><td>a</td></tr><tr><td>b</td></tr>");
+
+        new LoadTest(environment, command, 2, 0.2, 0, "errors = 0, calls > 0").doTable(table);
+
+        assertThat(statistics(table).text(), containsString("calls: "));
+        assertThat(statistic(table, 0).tag, containsString("pass"));
+        assertThat(statistic(table, 1).text(), containsString("errors: 0"));
+        assertThat(statistic(table, 1).tag, containsString("pass"));
+        verify(statement, atLeastOnce()).setObject(1, "a");
+        verify(statement, atLeastOnce()).setObject(1, "b");
+        verify(statement, times(2)).close();
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    public void shouldCountErrorsAndMarkViolatedThresholdsWrong() throws Exception {
+        String command = "delete from t";
+        mockStatement(command);
+        when(statement.execute()).thenThrow(new SQLException("locked"));
+        Parse table = table("");
+
+        new LoadTest(environment, command, 1, 0.1, 0, "errors = 0").doTable(table);
+
+        assertThat(statistic(table, 0).text(), is("calls: 0"));
+        assertThat(statistic(table, 1).text(), containsString("locked"));
+        assertThat(statistic(table, 1).tag, containsString("fail"));
+    }
+
+    @Test
+    public void shouldGenerateValuesOfGenerateCells() throws Exception {
+        String command = "select * from t where id = @id";
+        mockStatement(command, "id");
+        Parse table = table("<tr><td>id</td></tr><tr><td>generate: constant 42</td></tr>");
+
+        new LoadTest(environment, command, 1, 0.1, 0, null).doTable(table);
+
+        verify(statement, atLeastOnce()).setObject(1, "42");
+    }
+
+    @Test
+    public void shouldCallProcedureWithAllParameters() throws Exception {
+        Map<String, DbParameterAccessor> parameters = new HashMap<String, DbParameterAccessor>();
+        parameters.put("id", new DbParameterAccessor("id", Direction.INPUT, Types.INTEGER,
+                    Integer.class, 0, new TypeTransformerFactory()));
+        parameters.put("total", new DbParameterAccessor("total", Direction.OUTPUT, Types.INTEGER,
+                    Integer.class, 1, new TypeTransformerFactory()));
+        when(environment.getAllProcedureParameters("place_order")).thenReturn(parameters);
+        when(environment.newStoredProcedureCall(eq("place_order"), any(DbParameterAccessor[].class)))
+            .thenAnswer(new org.mockito.stubbing.Answer<DbStoredProcedureCall>() {
+                public DbStoredProcedureCall answer(org.mockito.invocation.InvocationOnMock invocation) {
+                    return new DbStoredProcedureCall(environment, "place_order",
+                            (DbParameterAccessor[]) invocation.getArguments()[1]);
+                }
+            });
+        when(environment.openConnection()).thenReturn(connection);
+        when(connection.prepareCall(anyString())).thenReturn(call);
+        when(environment.createStatementExecution(call)).thenReturn(new StatementExecution(call));
+        Parse table = table("<tr><td>id</td></tr><tr><td>7</td></tr>");
+
+        new LoadTest(environment, "place_order", 1, 0.1, 0, "errors = 0").doTable(table);
+
+        assertThat(statistic(table, 1).tag, containsString("pass"));
+        verify(call).registerOutParameter(2, Types.INTEGER);
+        verify(call, atLeastOnce()).setObject(1, 7);
+        verify(call, atLeastOnce()).execute();
+    }
+
+    @Test
+    public void shouldRejectHeaderWithoutProcedureInput() throws Exception {
+        Map<String, DbParameterAccessor> parameters = new HashMap<String, DbParameterAccessor>();
+        parameters.put("id", new DbParameterAccessor("id", Direction.INPUT, Types.INTEGER,
+                    Integer.class, 0, new TypeTransformerFactory()));
+        when(environment.getAllProcedureParameters("place_order")).thenReturn(parameters);
+        Parse table = table("<tr><td>amount</td></tr><tr><td>7</td></tr>");
+
+        new LoadTest(environment, "place_order", 1, 0.1, 0, null).doTable(table);
+
+        assertThat(table.parts.parts.tag, containsString("error"));
+        verify(environment, never()).openConnection();
+    }
+
+    @Test
+    public void shouldParseThresholds() {
+        LoadTest.Threshold threshold = LoadTest.Threshold.parseAll("calls/sec >= 500, P99<=50.5").get(1);
+
+        assertThat(threshold.toString(), is("p99 <= 50.5"));
+        assertTrue(threshold.isMetBy(new java.math.BigDecimal("50.5")));
+        assertTrue(!threshold.isMetBy(new java.math.BigDecimal("50.6")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownThresholds() {
+        LoadTest.Threshold.parseAll("p90 < 10");
+    }
+}
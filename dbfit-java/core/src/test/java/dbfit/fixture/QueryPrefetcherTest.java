@@ -0,0 +1,160 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.util.DataTable;
+import dbfit.util.FitNesseTestHost;
+import dbfit.util.Options;
+import dbfit.util.QueryTimeoutException;
+import dbfit.util.SymbolUtil;
+
+import fit.Fixture;
+import fit.Parse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QueryPrefetcherTest {
+
+    @Mock private DBEnvironment environment;
+    @Mock private Connection connection;
+    @Mock private Connection prefetchConnection;
+    @Mock private PreparedStatement statement;
+    @Mock private ResultSet resultSet;
+    @Mock private ResultSetMetaData metaData;
+    @Mock private Fixture fixture;
+
+    private QueryPrefetcher prefetcher;
+
+    @Before
+    public void prepare() throws Exception {
+        FitNesseTestHost.getInstance();
+        Options.setOption(Options.OPTION_PREFETCH_QUERIES, "true");
+        prefetcher = new QueryPrefetcher(environment);
+    }
+
+    @After
+    public void reset() {
+        prefetcher.close();
+        Options.reset();
+        SymbolUtil.clearSymbols();
+    }
+
+    private static Parse tables(String currentRows, String next) throws Exception {
+        return new Parse("<table><tr><td>Query</td><td>select 1</td></tr>" + currentRows + "</table>"
+                + "<table><tr><td>" + next + "</td><td>select * from t where id = @id</td></tr></table>");
+    }
+
+    private void mockAutoCommit(boolean autoCommit) throws Exception {
+        when(environment.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(autoCommit);
+    }
+
+    @Test
+    public void shouldPrefetchQueryOfNextTableWhileCurrentTableRuns() throws Exception {
+        String query = "select * from t where id = @id";
+        mockAutoCommit(true);
+        when(environment.extractParamNames(query)).thenReturn(new String[] {"id"});
+        when(environment.buildParameterisedCommand(query)).thenReturn("prepared");
+        when(environment.openConnection()).thenReturn(prefetchConnection);
+        when(prefetchConnection.prepareStatement("prepared")).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        SymbolUtil.setSymbol("id", 5);
+        Parse tables = tables("<tr><td>n</td></tr>", "Ordered Query");
+
+        prefetcher.lookAhead(fixture).doTable(tables);
+        Future<DataTable> results = prefetcher.take(query);
+
+        verify(fixture).doTable(tables);
+        assertThat(QueryPrefetcher.resultsOf(results).getRows().size(), is(0));
+        verify(statement).setObject(1, 5);
+        prefetcher.close();
+        verify(prefetchConnection, timeout(1000)).close();
+    }
+
+    @Test
+    public void shouldNotPrefetchWhenOptionIsOff() throws Exception {
+        Options.setOption(Options.OPTION_PREFETCH_QUERIES, "false");
+
+        prefetcher.prefetchNext(tables("", "Query"));
+
+        assertThat(prefetcher.take("select * from t where id = @id"), is(nullValue()));
+        verifyZeroInteractions(environment);
+    }
+
+    @Test
+    public void shouldNotPrefetchWithoutAutoCommit() throws Exception {
+        mockAutoCommit(false);
+
+        prefetcher.prefetchNext(tables("", "Query"));
+
+        assertThat(prefetcher.take("select * from t where id = @id"), is(nullValue()));
+        verify(environment, never()).openConnection();
+    }
+
+    @Test
+    public void shouldNotPrefetchQueryUsingSymbolSetByCurrentTable() throws Exception {
+        mockAutoCommit(true);
+        when(environment.extractParamNames("select * from t where id = @id"))
+            .thenReturn(new String[] {"id"});
+
+        prefetcher.prefetchNext(tables("<tr><td>id</td></tr><tr><td>&gt;&gt;id</td></tr>", "Query"));
+
+        assertThat(prefetcher.take("select * from t where id = @id"), is(nullValue()));
+        verify(environment, never()).openConnection();
+    }
+
+    @Test
+    public void shouldNotPrefetchTablesWhichWrite() throws Exception {
+        prefetcher.prefetchNext(tables("", "Execute"));
+
+        assertThat(prefetcher.take("select * from t where id = @id"), is(nullValue()));
+        verifyZeroInteractions(environment);
+    }
+
+    @Test
+    public void shouldPrefetchWithQueryTimeoutOfNextTable() throws Exception {
+        mockAutoCommit(true);
+        when(environment.extractParamNames("select 2")).thenReturn(new String[0]);
+        when(environment.buildParameterisedCommand("select 2")).thenReturn("select 2");
+        when(environment.openConnection()).thenReturn(prefetchConnection);
+        when(prefetchConnection.prepareStatement("select 2")).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        Parse tables = new Parse("<table><tr><td>Query</td><td>select 1</td></tr></table>"
+                + "<table><tr><td>Query</td><td>select 2</td><td>30</td></tr></table>");
+
+        prefetcher.prefetchNext(tables);
+        QueryPrefetcher.resultsOf(prefetcher.take("select 2"));
+
+        verify(statement).setQueryTimeout(30 + 5);
+    }
+
+    @Test(expected = QueryTimeoutException.class)
+    public void shouldFailRightAwayWhenPrefetchedQueryTimedOut() throws Exception {
+        @SuppressWarnings("unchecked")
+        Future<DataTable> results = mock(Future.class);
+        when(results.get()).thenThrow(new ExecutionException(
+                new QueryTimeoutException(30, null, new SQLTimeoutException("timeout"))));
+
+        QueryPrefetcher.resultsOf(results);
+    }
+}
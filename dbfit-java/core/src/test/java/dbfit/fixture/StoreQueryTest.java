@@ -0,0 +1,106 @@
+package dbfit.fixture;
+
+import dbfit.api.BulkExtractor;
+import dbfit.api.DBEnvironment;
+import dbfit.api.TestHost;
+import dbfit.util.DataColumn;
+import dbfit.util.DataRow;
+import dbfit.util.DataTable;
+import dbfit.util.FitNesseTestHost;
+import dbfit.util.SymbolUtil;
+
+import fit.Parse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StoreQueryTest {
+
+    @Mock private DBEnvironment environment;
+    @Mock private BulkExtractor extractor;
+    @Mock private PreparedStatement statement;
+    @Mock private ResultSet resultSet;
+    @Mock private ResultSetMetaData metaData;
+
+    private final DataTable extracted =
+        new DataTable(new ArrayList<DataRow>(), new ArrayList<DataColumn>());
+
+    @Before
+    public void prepare() throws Exception {
+        FitNesseTestHost.getInstance();
+    }
+
+    @After
+    public void clearSymbols() {
+        SymbolUtil.clearSymbols();
+    }
+
+    private void storeQuery(String query) throws Exception {
+        new StoreQuery(environment, query, "result").doTable(new Parse(
+                    "<table><tr><td>Store Query</td></tr></table>"));
+    }
+
+    @Test
+    public void readsQueryWithBulkExtractor() throws Exception {
+        String query = "select * from orders";
+        when(environment.getBulkExtractor()).thenReturn(extractor);
+        when(environment.extractParamNames(query)).thenReturn(new String[0]);
+        when(extractor.canExtract(query)).thenReturn(true);
+        when(extractor.extract(query)).thenReturn(extracted);
+
+        storeQuery(query);
+
+        assertThat(SymbolUtil.getSymbol("result"), is(sameInstance((Object) extracted)));
+        verify(environment, never()).createStatementWithBoundFixtureSymbols(
+                any(TestHost.class), anyString());
+    }
+
+    @Test
+    public void fetchesQueryWithSymbolParametersWithJdbc() throws Exception {
+        String query = "select * from orders where id = @id";
+        when(environment.getBulkExtractor()).thenReturn(extractor);
+        when(environment.extractParamNames(query)).thenReturn(new String[] {"id"});
+        mockJdbcResults(query);
+
+        storeQuery(query);
+
+        assertThat(SymbolUtil.getDataTable("result").getRows().size(), is(0));
+        verify(extractor, never()).extract(anyString());
+    }
+
+    @Test
+    public void fetchesQueryWithJdbcIfExtractorCannotRunIt() throws Exception {
+        String query = "select * from orders";
+        when(environment.getBulkExtractor()).thenReturn(extractor);
+        when(environment.extractParamNames(query)).thenReturn(new String[0]);
+        when(extractor.canExtract(query)).thenReturn(false);
+        mockJdbcResults(query);
+
+        storeQuery(query);
+
+        assertThat(SymbolUtil.getDataTable("result").getRows().size(), is(0));
+        verify(extractor, never()).extract(anyString());
+    }
+
+    private void mockJdbcResults(String query) throws Exception {
+        when(environment.createStatementWithBoundFixtureSymbols(
+                    any(TestHost.class), eq(query))).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+    }
+}
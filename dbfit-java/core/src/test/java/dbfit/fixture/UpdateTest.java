@@ -0,0 +1,142 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.Options;
+import dbfit.util.TypeTransformerFactory;
+
+import fit.Parse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UpdateTest {
+
+    @Mock private DBEnvironment environment;
+    @Mock private Connection connection;
+    @Mock private PreparedStatement statement;
+
+    @Before
+    public void prepare() throws Exception {
+        Map<String, DbParameterAccessor> columns = new HashMap<String, DbParameterAccessor>();
+        columns.put("id", new DbParameterAccessor("id", Direction.INPUT,
+                    Types.INTEGER, Integer.class, 1, new TypeTransformerFactory()));
+        columns.put("name", new DbParameterAccessor("name", Direction.INPUT,
+                    Types.VARCHAR, String.class, 2, new TypeTransformerFactory()));
+        when(environment.getAllColumns("t")).thenReturn(columns);
+        when(environment.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("update t set name=? where id=?")).thenReturn(statement);
+        when(environment.createStatementExecution(statement))
+            .thenReturn(new StatementExecution(statement));
+    }
+
+    @After
+    public void resetOptions() {
+        Options.reset();
+    }
+
+    private Parse runUpdate(int rows) throws Exception {
+        StringBuilder html = new StringBuilder(
+                "<table><tr><td>Update</td><td>t</td></tr><tr><td>name=</td><td>id</td></tr>");
+        for (int i = 1; i <= rows; i++) {
+            html.append("<tr><td>n").append(i).append("</td><td>").append(i).append("</td></tr>");
+        }
+        Parse table = new Parse(html.append("</table>").toString());
+        new Update(environment, "t").doTable(table);
+        return table;
+    }
+
+    private static Parse row(Parse table, int index) {
+        return table.at(0, index + 1);
+    }
+
+    @Test
+    public void shouldSendRowsInBatchesOfConfiguredSize() throws Exception {
+        Options.setOption(Options.OPTION_BATCH_SIZE, "2");
+        when(statement.executeBatch()).thenReturn(new int[] { 1, 1 }, new int[] { 1 });
+
+        runUpdate(3);
+
+        verify(statement, times(3)).addBatch();
+        verify(statement, times(2)).executeBatch();
+        verify(statement, never()).executeUpdate();
+    }
+
+    @Test
+    public void shouldMarkRowsUpdatingNothingWhenOptionIsSet() throws Exception {
+        Options.setOption(Options.OPTION_FAIL_ON_ZERO_UPDATES, "true");
+        when(statement.executeBatch()).thenReturn(new int[] { 1, 0, 1 });
+
+        Parse table = runUpdate(3);
+
+        assertThat(row(table, 1).tag, not(containsString("fail")));
+        assertThat(row(table, 2).tag, containsString("fail"));
+        assertThat(row(table, 3).tag, not(containsString("fail")));
+    }
+
+    @Test
+    public void shouldReportRowsWithUnknownUpdateCountAsNotVerified() throws Exception {
+        Options.setOption(Options.OPTION_FAIL_ON_ZERO_UPDATES, "true");
+        when(statement.executeBatch()).thenReturn(new int[] { 1, Statement.SUCCESS_NO_INFO });
+
+        Parse table = runUpdate(2);
+
+        assertThat(row(table, 1).tag, not(containsString("ignore")));
+        assertThat(row(table, 2).tag, containsString("ignore"));
+        assertThat(row(table, 2).parts.body, containsString("not verified"));
+    }
+
+    @Test
+    public void shouldNotMarkRowsUpdatingNothingByDefault() throws Exception {
+        when(statement.executeBatch()).thenReturn(new int[] { 0 });
+
+        Parse table = runUpdate(1);
+
+        assertThat(row(table, 1).tag, not(containsString("fail")));
+    }
+
+    @Test
+    public void shouldCheckUpdateCountWhenBatchingIsDisabled() throws Exception {
+        Options.setOption(Options.OPTION_BATCH_SIZE, "1");
+        Options.setOption(Options.OPTION_FAIL_ON_ZERO_UPDATES, "true");
+        when(statement.executeUpdate()).thenReturn(1, 0);
+
+        Parse table = runUpdate(2);
+
+        verify(statement, never()).executeBatch();
+        assertThat(row(table, 1).tag, not(containsString("fail")));
+        assertThat(row(table, 2).tag, containsString("fail"));
+    }
+
+    @Test
+    public void shouldMarkFailedAndSkippedRowsOfStoppedBatch() throws Exception {
+        when(statement.executeBatch()).thenThrow(
+                new BatchUpdateException("deadlock", new int[] { 1 }));
+
+        Parse table = runUpdate(3);
+
+        assertThat(row(table, 1).tag, not(containsString("error")));
+        assertThat(row(table, 2).tag, containsString("error"));
+        assertThat(row(table, 3).tag, containsString("ignore"));
+    }
+}
@@ -0,0 +1,123 @@
+package dbfit.fixture;
+
+import dbfit.api.DBEnvironment;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.Options;
+import dbfit.util.TypeTransformerFactory;
+
+import fit.Parse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UpsertTest {
+
+    @Mock private DBEnvironment environment;
+    @Mock private PreparedStatement statement;
+
+    @Before
+    public void prepare() throws Exception {
+        Map<String, DbParameterAccessor> columns = new HashMap<String, DbParameterAccessor>();
+        columns.put("code", new DbParameterAccessor("code", Direction.INPUT,
+                    Types.VARCHAR, String.class, 0, new TypeTransformerFactory()));
+        columns.put("name", new DbParameterAccessor("name", Direction.INPUT,
+                    Types.VARCHAR, String.class, 1, new TypeTransformerFactory()));
+        when(environment.getAllColumns("t")).thenReturn(columns);
+        when(environment.buildUpsertPreparedStatement(eq("t"), any(DbParameterAccessor[].class),
+                    any(DbParameterAccessor[].class))).thenReturn(statement);
+        when(environment.createStatementExecution(statement))
+            .thenReturn(new StatementExecution(statement));
+    }
+
+    @After
+    public void resetOptions() {
+        Options.reset();
+    }
+
+    private Parse upsert(String header, String... rows) throws Exception {
+        StringBuilder html = new StringBuilder("<table><tr><td>Upsert</td><td>t</td></tr>")
+            .append("<tr><td>").append(header.replace("|", "</td><td>")).append("</td></tr>");
+        for (String row : rows) {
+            html.append("<tr><td>").append(row.replace("|", "</td><td>")).append("</td></tr>");
+        }
+        Parse table = new Parse(html.append("</table>").toString());
+        new Upsert(environment, "t").doTable(table);
+        return table;
+    }
+
+    @Test
+    public void shouldSplitKeyAndValueColumnsAndReportCounts() throws Exception {
+        Options.setOption(Options.OPTION_BATCH_SIZE, "2");
+        when(statement.executeBatch()).thenReturn(new int[] { 1, 2 }, new int[] { 1 });
+        when(environment.getUpsertInserts(any(StatementExecution.class), any(int[].class)))
+            .thenReturn(new boolean[] { true, false }, new boolean[] { true });
+
+        Parse table = upsert("code|name=", "EUR|Euro", "GBP|Pound", "USD|Dollar");
+
+        ArgumentCaptor<DbParameterAccessor[]> keys = ArgumentCaptor.forClass(DbParameterAccessor[].class);
+        ArgumentCaptor<DbParameterAccessor[]> values = ArgumentCaptor.forClass(DbParameterAccessor[].class);
+        verify(environment).buildUpsertPreparedStatement(eq("t"), keys.capture(), values.capture());
+        assertThat(keys.getValue()[0].getName(), is("code"));
+        assertThat(values.getValue()[0].getName(), is("name"));
+        verify(statement).setObject(1, "USD");
+        verify(statement).setObject(2, "Dollar");
+        verify(statement, times(2)).executeBatch();
+        assertThat(table.parts.last().parts.text(), is("inserted: 2"));
+        assertThat(table.parts.last().parts.more.text(), is("updated: 1"));
+    }
+
+    @Test
+    public void shouldReportOnlyUpsertedRowsIfEnvironmentCannotTellInserts() throws Exception {
+        Options.setOption(Options.OPTION_BATCH_SIZE, "1");
+        when(statement.executeUpdate()).thenReturn(1);
+
+        Parse table = upsert("code|name=", "EUR|Euro", "GBP|Pound");
+
+        verify(statement, times(2)).executeUpdate();
+        verify(environment).getUpsertInserts(any(StatementExecution.class), any(int[].class));
+        assertThat(table.parts.last().parts.text(), is("upserted: 2"));
+        assertThat(table.parts.last().parts.more, is(nullValue()));
+    }
+
+    @Test
+    public void shouldMarkFailedRowsAndCountOnlyExecutedOnes() throws Exception {
+        when(statement.executeBatch()).thenThrow(
+                new BatchUpdateException("null name", new int[] { 1 }));
+
+        Parse table = upsert("code|name=", "EUR|Euro", "GBP|null", "USD|Dollar");
+
+        assertThat(table.at(0, 2).tag, not(containsString("error")));
+        assertThat(table.at(0, 3).tag, containsString("error"));
+        assertThat(table.at(0, 4).tag, containsString("ignore"));
+        assertThat(table.parts.last().parts.text(), is("upserted: 1"));
+    }
+
+    @Test
+    public void shouldRequireKeyColumn() throws Exception {
+        Parse table = upsert("name=", "Euro");
+
+        assertThat(table.at(0, 1).parts.body, containsString("at least one key column"));
+        verify(environment, never()).buildUpsertPreparedStatement(anyString(),
+                any(DbParameterAccessor[].class), any(DbParameterAccessor[].class));
+    }
+}
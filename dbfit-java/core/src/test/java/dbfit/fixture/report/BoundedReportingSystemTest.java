@@ -0,0 +1,112 @@
+package dbfit.fixture.report;
+
+import static dbfit.util.DiffTestUtils.*;
+import static dbfit.util.MatchStatus.*;
+
+import dbfit.util.MatchResult;
+
+import org.junit.Test;
+import org.junit.Before;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.Mock;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BoundedReportingSystemTest {
+
+    @Mock private ReportingSystem delegate;
+
+    // The system under test
+    private BoundedReportingSystem reportingSystem;
+
+    @Before
+    public void prepare() {
+        reportingSystem = new BoundedReportingSystem(delegate, 1);
+    }
+
+    private void addMissingRow(String text) {
+        reportingSystem.addCell(createCellResult(text, null, MISSING));
+        reportingSystem.endRow(createNullRowResult(MISSING));
+    }
+
+    @Test
+    public void shouldForwardRowsWithinLimit() {
+        MatchResult cell = createCellResult("*M-1*", null, MISSING);
+        MatchResult row = createNullRowResult(MISSING);
+
+        reportingSystem.addCell(cell);
+        reportingSystem.endRow(row);
+
+        verify(delegate).addCell(cell);
+        verify(delegate).endRow(row, null);
+    }
+
+    @Test
+    public void shouldOnlyCountRowsBeyondLimit() {
+        addMissingRow("*M-1*");
+        addMissingRow("*M-2*");
+
+        verify(delegate, times(1)).addCell(any(MatchResult.class));
+        verify(delegate, times(1)).endRow(any(MatchResult.class), (String) isNull());
+        // one for the suppressed cell and one for the suppressed row
+        verify(delegate, times(2)).incWrong();
+        assertThat(reportingSystem.getTotal(MISSING), is(2));
+        assertThat(reportingSystem.getSuppressedRows(), is(1));
+    }
+
+    @Test
+    public void shouldLimitEachKindSeparately() {
+        addMissingRow("*M-1*");
+        reportingSystem.addCell(createCellResult(null, "*S-1*", SURPLUS));
+        reportingSystem.endRow(createNullRowResult(SURPLUS));
+
+        verify(delegate, times(2)).endRow(any(MatchResult.class), (String) isNull());
+        assertThat(reportingSystem.getSuppressedRows(), is(0));
+    }
+
+    @Test
+    public void shouldNotLimitMatchingRows() {
+        reportingSystem.addCell(createCellResult("*S-1*", SUCCESS));
+        reportingSystem.endRow(createNullRowResult(SUCCESS));
+        reportingSystem.addCell(createCellResult("*S-2*", SUCCESS));
+        reportingSystem.endRow(createNullRowResult(SUCCESS));
+
+        verify(delegate, times(2)).addCell(any(MatchResult.class));
+        assertThat(reportingSystem.hasMismatches(), is(false));
+    }
+
+    @Test
+    public void shouldCountSuppressedCellsByStatus() {
+        addMissingRow("*M-1*");
+        reportingSystem.addCell(createCellResult("*S-1*", SUCCESS));
+        reportingSystem.addCell(createCellException("*E-1*", "*E-1*", new Exception()));
+        reportingSystem.endRow(createNullRowResult(EXCEPTION));
+        reportingSystem.addCell(createCellResult("*S-2*", SUCCESS));
+        reportingSystem.addCell(createCellException("*E-2*", "*E-2*", new Exception()));
+        reportingSystem.endRow(createNullRowResult(EXCEPTION));
+
+        verify(delegate).incRight();
+        verify(delegate).incExceptions();
+        assertThat(reportingSystem.getTotal(EXCEPTION), is(2));
+    }
+
+    @Test
+    public void summaryShouldListTotalsOfAllKinds() {
+        addMissingRow("*M-1*");
+        addMissingRow("*M-2*");
+
+        assertThat(reportingSystem.getSummary(), allOf(
+                    containsString("missing: 2"),
+                    containsString("surplus: 0"),
+                    containsString("wrong: 0"),
+                    containsString("exception: 0"),
+                    containsString("1 rows not shown")));
+    }
+}
@@ -0,0 +1,82 @@
+package dbfit.util;
+
+import static dbfit.util.DiffTestUtils.*;
+import static dbfit.util.MatchStatus.*;
+
+import org.junit.Test;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class AsyncDiffListenerTest {
+
+    private static class RecordingListener implements DiffListener {
+        final List<MatchResult> events = Collections.synchronizedList(new ArrayList<MatchResult>());
+
+        @Override
+        public void onEvent(MatchResult result) {
+            events.add(result);
+        }
+    }
+
+    @Test
+    public void shouldDeliverAllEventsInOrderOnClose() {
+        RecordingListener delegate = new RecordingListener();
+        List<MatchResult> raised = new ArrayList<MatchResult>();
+
+        try (AsyncDiffListener listener = new AsyncDiffListener(delegate, 3, 2)) {
+            for (int i = 0; i < 100; i++) {
+                MatchResult result = (i % 5 == 4)
+                    ? createNullRowResult(SUCCESS) : createCellResultSuccess("v" + i);
+                raised.add(result);
+                listener.onEvent(result);
+            }
+        }
+
+        assertThat(delegate.events, equalTo(raised));
+    }
+
+    @Test
+    public void shouldBlockWhenReportingFallsBehind() {
+        final RecordingListener slow = new RecordingListener() {
+            @Override
+            public void onEvent(MatchResult result) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                super.onEvent(result);
+            }
+        };
+
+        try (AsyncDiffListener listener = new AsyncDiffListener(slow, 1, 1)) {
+            for (int i = 0; i < 20; i++) {
+                listener.onEvent(createCellResultSuccess("v" + i));
+                // at most one batch queued and one being reported
+                assertThat(i + 1 - slow.events.size(), lessThanOrEqualTo(3));
+            }
+        }
+
+        assertThat(slow.events.size(), is(20));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldRethrowReportingFailureOnClose() {
+        DiffListener failing = new DiffListener() {
+            @Override
+            public void onEvent(MatchResult result) {
+                throw new UnsupportedOperationException("cannot report");
+            }
+        };
+
+        try (AsyncDiffListener listener = new AsyncDiffListener(failing, 1, 1)) {
+            for (int i = 0; i < 10; i++) {
+                listener.onEvent(createCellResultSuccess("v" + i));
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package dbfit.util;
+
+import org.junit.Test;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+
+public class CanonicalValueNormaliserTest {
+
+    private Object normalise(Object value) throws Exception {
+        return CanonicalValueNormaliser.normaliseValue(value);
+    }
+
+    @Test
+    public void integerShouldEqualDecimalOfSameValue() throws Exception {
+        assertThat(normalise(42), equalTo(normalise(new BigDecimal("42.00"))));
+    }
+
+    @Test
+    public void longShouldEqualDecimalOfSameValue() throws Exception {
+        assertThat(normalise(42L), equalTo(normalise(new BigDecimal("42"))));
+    }
+
+    @Test
+    public void doubleShouldBeConvertedToDecimal() throws Exception {
+        assertThat(normalise(1.5d), instanceOf(NormalisedBigDecimal.class));
+        assertThat(normalise(1.5d), equalTo(normalise(new BigDecimal("1.50"))));
+    }
+
+    @Test
+    public void dateShouldEqualTimestampOfSameInstant() throws Exception {
+        long time = Timestamp.valueOf("2016-01-31 00:00:00").getTime();
+        assertThat(normalise(new Date(time)), equalTo(normalise(new Timestamp(time))));
+    }
+
+    @Test
+    public void stringsShouldBeLeftAsTheyAre() throws Exception {
+        assertThat(normalise("abc"), is((Object) "abc"));
+    }
+
+    @Test
+    public void nullShouldStayNull() throws Exception {
+        assertThat(normalise(null), nullValue());
+    }
+}
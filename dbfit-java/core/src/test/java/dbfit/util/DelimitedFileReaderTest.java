@@ -0,0 +1,60 @@
+package dbfit.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+public class DelimitedFileReaderTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private static DelimitedFileReader reader(String text) {
+        return new DelimitedFileReader(new StringReader(text), ',');
+    }
+
+    @Test
+    public void shouldReadQuotedFieldsSpanningLines() throws Exception {
+        DelimitedFileReader reader = reader("id,name\r\n1,\"a \"\"b\"\", c\nd\"\r\n\n2,x\n");
+
+        assertThat(reader.readRecord(), arrayContaining("id", "name"));
+        assertThat(reader.readRecord(), arrayContaining("1", "a \"b\", c\nd"));
+        assertThat(reader.readRecord(), arrayContaining("2", "x"));
+        assertThat(reader.getLineNumber(), is(5L));
+        assertThat(reader.readRecord(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldReadUnquotedEmptyFieldsAsNull() throws Exception {
+        DelimitedFileReader reader = reader(",\"\",");
+
+        assertThat(reader.readRecord(), is(new String[] {null, "", null}));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectUnterminatedQuotedField() throws Exception {
+        reader("1,\"abc\n").readRecord();
+    }
+
+    @Test
+    public void shouldReadGzippedTabSeparatedFile() throws Exception {
+        File file = new File(folder.getRoot(), "rows.tsv.gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write("id\tname\n1\t\u0430,\u0431\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (DelimitedFileReader reader = DelimitedFileReader.open(file.getPath())) {
+            assertThat(reader.readRecord(), arrayContaining("id", "name"));
+            assertThat(reader.readRecord(), arrayContaining("1", "\u0430,\u0431"));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package dbfit.util;
+
+import dbfit.fixture.StatementExecution;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FileParameterTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+    @Mock private PreparedStatement statement;
+
+    @After
+    public void resetOptions() {
+        Options.reset();
+    }
+
+    private String file(byte[] content) throws IOException {
+        File file = folder.newFile();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+        return FileParameter.PREFIX + file.getPath();
+    }
+
+    @Test
+    public void shouldOnlyReferToFilesWithOptionSet() {
+        assertThat(FileParameter.isFileReference("file:payload.xml"), is(false));
+
+        Options.setOption(Options.OPTION_FILE_PARAMETERS, "true");
+
+        assertThat(FileParameter.isFileReference("file:payload.xml"), is(true));
+        assertThat(FileParameter.isFileReference("payload.xml"), is(false));
+    }
+
+    @Test
+    public void shouldStreamTextWithLengthInCharacters() throws Exception {
+        String reference = file("<a>\u00e9t\u00e9</a>".getBytes("UTF-8"));
+
+        FileParameter.bind(statement, 2, reference, Types.CLOB);
+
+        ArgumentCaptor<Reader> reader = ArgumentCaptor.forClass(Reader.class);
+        verify(statement).setCharacterStream(eq(2), reader.capture(), eq(10));
+        char[] content = new char[10];
+        assertThat(reader.getValue().read(content), is(10));
+        assertThat(new String(content), is("<a>\u00e9t\u00e9</a>"));
+    }
+
+    @Test
+    public void shouldStreamBytesIntoBinaryColumns() throws Exception {
+        String reference = file(new byte[] { 1, 2, 3 });
+
+        FileParameter.bind(statement, 1, reference, Types.BLOB);
+
+        ArgumentCaptor<InputStream> in = ArgumentCaptor.forClass(InputStream.class);
+        verify(statement).setBinaryStream(eq(1), in.capture(), eq(3));
+        assertThat(in.getValue().read(), is(1));
+    }
+
+    @Test(expected = SQLException.class)
+    public void shouldReportMissingFile() throws Exception {
+        FileParameter.bind(statement, 1, "file:" + new File(folder.getRoot(), "missing.xml"), Types.CLOB);
+    }
+
+    @Test
+    public void shouldCloseStreamsAfterExecution() throws Exception {
+        Options.setOption(Options.OPTION_FILE_PARAMETERS, "true");
+        StatementExecution execution = new StatementExecution(statement);
+
+        execution.setObject(1, file(new byte[] { 'x' }), Types.CLOB, null);
+        execution.run();
+
+        ArgumentCaptor<Reader> reader = ArgumentCaptor.forClass(Reader.class);
+        verify(statement).setCharacterStream(eq(1), reader.capture(), eq(1));
+        verify(statement).execute();
+        try {
+            reader.getValue().read();
+            throw new AssertionError("stream should be closed");
+        } catch (IOException e) {
+            // closed
+        }
+    }
+
+    @Test
+    public void shouldCloseStreamWhenBindingFails() throws Exception {
+        String reference = file(new byte[] { 'x' });
+        doThrow(new SQLException("streams not supported"))
+            .when(statement).setCharacterStream(eq(1), any(Reader.class), eq(1));
+
+        try {
+            FileParameter.bind(statement, 1, reference, Types.CLOB);
+            throw new AssertionError("binding should fail");
+        } catch (SQLException e) {
+            // expected
+        }
+
+        ArgumentCaptor<Reader> reader = ArgumentCaptor.forClass(Reader.class);
+        verify(statement).setCharacterStream(eq(1), reader.capture(), eq(1));
+        try {
+            reader.getValue().read();
+            throw new AssertionError("stream should be closed");
+        } catch (IOException e) {
+            // closed
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package dbfit.util;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    public void emptyHistogramShouldReportZero() {
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void smallValuesShouldBeCountedExactly() {
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(95, histogram.getValueAtPercentile(95));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+        assertEquals(100, histogram.getMax());
+    }
+
+    @Test
+    public void largeValuesShouldBeAccurateWithinBucketWidth() {
+        for (long i = 1; i <= 100000; i++) {
+            histogram.record(i * 37);
+        }
+
+        assertWithin(50000L * 37, histogram.getValueAtPercentile(50));
+        assertWithin(99000L * 37, histogram.getValueAtPercentile(99));
+        assertEquals(100000L * 37, histogram.getMax());
+        assertEquals(100000L * 37, histogram.getValueAtPercentile(100));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected about " + expected + " but was " + actual,
+                actual >= expected && actual <= expected + expected / 64);
+    }
+
+    @Test
+    public void bucketsShouldCoverAllValuesInOrder() {
+        long previous = -1;
+        for (int index = 0; index <= LatencyHistogram.bucketIndex(Long.MAX_VALUE); index++) {
+            long highest = LatencyHistogram.highestValue(index);
+            assertTrue(highest > previous);
+            assertEquals(index, LatencyHistogram.bucketIndex(highest));
+            assertEquals(index, LatencyHistogram.bucketIndex(previous + 1));
+            previous = highest;
+        }
+        assertEquals(Long.MAX_VALUE, previous);
+    }
+
+    @Test
+    public void valuesShouldBeRecordedFromManyThreads() throws Exception {
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t;
+            threads.add(new Thread() {
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(i * 4 + offset);
+                    }
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40000, histogram.getCount());
+        assertEquals(39999, histogram.getMax());
+    }
+}
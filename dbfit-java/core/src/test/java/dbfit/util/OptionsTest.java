@@ -32,6 +32,22 @@ public class OptionsTest {
         assertThat(Options.get(Options.OPTION_AUTO_COMMIT), is("false"));
     }
 
+    @Test
+    public void maxReportedRowsDefaultIsUnlimited() {
+        assertThat(Options.getMaxReportedRows(), is(0));
+    }
+
+    @Test
+    public void canSetMaxReportedRows() {
+        Options.setOption("max reported rows", "500");
+        assertThat(Options.getMaxReportedRows(), is(500));
+    }
+
+    @Test
+    public void queryTimeoutDefaultIsUnlimited() {
+        assertThat(Options.getQueryTimeout(), is(0));
+    }
+
     @Test
     public void canSetPredefinedOption() {
         Options.setOption(Options.OPTION_DEBUG_LOG, "true");
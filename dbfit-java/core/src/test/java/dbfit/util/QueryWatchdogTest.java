@@ -0,0 +1,168 @@
+package dbfit.util;
+
+import dbfit.api.DBEnvironment;
+import dbfit.api.TestContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QueryWatchdogTest {
+
+    @Mock private PreparedStatement statement;
+    @Mock private DBEnvironment environment;
+    @Mock private Connection diagnosticsConnection;
+    @Mock private Statement diagnosticsStatement;
+    @Mock private ResultSet sessions;
+    @Mock private ResultSetMetaData sessionColumns;
+
+    private TestContext context;
+
+    @Before
+    public void beginContext() {
+        context = TestContext.begin();
+    }
+
+    @After
+    public void closeContext() {
+        context.close();
+    }
+
+    @Test
+    public void shouldNotWatchWithoutQueryTimeout() throws Exception {
+        SQLException failure = new SQLTimeoutException("timeout");
+
+        QueryWatchdog.Watch watch = QueryWatchdog.watch(statement);
+        watch.close();
+
+        assertThat(watch.check(failure), is(sameInstance((SQLException) failure)));
+        verifyZeroInteractions(statement);
+    }
+
+    @Test
+    public void shouldSetDriverTimeoutAfterDeadline() throws Exception {
+        Options.setOption(Options.OPTION_QUERY_TIMEOUT, "30");
+
+        QueryWatchdog.watch(statement).close();
+
+        verify(statement).setQueryTimeout(30 + QueryWatchdog.DRIVER_GRACE_SECONDS);
+        verify(statement, never()).cancel();
+    }
+
+    @Test
+    public void shouldReportTimeoutOfDriver() throws Exception {
+        QueryWatchdog.Watch watch = QueryWatchdog.watch(statement, 30);
+        watch.close();
+
+        SQLException e = watch.check(new SQLTimeoutException("timeout"));
+
+        assertThat(e, is(instanceOf(QueryTimeoutException.class)));
+        assertThat(e.getMessage(), containsString("30 seconds"));
+    }
+
+    @Test
+    public void shouldPassOtherFailuresThrough() throws Exception {
+        SQLException failure = new SQLException("constraint violated");
+        QueryWatchdog.Watch watch = QueryWatchdog.watch(statement, 30);
+        watch.close();
+
+        assertThat(watch.check(failure), is(sameInstance(failure)));
+    }
+
+    @Test
+    public void shouldCancelStatementAtDeadlineAndReportSessions() throws Exception {
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        when(statement.execute()).thenAnswer(new Answer<Boolean>() {
+            public Boolean answer(InvocationOnMock invocation) throws Exception {
+                if (!cancelled.await(10, TimeUnit.SECONDS)) {
+                    return true;
+                }
+                throw new SQLException("canceling statement due to user request");
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            public Void answer(InvocationOnMock invocation) {
+                cancelled.countDown();
+                return null;
+            }
+        }).when(statement).cancel();
+        context.setDefaultEnvironment(environment);
+        when(environment.buildSessionDiagnosticsQuery()).thenReturn("select sessions");
+        when(environment.openConnection()).thenReturn(diagnosticsConnection);
+        when(diagnosticsConnection.createStatement()).thenReturn(diagnosticsStatement);
+        when(diagnosticsStatement.executeQuery("select sessions")).thenReturn(sessions);
+        when(sessions.getMetaData()).thenReturn(sessionColumns);
+        when(sessions.next()).thenReturn(true, false);
+        when(sessionColumns.getColumnCount()).thenReturn(2);
+        when(sessionColumns.getColumnLabel(1)).thenReturn("pid");
+        when(sessionColumns.getColumnLabel(2)).thenReturn("blocked_by");
+        when(sessions.getObject(1)).thenReturn(42);
+        when(sessions.getObject(2)).thenReturn("{7}");
+
+        SQLException failure = null;
+        QueryWatchdog.Watch watch = QueryWatchdog.watch(statement, 1);
+        try {
+            statement.execute();
+        } catch (SQLException e) {
+            failure = watch.check(e);
+        } finally {
+            watch.close();
+        }
+
+        assertThat(failure, is(instanceOf(QueryTimeoutException.class)));
+        assertThat(failure.getMessage(), containsString("pid=42, blocked_by={7}"));
+        verify(diagnosticsStatement).setQueryTimeout(QueryWatchdog.DIAGNOSTICS_SECONDS);
+        verify(diagnosticsConnection).close();
+    }
+
+    @Test
+    public void shouldCancelStatementWhenSessionsCannotBeReadInTime() throws Exception {
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            public Void answer(InvocationOnMock invocation) {
+                cancelled.countDown();
+                return null;
+            }
+        }).when(statement).cancel();
+        context.setDefaultEnvironment(environment);
+        when(environment.buildSessionDiagnosticsQuery()).thenReturn("select sessions");
+        when(environment.openConnection()).thenAnswer(new Answer<Connection>() {
+            public Connection answer(InvocationOnMock invocation) throws Exception {
+                Thread.sleep(60000);
+                return diagnosticsConnection;
+            }
+        });
+
+        QueryWatchdog.Watch watch = QueryWatchdog.watch(statement, 1);
+        try {
+            assertThat(cancelled.await(1 + QueryWatchdog.DIAGNOSTICS_SECONDS + 5, TimeUnit.SECONDS), is(true));
+            SQLException failure = watch.check(new SQLException("canceling statement due to user request"));
+            assertThat(failure.getMessage(), containsString("could not be read within"));
+        } finally {
+            watch.close();
+        }
+    }
+}
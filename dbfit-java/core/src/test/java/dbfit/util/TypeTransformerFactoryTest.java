@@ -3,9 +3,17 @@ package dbfit.util;
 import org.junit.Test;
 import org.junit.Before;
 
-import java.util.ArrayList;
 import java.util.AbstractCollection;
 import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Stack;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertEquals;
@@ -61,4 +69,28 @@ public class TypeTransformerFactoryTest {
         assertNull(normaliser);
     }
 
+    @Test
+    public void normaliserLookupIsSafeFromManyThreads() throws Exception {
+        final Class[] subclasses = {ArrayList.class, LinkedList.class,
+            Vector.class, Stack.class};
+        ExecutorService executor = Executors.newFixedThreadPool(subclasses.length);
+        try {
+            List<Future<TypeTransformer>> lookups = new ArrayList<Future<TypeTransformer>>();
+            for (int i = 0; i < 1000; i++) {
+                final Class target = subclasses[i % subclasses.length];
+                lookups.add(executor.submit(new Callable<TypeTransformer>() {
+                    public TypeTransformer call() {
+                        return ttf.getTransformer(target);
+                    }
+                }));
+            }
+            for (Future<TypeTransformer> lookup : lookups) {
+                lookup.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(normaliserMid, ttf.getTransformer(Stack.class));
+        assertEquals(normaliserMid, ttf.getTransformer(LinkedList.class));
+    }
 }
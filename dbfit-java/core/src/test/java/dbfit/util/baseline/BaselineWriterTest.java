@@ -0,0 +1,143 @@
+package dbfit.util.baseline;
+
+import dbfit.util.CanonicalValueNormaliser;
+import dbfit.util.DataColumn;
+import dbfit.util.DataRow;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BaselineWriterTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final List<DataColumn> COLUMNS = Arrays.asList(
+            new DataColumn("Id", "java.lang.Integer", "INTEGER"),
+            new DataColumn("Name", "java.lang.String", "VARCHAR"),
+            new DataColumn("Created", "java.sql.Timestamp", "TIMESTAMP"));
+
+    private static DataRow row(Object id, Object name, Object created) {
+        Map<String, Object> values = new HashMap<String, Object>();
+        values.put("id", id);
+        values.put("name", name);
+        values.put("created", created);
+        return new DataRow(values);
+    }
+
+    private static byte[] write(DataRow... rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BaselineWriter writer = new BaselineWriter(bytes, COLUMNS)) {
+            for (DataRow row: rows) {
+                writer.writeRow(row);
+            }
+            writer.finish();
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void shouldReadBackSchemaAndRows() throws Exception {
+        Timestamp created = Timestamp.valueOf("2016-01-31 12:30:00.123456789");
+        byte[] baseline = write(row(1, "one", created), row(2, null, null));
+
+        try (BaselineReader reader = new BaselineReader(new ByteArrayInputStream(baseline))) {
+            assertThat(reader.getColumns().size(), is(3));
+            assertThat(reader.getColumns().get(1).getName(), is("Name"));
+            assertThat(reader.getColumns().get(2).getDbTypeName(), is("TIMESTAMP"));
+
+            DataRow first = reader.next();
+            assertThat(first.get("id"), equalTo(CanonicalValueNormaliser.normaliseValue(new BigDecimal("1"))));
+            assertThat(first.get("name"), equalTo((Object) "one"));
+            assertThat(first.get("created"), equalTo((Object) created));
+
+            DataRow second = reader.next();
+            assertThat(second.get("name"), nullValue());
+            assertThat(second.get("created"), nullValue());
+
+            assertThat(reader.hasNext(), is(false));
+        }
+    }
+
+    @Test
+    public void shouldEncodeRepeatedStringsOnce() throws Exception {
+        DataRow[] rows = new DataRow[1000];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = row(i, (i % 2 == 0) ? "even" : "odd", null);
+        }
+
+        try (BaselineReader reader = new BaselineReader(new ByteArrayInputStream(write(rows)))) {
+            for (int i = 0; i < rows.length; i++) {
+                assertThat(reader.next().get("name"), equalTo(rows[i].get("name")));
+            }
+            assertThat(reader.hasNext(), is(false));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectOtherFiles() throws Exception {
+        new BaselineReader(new ByteArrayInputStream("id,name\n1,one\n".getBytes("UTF-8")));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldDetectTruncatedFile() throws Exception {
+        DataRow[] rows = new DataRow[1000];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = row(i, "name " + i, null);
+        }
+        byte[] baseline = write(rows);
+
+        try (BaselineReader reader = new BaselineReader(
+                new ByteArrayInputStream(Arrays.copyOf(baseline, baseline.length / 2)))) {
+            while (reader.hasNext()) {
+                reader.next();
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotMarkUnfinishedFileAsComplete() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BaselineWriter writer = new BaselineWriter(bytes, COLUMNS)) {
+            writer.writeRow(row(1, "one", null));
+        }
+
+        try (BaselineReader reader = new BaselineReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            while (reader.hasNext()) {
+                reader.next();
+            }
+        }
+    }
+
+    @Test
+    public void shouldKeepExistingBaselineWhenWritingIsNotFinished() throws Exception {
+        File baseline = new File(folder.getRoot(), "t.dbfit");
+        try (BaselineWriter writer = new BaselineWriter(baseline.getPath(), COLUMNS)) {
+            writer.writeRow(row(1, "one", null));
+            writer.finish();
+        }
+
+        try (BaselineWriter writer = new BaselineWriter(baseline.getPath(), COLUMNS)) {
+            writer.writeRow(row(2, "two", null));
+        }
+
+        try (BaselineReader reader = new BaselineReader(baseline.getPath())) {
+            assertThat(reader.next().get("name"), equalTo((Object) "one"));
+            assertThat(reader.hasNext(), is(false));
+        }
+        assertThat(folder.getRoot().list(), arrayContaining("t.dbfit"));
+    }
+}
@@ -0,0 +1,88 @@
+package dbfit.util.export;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.Arrays;
+
+public class ResultSetExporterTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private ResultSet rs;
+
+    @Before
+    public void prepare() throws Exception {
+        ResultSetMetaData md = mock(ResultSetMetaData.class);
+        when(md.getColumnCount()).thenReturn(2);
+        when(md.getColumnLabel(1)).thenReturn("ID");
+        when(md.getColumnLabel(2)).thenReturn("NAME");
+        when(md.getColumnType(1)).thenReturn(Types.NUMERIC);
+        when(md.getColumnType(2)).thenReturn(Types.VARCHAR);
+        when(md.getColumnTypeName(1)).thenReturn("NUMERIC");
+        when(md.getColumnTypeName(2)).thenReturn("VARCHAR");
+
+        rs = mock(ResultSet.class);
+        when(rs.getMetaData()).thenReturn(md);
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getObject(1)).thenReturn(new BigDecimal("1.50"), new BigDecimal("2"));
+        when(rs.getObject(2)).thenReturn("plain", "with \"quotes\", comma");
+        when(rs.getBigDecimal(1)).thenReturn(new BigDecimal("1.50"), new BigDecimal("2"));
+        when(rs.getString(2)).thenReturn("plain", (String) null);
+    }
+
+    private File export(String name, String format) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        try (ResultSetExporter exporter = ResultSetExporter.create(file.getPath(), format)) {
+            assertThat(exporter.export(rs), is(2L));
+            assertThat(exporter.getBytesWritten(), is(file.length()));
+        }
+        return file;
+    }
+
+    @Test
+    public void shouldWriteCsvWithHeaderAndQuotedFields() throws Exception {
+        File file = export("out.csv", null);
+
+        assertThat(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8),
+                is("ID,NAME\r\n1.50,plain\r\n2,\"with \"\"quotes\"\", comma\"\r\n"));
+    }
+
+    @Test
+    public void shouldWriteColumnarFileWithRowCountInFooter() throws Exception {
+        File file = export("out.bin", null);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+
+        assertThat(Arrays.copyOf(bytes, 8), is(ColumnarExporter.MAGIC));
+        ByteBuffer footer = ByteBuffer.wrap(bytes, bytes.length - 12, 12);
+        assertThat(footer.getInt(), is(0));
+        assertThat(footer.getLong(), is(2L));
+    }
+
+    @Test
+    public void shouldMapSqlTypesToValueTypes() {
+        assertThat(ColumnarExporter.getValueType(Types.INTEGER), is(ColumnarExporter.LONG));
+        assertThat(ColumnarExporter.getValueType(Types.DECIMAL), is(ColumnarExporter.DECIMAL));
+        assertThat(ColumnarExporter.getValueType(Types.DATE), is(ColumnarExporter.TIMESTAMP));
+        assertThat(ColumnarExporter.getValueType(Types.CLOB), is(ColumnarExporter.STRING));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownFormat() throws Exception {
+        ResultSetExporter.create(new File(folder.getRoot(), "out.xls").getPath(), "xls");
+    }
+}
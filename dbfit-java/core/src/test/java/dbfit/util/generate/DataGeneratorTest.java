@@ -0,0 +1,48 @@
+package dbfit.util.generate;
+
+import org.junit.Test;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public class DataGeneratorTest {
+
+    private static final ValueGenerator RANDOM_INT = new ValueGenerator() {
+        public Object next(long row, Random random) {
+            return random.nextInt();
+        }
+    };
+
+    private static List<Object> firstColumn(Iterator<Object[]> rows) {
+        List<Object> values = new ArrayList<Object>();
+        while (rows.hasNext()) {
+            values.add(rows.next()[0]);
+        }
+        return values;
+    }
+
+    @Test
+    public void shouldGenerateSameRowsForSameSeedInAnyBlockOrder() {
+        DataGenerator generator = new DataGenerator(new ValueGenerator[] { RANDOM_INT }, 42);
+        int block = DataGenerator.ROWS_PER_BLOCK;
+
+        List<Object> all = firstColumn(generator.rows(0, block + 5));
+        List<Object> second = firstColumn(generator.rows(block, block + 5));
+
+        assertThat(all.size(), is(block + 5));
+        assertThat(all.subList(block, block + 5), is(second));
+        assertThat(firstColumn(new DataGenerator(new ValueGenerator[] { RANDOM_INT }, 42).rows(0, 5)),
+                is(all.subList(0, 5)));
+        assertThat(firstColumn(new DataGenerator(new ValueGenerator[] { RANDOM_INT }, 43).rows(0, 5)),
+                is(not(all.subList(0, 5))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldOnlyStartAtBlocks() {
+        new DataGenerator(new ValueGenerator[] { RANDOM_INT }, 42).rows(5, 10);
+    }
+}
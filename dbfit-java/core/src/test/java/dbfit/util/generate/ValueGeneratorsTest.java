@@ -0,0 +1,98 @@
+package dbfit.util.generate;
+
+import dbfit.api.DBEnvironment;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.TypeTransformerFactory;
+
+import org.junit.Test;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.hamcrest.Matchers.*;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.util.Random;
+
+public class ValueGeneratorsTest {
+
+    private final Random random = new Random(1);
+
+    private static DbParameterAccessor column(Class<?> type) {
+        return new DbParameterAccessor("c", Direction.INPUT, Types.OTHER, type, 0,
+                new TypeTransformerFactory());
+    }
+
+    private static ValueGenerator generator(String spec, Class<?> type) throws Exception {
+        return ValueGenerators.forColumn(column(type), spec, null);
+    }
+
+    @Test
+    public void shouldCountSequenceByRow() throws Exception {
+        ValueGenerator sequence = generator("sequence 100, 10", Long.class);
+
+        assertThat(sequence.next(0, random), is((Object) 100L));
+        assertThat(sequence.next(5, random), is((Object) 150L));
+    }
+
+    @Test
+    public void shouldKeepRangeWithinBoundsAndScale() throws Exception {
+        ValueGenerator range = generator("range 1.5, 2.25", BigDecimal.class);
+
+        for (int i = 0; i < 1000; i++) {
+            BigDecimal value = (BigDecimal) range.next(i, random);
+            assertThat(value.scale(), is(2));
+            assertThat(value, allOf(greaterThanOrEqualTo(new BigDecimal("1.50")),
+                        lessThanOrEqualTo(new BigDecimal("2.25"))));
+        }
+    }
+
+    @Test
+    public void shouldGenerateDatesAtMidnight() throws Exception {
+        ValueGenerator range = generator("range 2020-03-01, 2020-03-31", java.sql.Date.class);
+
+        java.sql.Date date = (java.sql.Date) range.next(0, random);
+        assertThat(date.toString(), startsWith("2020-03-"));
+        assertThat(java.sql.Date.valueOf(date.toString()), is(date));
+    }
+
+    @Test
+    public void shouldFillPatternAndConvertChoices() throws Exception {
+        String pattern = (String) generator("pattern ORD-##?\\#", String.class).next(0, random);
+        assertTrue(pattern, pattern.matches("ORD-[0-9]{2}[A-Za-z]#"));
+        assertThat(generator("values 3, 5", Integer.class).next(0, random), anyOf(equalTo((Object) 3), equalTo((Object) 5)));
+        assertThat(generator("null", String.class).next(0, random), is(nullValue()));
+        assertThat(generator("skip", String.class), is(nullValue()));
+    }
+
+    @Test
+    public void shouldPickReferencedValues() throws Exception {
+        DBEnvironment environment = mock(DBEnvironment.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(environment.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(
+                    "select distinct id from app.customers where id is not null order by id"))
+            .thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true, true, false);
+        when(rs.getObject(1)).thenReturn(new BigDecimal(7), new BigDecimal(9));
+
+        ValueGenerator reference = ValueGenerators.forColumn(column(Integer.class),
+                "reference app.customers.id", environment);
+
+        assertThat(reference.next(0, random), anyOf(equalTo((Object) 7), equalTo((Object) 9)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownGenerator() throws Exception {
+        generator("lorem ipsum", String.class);
+    }
+}
@@ -45,6 +45,11 @@ public class DB2Environment extends AbstractDbEnvironment {
         return "jdbc:db2://" + dataSource + "/" + database;
     }
 
+    @Override
+    public String buildTruncateCommand(String tableName) {
+        return "truncate table " + tableName + " immediate";
+    }
+
     public Map<String, DbParameterAccessor> getAllColumns(String tableOrViewName)
             throws SQLException {
         String[] qualifiers = NameNormaliser.normaliseName(tableOrViewName)
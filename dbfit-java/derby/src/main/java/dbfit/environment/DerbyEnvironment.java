@@ -336,4 +336,13 @@ public class DerbyEnvironment extends AbstractDbEnvironment {
             }
         }
     }
+
+    /**
+     * Derby can only merge from tables, not from a row of parameters
+     */
+    @Override
+    public String buildUpsertCommand(String tableName, DbParameterAccessor[] keyColumns,
+            DbParameterAccessor[] valueColumns) {
+        return null;
+    }
 }
@@ -0,0 +1,124 @@
+package dbfit.environment;
+
+import dbfit.api.BulkLoader;
+import dbfit.api.DBEnvironment;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.Log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.CallableStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+/**
+ * Loads rows into an embedded Derby table by writing them to a temporary
+ * delimited file and importing it with SYSCS_UTIL.SYSCS_IMPORT_DATA.
+ *
+ * Derby commits the transaction when importing, so the loader is only used
+ * if the connection is in auto-commit mode; otherwise the rows are inserted
+ * with JDBC batches, which keeps them in the test transaction.
+ */
+public class DerbyImportLoader implements BulkLoader {
+    private final DBEnvironment environment;
+
+    public DerbyImportLoader(DBEnvironment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public boolean canLoad(String tableName, DbParameterAccessor[] columns) throws SQLException {
+        for (DbParameterAccessor column: columns) {
+            if (!column.hasDirection(Direction.INPUT)) {
+                return false;
+            }
+        }
+        return environment.getConnection().getAutoCommit();
+    }
+
+    /**
+     * Converts a table or column name to the name stored in the catalog:
+     * unquoted names are upper case, quoted names are kept as they are.
+     */
+    static String toCatalogName(String name) {
+        String trimmed = name.trim();
+        if (trimmed.length() > 1 && trimmed.startsWith("\"") && trimmed.endsWith("\"")) {
+            return trimmed.substring(1, trimmed.length() - 1);
+        }
+        return trimmed.toUpperCase();
+    }
+
+    @Override
+    public long load(String tableName, DbParameterAccessor[] columns, Iterator<Object[]> rows)
+            throws SQLException {
+        String[] nameParts = tableName.split("\\.");
+        StringBuilder columnNames = new StringBuilder();
+        for (DbParameterAccessor column: columns) {
+            columnNames.append(columnNames.length() > 0 ? "," : "").append(toCatalogName(column.getName()));
+        }
+
+        File dataFile = null;
+        try {
+            dataFile = File.createTempFile("dbfit", ".csv");
+            long count = writeRows(dataFile, columns, rows);
+
+            Log.log("Importing %d rows into %s from %s", count, tableName, dataFile);
+            try (CallableStatement statement = environment.getConnection().prepareCall(
+                        "call SYSCS_UTIL.SYSCS_IMPORT_DATA(?, ?, ?, null, ?, null, null, 'UTF-8', 0)")) {
+                statement.setString(1, nameParts.length == 2 ? toCatalogName(nameParts[0]) : null);
+                statement.setString(2, toCatalogName(nameParts[nameParts.length - 1]));
+                statement.setString(3, columnNames.toString());
+                statement.setString(4, dataFile.getAbsolutePath());
+                statement.execute();
+            }
+            return count;
+        } catch (IOException e) {
+            throw new SQLException("Cannot write rows of " + tableName + " to data file: " + e.getMessage(), e);
+        } finally {
+            if (dataFile != null && !dataFile.delete()) {
+                dataFile.deleteOnExit();
+            }
+        }
+    }
+
+    private static long writeRows(File dataFile, DbParameterAccessor[] columns, Iterator<Object[]> rows)
+            throws IOException, SQLException {
+        long count = 0;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(dataFile), StandardCharsets.UTF_8), 65536)) {
+            while (rows.hasNext()) {
+                Object[] values = rows.next();
+                for (int i = 0; i < columns.length; i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    out.write(formatValue(columns[i].toJdbcCompatibleValue(values[i])));
+                }
+                out.write('\n');
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Formats a value as a field of the data file. Nulls are empty fields,
+     * all other values are quoted so empty strings stay empty strings.
+     */
+    static String formatValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+
+        String text = (value instanceof BigDecimal)
+            ? ((BigDecimal) value).toPlainString() : value.toString();
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+}
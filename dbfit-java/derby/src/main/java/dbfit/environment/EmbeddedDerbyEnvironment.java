@@ -1,6 +1,7 @@
 package dbfit.environment;
 
 import dbfit.annotations.DatabaseEnvironment;
+import dbfit.api.BulkLoader;
 
 /**
  * Encapsulates support for the Derby database (also known as JavaDB). Operates
@@ -25,5 +26,13 @@ public class EmbeddedDerbyEnvironment extends DerbyEnvironment {
         return String.format("jdbc:derby:%s%s;create=true", dataSource,
                 database);
     }
-}
 
+    /**
+     * The import procedures read the data file in the database process,
+     * which is only the local one in embedded mode.
+     */
+    @Override
+    public BulkLoader getBulkLoader() {
+        return new DerbyImportLoader(this);
+    }
+}
@@ -0,0 +1,24 @@
+package dbfit.environment;
+
+import org.junit.Test;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.math.BigDecimal;
+
+public class DerbyImportLoaderTest {
+
+    @Test
+    public void shouldQuoteValuesAndLeaveNullsEmpty() {
+        assertThat(DerbyImportLoader.formatValue("say \"hi\", bye"), is("\"say \"\"hi\"\", bye\""));
+        assertThat(DerbyImportLoader.formatValue(""), is("\"\""));
+        assertThat(DerbyImportLoader.formatValue(null), is(""));
+        assertThat(DerbyImportLoader.formatValue(new BigDecimal("1E+2")), is("\"100\""));
+    }
+
+    @Test
+    public void shouldUseUpperCaseCatalogNamesUnlessQuoted() {
+        assertThat(DerbyImportLoader.toCatalogName("users"), is("USERS"));
+        assertThat(DerbyImportLoader.toCatalogName("\"Users\""), is("Users"));
+    }
+}
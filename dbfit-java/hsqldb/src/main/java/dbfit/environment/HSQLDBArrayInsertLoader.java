@@ -0,0 +1,97 @@
+package dbfit.environment;
+
+import dbfit.api.BulkLoader;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.Log;
+import dbfit.util.NameNormaliser;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts rows with a single INSERT ... SELECT statement per chunk of rows,
+ * binding the values of each column as one array which is turned back into
+ * rows with UNNEST. The arrays are cast to the declared column types, so
+ * values keep their precision. The statement runs in the current
+ * transaction, so the loaded rows are rolled back with the test.
+ */
+public class HSQLDBArrayInsertLoader implements BulkLoader {
+    static final int ROWS_PER_STATEMENT = 10000;
+
+    private final HSQLDBEnvironment environment;
+
+    public HSQLDBArrayInsertLoader(HSQLDBEnvironment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public boolean canLoad(String tableName, DbParameterAccessor[] columns) throws SQLException {
+        for (DbParameterAccessor column: columns) {
+            if (!column.hasDirection(Direction.INPUT)) {
+                return false;
+            }
+        }
+
+        Map<String, String> typeNames = environment.getColumnTypeNames(tableName);
+        for (DbParameterAccessor column: columns) {
+            if (!typeNames.containsKey(NameNormaliser.normaliseName(column.getName()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String buildInsertCommand(String tableName, DbParameterAccessor[] columns,
+            Map<String, String> typeNames) {
+        StringBuilder names = new StringBuilder();
+        StringBuilder arrays = new StringBuilder();
+        for (DbParameterAccessor column: columns) {
+            String comma = names.length() > 0 ? ", " : "";
+            names.append(comma).append(column.getName());
+            arrays.append(comma).append("cast(? as ")
+                .append(typeNames.get(NameNormaliser.normaliseName(column.getName())))
+                .append(" array)");
+        }
+        return "insert into " + tableName + " (" + names + ") select * from unnest(" + arrays + ")";
+    }
+
+    @Override
+    public long load(String tableName, DbParameterAccessor[] columns, Iterator<Object[]> rows)
+            throws SQLException {
+        String command = buildInsertCommand(tableName, columns, environment.getColumnTypeNames(tableName));
+        Log.log("Array insert: %s", command);
+
+        long count = 0;
+        List<Object[]> chunk = new ArrayList<Object[]>();
+        try (PreparedStatement statement = environment.getConnection().prepareStatement(command)) {
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                if (chunk.size() == ROWS_PER_STATEMENT) {
+                    count += insertChunk(statement, columns, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                count += insertChunk(statement, columns, chunk);
+            }
+        }
+        return count;
+    }
+
+    private static int insertChunk(PreparedStatement statement, DbParameterAccessor[] columns,
+            List<Object[]> chunk) throws SQLException {
+        for (int i = 0; i < columns.length; i++) {
+            Object[] elements = new Object[chunk.size()];
+            for (int row = 0; row < elements.length; row++) {
+                elements[row] = columns[i].toJdbcCompatibleValue(chunk.get(row)[i]);
+            }
+            statement.setObject(i + 1, elements);
+        }
+        return statement.executeUpdate();
+    }
+}
@@ -2,6 +2,7 @@ package dbfit.environment;
 
 import dbfit.annotations.DatabaseEnvironment;
 import dbfit.api.AbstractDbEnvironment;
+import dbfit.api.BulkLoader;
 import dbfit.fixture.StatementExecution;
 import dbfit.fixture.StatementExecutionCapturingResultSetValue;
 import dbfit.util.DbParameterAccessor;
@@ -78,6 +79,36 @@ public class HSQLDBEnvironment extends AbstractDbEnvironment {
         return readIntoParams(tableOrViewName, qry);
     }
 
+    /**
+     * Returns the declared types of the table columns, eg DECIMAL(10,2), by
+     * normalised column name.
+     */
+    Map<String, String> getColumnTypeNames(String tableName) throws SQLException {
+        String[] nameParts = tableName.toUpperCase().split("\\.");
+        String schemaName = nameParts.length == 2 ? nameParts[0] : getConnection().getSchema();
+        String objectName = nameParts.length == 2 ? nameParts[1] : nameParts[0];
+        String qry = "SELECT column_name, dtd_identifier"
+                   + "  FROM information_schema.columns"
+                   + " WHERE table_name = ?"
+                   + "   AND table_schema = ?";
+        try (PreparedStatement dc = getConnection().prepareStatement(qry)) {
+            dc.setString(1, objectName);
+            dc.setString(2, schemaName);
+            ResultSet rs = dc.executeQuery();
+            Map<String, String> typeNames = new HashMap<String, String>();
+            while (rs.next()) {
+                typeNames.put(NameNormaliser.normaliseName(rs.getString(1)), rs.getString(2));
+            }
+            rs.close();
+            return typeNames;
+        }
+    }
+
+    @Override
+    public BulkLoader getBulkLoader() {
+        return new HSQLDBArrayInsertLoader(this);
+    }
+
     private Map<String, DbParameterAccessor> readIntoParams(String objName, String query)
             throws SQLException {
         String[] nameParts = objName.toUpperCase().split("\\.");
@@ -0,0 +1,34 @@
+package dbfit.environment;
+
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.TypeTransformerFactory;
+
+import org.junit.Test;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+public class HSQLDBArrayInsertLoaderTest {
+
+    @Test
+    public void shouldUnnestArraysCastToDeclaredColumnTypes() {
+        DbParameterAccessor[] columns = {
+            new DbParameterAccessor("price", Direction.INPUT, Types.DECIMAL, BigDecimal.class, 0,
+                    new TypeTransformerFactory()),
+            new DbParameterAccessor("name", Direction.INPUT, Types.VARCHAR, String.class, 1,
+                    new TypeTransformerFactory())
+        };
+        Map<String, String> typeNames = new HashMap<String, String>();
+        typeNames.put("price", "DECIMAL(10,2)");
+        typeNames.put("name", "VARCHAR(20)");
+
+        assertThat(HSQLDBArrayInsertLoader.buildInsertCommand("items", columns, typeNames),
+                is("insert into items (price, name) select * from unnest("
+                    + "cast(? as DECIMAL(10,2) array), cast(? as VARCHAR(20) array))"));
+    }
+}
@@ -296,4 +296,14 @@ public class InformixEnvironment extends AbstractDbEnvironment {
     public StatementExecution createFunctionStatementExecution(PreparedStatement statement) {
         return new StatementExecutionCapturingResultSetValue(statement);
     }
+
+    /**
+     * Informix can only merge from tables and queries, which cannot select
+     * untyped parameters
+     */
+    @Override
+    public String buildUpsertCommand(String tableName, DbParameterAccessor[] keyColumns,
+            DbParameterAccessor[] valueColumns) {
+        return null;
+    }
 }
@@ -2,6 +2,8 @@ package dbfit.environment;
 
 import dbfit.annotations.DatabaseEnvironment;
 import dbfit.api.AbstractDbEnvironment;
+import dbfit.fixture.StatementExecution;
+import dbfit.util.DbAutoGeneratedKeyAccessor;
 import dbfit.util.DbParameterAccessor;
 import dbfit.util.Direction;
 import dbfit.util.NameNormaliser;
@@ -232,5 +234,73 @@ public class MySqlEnvironment extends AbstractDbEnvironment {
 
         return allParams;
     }
-}
 
+    /**
+     * Inserts with ON DUPLICATE KEY UPDATE, which applies to any unique key
+     * of the table, not only to the key columns.
+     */
+    @Override
+    public String buildUpsertCommand(String tableName, DbParameterAccessor[] keyColumns,
+            DbParameterAccessor[] valueColumns) {
+        StringBuilder sb = new StringBuilder("insert into ").append(tableName).append(" (");
+        appendColumnNames(sb, keyColumns, valueColumns, "");
+        sb.append(") values (");
+        appendParameters(sb, keyColumns.length + valueColumns.length);
+        sb.append(") on duplicate key update ");
+        if (valueColumns.length == 0) {
+            return sb.append(keyColumns[0].getName()).append(" = ")
+                .append(keyColumns[0].getName()).toString();
+        }
+        for (int i = 0; i < valueColumns.length; i++) {
+            sb.append(i > 0 ? ", " : "").append(valueColumns[i].getName())
+                .append(" = values(").append(valueColumns[i].getName()).append(")");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * ON DUPLICATE KEY UPDATE counts 1 for an inserted row and 2 for an
+     * updated one. A row which already had the values counts 0 if the
+     * connection sets useAffectedRows, but 1 by default, so inserted rows can
+     * only be told apart with that property.
+     */
+    @Override
+    public boolean[] getUpsertInserts(StatementExecution statement, int[] updateCounts)
+            throws SQLException {
+        if (!getConnection().unwrap(com.mysql.jdbc.Connection.class).getUseAffectedRows()) {
+            return null;
+        }
+        return getInsertsFromUpdateCounts(updateCounts);
+    }
+
+    static boolean[] getInsertsFromUpdateCounts(int[] updateCounts) {
+        boolean[] inserts = new boolean[updateCounts.length];
+        for (int i = 0; i < inserts.length; i++) {
+            if (updateCounts[i] < 0 || updateCounts[i] > 2) {
+                return null;
+            }
+            inserts[i] = updateCounts[i] == 1;
+        }
+        return inserts;
+    }
+
+    /**
+     * The driver returns the keys of all rows of a batch.
+     */
+    @Override
+    public DbParameterAccessor createAutogeneratedPrimaryKeyAccessor(
+            DbParameterAccessor template) {
+        return new DbAutoGeneratedKeyAccessor(template, true);
+    }
+
+    /**
+     * Lists the other sessions which run a statement, with the state they
+     * are in, eg waiting for a lock.
+     */
+    @Override
+    public String buildSessionDiagnosticsQuery() {
+        return "select id, user, command, time, state, info "
+            + "from information_schema.processlist "
+            + "where command <> 'Sleep' and id <> connection_id()";
+    }
+}
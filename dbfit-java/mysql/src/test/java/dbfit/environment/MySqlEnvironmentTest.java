@@ -0,0 +1,23 @@
+package dbfit.environment;
+
+import org.junit.Test;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.sql.Statement;
+
+public class MySqlEnvironmentTest {
+
+    @Test
+    public void shouldTellInsertsOfUpsertFromAffectedRows() {
+        assertThat(MySqlEnvironment.getInsertsFromUpdateCounts(new int[] { 1, 2, 0 }),
+                is(new boolean[] { true, false, false }));
+    }
+
+    @Test
+    public void shouldNotTellInsertsOfUpsertFromRewrittenBatch() {
+        assertThat(MySqlEnvironment.getInsertsFromUpdateCounts(new int[] { Statement.SUCCESS_NO_INFO }),
+                is(nullValue()));
+    }
+}
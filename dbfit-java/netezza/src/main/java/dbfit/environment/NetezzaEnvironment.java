@@ -2,6 +2,7 @@ package dbfit.environment;
 
 import dbfit.annotations.DatabaseEnvironment;
 import dbfit.api.AbstractDbEnvironment;
+import dbfit.api.BulkLoader;
 import dbfit.util.DbParameterAccessor;
 import dbfit.util.Direction;
 import dbfit.util.NameNormaliser;
@@ -56,6 +57,10 @@ public class NetezzaEnvironment extends AbstractDbEnvironment {
             throws SQLException {
         String[] qualifiers = NameNormaliser.normaliseName(tableOrViewName)
                 .split("\\.");
+        return readIntoParams(qualifiers, buildColumnsQuery(qualifiers));
+    }
+
+    private static String buildColumnsQuery(String[] qualifiers) {
         String qry = " select ATTNAME, FORMAT_TYPE, ATTLEN from _v_relation_column where ";
 
         if (qualifiers.length == 2) {
@@ -64,7 +69,34 @@ public class NetezzaEnvironment extends AbstractDbEnvironment {
             qry += " (lower(name)=?)";
         }
         qry += " order by attnum";
-        return readIntoParams(qualifiers, qry);
+        return qry;
+    }
+
+    /**
+     * Returns the type names of the table columns, eg VARCHAR(20), by
+     * normalised column name.
+     */
+    Map<String, String> getColumnTypeNames(String tableOrViewName)
+            throws SQLException {
+        String[] qualifiers = NameNormaliser.normaliseName(tableOrViewName)
+                .split("\\.");
+        try (PreparedStatement dc = currentConnection.prepareStatement(buildColumnsQuery(qualifiers))) {
+            for (int i = 0; i < qualifiers.length; i++) {
+                dc.setString(i + 1, qualifiers[i]);
+            }
+            Map<String, String> typeNames = new HashMap<String, String>();
+            try (ResultSet rs = dc.executeQuery()) {
+                while (rs.next()) {
+                    typeNames.put(NameNormaliser.normaliseName(rs.getString(1)), rs.getString(2));
+                }
+            }
+            return typeNames;
+        }
+    }
+
+    @Override
+    public BulkLoader getBulkLoader() {
+        return new NetezzaExternalTableLoader(this);
     }
 
     private Map<String, DbParameterAccessor> readIntoParams(
@@ -0,0 +1,167 @@
+package dbfit.environment;
+
+import dbfit.api.BulkLoader;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.Log;
+import dbfit.util.NameNormaliser;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Loads rows into a Netezza table through a transient external table: the
+ * rows are written to a local delimited file, which the JDBC driver sends
+ * to the appliance while running a single INSERT ... SELECT FROM EXTERNAL
+ * statement with REMOTESOURCE 'JDBC'. The insert runs in the current
+ * transaction, so the loaded rows are rolled back with the test.
+ *
+ * The file is written in LATIN9, the encoding of CHAR and VARCHAR columns,
+ * so tables with NCHAR or NVARCHAR columns are inserted with JDBC batches
+ * instead. Null values are written as an unescaped \N, which values cannot
+ * produce as their escape characters are escaped, so that empty strings
+ * are loaded as they are.
+ */
+public class NetezzaExternalTableLoader implements BulkLoader {
+    static final char DELIMITER = '|';
+    static final char ESCAPE = '\\';
+    static final String NULL_VALUE = ESCAPE + "N";
+    private static final Charset LATIN9 = Charset.forName("ISO-8859-15");
+
+    private final NetezzaEnvironment environment;
+
+    public NetezzaExternalTableLoader(NetezzaEnvironment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public boolean canLoad(String tableName, DbParameterAccessor[] columns) throws SQLException {
+        for (DbParameterAccessor column: columns) {
+            if (!column.hasDirection(Direction.INPUT)) {
+                return false;
+            }
+        }
+
+        Map<String, String> typeNames = environment.getColumnTypeNames(tableName);
+        for (DbParameterAccessor column: columns) {
+            String typeName = typeNames.get(NameNormaliser.normaliseName(column.getName()));
+            if (typeName == null || isNational(typeName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNational(String typeName) {
+        String name = typeName.trim().toUpperCase();
+        return name.startsWith("N") && !name.startsWith("NUMERIC");
+    }
+
+    static String buildInsertCommand(String tableName, DbParameterAccessor[] columns,
+            Map<String, String> typeNames, String dataFile) throws SQLException {
+        StringBuilder names = new StringBuilder();
+        StringBuilder definitions = new StringBuilder();
+        for (DbParameterAccessor column: columns) {
+            String typeName = typeNames.get(NameNormaliser.normaliseName(column.getName()));
+            if (typeName == null) {
+                throw new SQLException("Cannot find type of column " + column.getName() + " of " + tableName);
+            }
+            String comma = names.length() > 0 ? ", " : "";
+            names.append(comma).append(column.getName());
+            definitions.append(comma).append(column.getName()).append(" ").append(typeName);
+        }
+
+        return "insert into " + tableName + " (" + names + ")"
+            + " select * from external '" + dataFile.replace("'", "''") + "'"
+            + " (" + definitions + ")"
+            + " using (remotesource 'JDBC' delimiter '" + DELIMITER + "' escapechar '" + ESCAPE + "'"
+            + " nullvalue '" + NULL_VALUE + "' boolstyle 'TRUE_FALSE' encoding 'internal')";
+    }
+
+    @Override
+    public long load(String tableName, DbParameterAccessor[] columns, Iterator<Object[]> rows)
+            throws SQLException {
+        File dataFile = null;
+        try {
+            dataFile = File.createTempFile("dbfit-" + NameNormaliser.normaliseName(tableName), ".dat");
+            long count = writeRows(dataFile, columns, rows);
+
+            String command = buildInsertCommand(tableName, columns,
+                    environment.getColumnTypeNames(tableName), dataFile.getAbsolutePath());
+            Log.log("External table insert: %s", command);
+            try (Statement statement = environment.getConnection().createStatement()) {
+                statement.executeUpdate(command);
+            }
+            return count;
+        } catch (IOException e) {
+            throw new SQLException("Cannot write rows of " + tableName + " to data file: " + e.getMessage(), e);
+        } finally {
+            if (dataFile != null && !dataFile.delete()) {
+                dataFile.deleteOnExit();
+            }
+        }
+    }
+
+    private static long writeRows(File dataFile, DbParameterAccessor[] columns, Iterator<Object[]> rows)
+            throws IOException, SQLException {
+        long count = 0;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(dataFile), LATIN9), 65536)) {
+            while (rows.hasNext()) {
+                Object[] values = rows.next();
+                for (int i = 0; i < columns.length; i++) {
+                    if (i > 0) {
+                        out.write(DELIMITER);
+                    }
+                    out.write(formatValue(columns[i].toJdbcCompatibleValue(values[i])));
+                }
+                out.write('\n');
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Formats a value as a field of the data file, escaping delimiters, line
+     * breaks and escape characters.
+     */
+    static String formatValue(Object value) {
+        if (value == null) {
+            return NULL_VALUE;
+        }
+
+        String text;
+        if (value instanceof Timestamp) {
+            Timestamp timestamp = (Timestamp) value;
+            text = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(timestamp)
+                + String.format(".%06d", timestamp.getNanos() / 1000);
+        } else if (value instanceof BigDecimal) {
+            text = ((BigDecimal) value).toPlainString();
+        } else {
+            text = value.toString();
+        }
+
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == DELIMITER || c == ESCAPE || c == '\n' || c == '\r') {
+                sb.append(ESCAPE);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
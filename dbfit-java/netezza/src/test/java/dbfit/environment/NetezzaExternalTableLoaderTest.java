@@ -0,0 +1,54 @@
+package dbfit.environment;
+
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.TypeTransformerFactory;
+
+import org.junit.Test;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+public class NetezzaExternalTableLoaderTest {
+
+    @Test
+    public void shouldEscapeDelimitersAndLineBreaks() {
+        assertThat(NetezzaExternalTableLoader.formatValue("a|b\\c\nd"), is("a\\|b\\\\c\\\nd"));
+    }
+
+    @Test
+    public void shouldWriteNullAsMarkerWhichValuesCannotProduce() {
+        assertThat(NetezzaExternalTableLoader.formatValue(null), is("\\N"));
+        assertThat(NetezzaExternalTableLoader.formatValue("\\N"), is("\\\\N"));
+        assertThat(NetezzaExternalTableLoader.formatValue(""), is(""));
+    }
+
+    @Test
+    public void shouldFormatNumbersAndTimestampsAsNetezzaText() {
+        assertThat(NetezzaExternalTableLoader.formatValue(new BigDecimal("1E+3")), is("1000"));
+        assertThat(NetezzaExternalTableLoader.formatValue(Timestamp.valueOf("2020-01-02 03:04:05.123456789")),
+                is("2020-01-02 03:04:05.123456"));
+    }
+
+    @Test
+    public void shouldDefineExternalTableWithColumnTypes() throws Exception {
+        DbParameterAccessor[] columns = {
+            new DbParameterAccessor("name", Direction.INPUT, Types.VARCHAR, String.class, 0,
+                    new TypeTransformerFactory())
+        };
+        Map<String, String> typeNames = new HashMap<String, String>();
+        typeNames.put("name", "CHARACTER VARYING(20)");
+
+        String command = NetezzaExternalTableLoader.buildInsertCommand("users", columns, typeNames, "/tmp/o'b.dat");
+
+        assertThat(command, containsString("insert into users (name) select * from external '/tmp/o''b.dat'"
+                    + " (name CHARACTER VARYING(20)) using (remotesource 'JDBC'"));
+        assertThat(command, containsString("nullvalue '\\N'"));
+    }
+}
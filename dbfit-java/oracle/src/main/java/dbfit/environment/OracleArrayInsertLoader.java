@@ -0,0 +1,213 @@
+package dbfit.environment;
+
+import dbfit.api.DBEnvironment;
+import dbfit.api.ReturningBulkLoader;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.Log;
+import dbfit.util.OracleDbParameterAccessor;
+import oracle.jdbc.OracleConnection;
+import oracle.jdbc.OracleTypes;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Inserts rows with a single PL/SQL block per chunk of rows: the values of
+ * each column are bound as one collection and inserted with FORALL, and
+ * the values of output columns, eg keys from sequences or identity columns,
+ * are returned with RETURNING BULK COLLECT INTO as collections as well.
+ *
+ * The collection types are the SYS.ODCI*LIST varrays, which are available
+ * in every database, so only NUMBER, character and DATE columns can be
+ * loaded this way. A varray holds at most 32767 elements, so larger tables
+ * take one round trip per 32767 rows.
+ */
+public class OracleArrayInsertLoader implements ReturningBulkLoader {
+    static final int MAX_ROWS_PER_CALL = 32767;
+
+    private static final List<String> numberTypes = Arrays.asList(
+            "BINARY_INTEGER", "NUMBER", "FLOAT");
+    private static final List<String> stringTypes = Arrays.asList(
+            "VARCHAR", "VARCHAR2", "CHAR");
+
+    private final DBEnvironment environment;
+
+    public OracleArrayInsertLoader(DBEnvironment environment) {
+        this.environment = environment;
+    }
+
+    static String getCollectionType(DbParameterAccessor column) {
+        if (!(column instanceof OracleDbParameterAccessor)) {
+            return null;
+        }
+
+        String typeName = ((OracleDbParameterAccessor) column).getOriginalTypeName();
+        if (numberTypes.contains(typeName)) {
+            return "SYS.ODCINUMBERLIST";
+        }
+        if (stringTypes.contains(typeName)) {
+            return "SYS.ODCIVARCHAR2LIST";
+        }
+        if ("DATE".equals(typeName)) {
+            return "SYS.ODCIDATELIST";
+        }
+        return null;
+    }
+
+    @Override
+    public boolean canLoad(String tableName, DbParameterAccessor[] columns) {
+        boolean hasInputs = false;
+        for (DbParameterAccessor column: columns) {
+            if (getCollectionType(column) == null) {
+                return false;
+            }
+            if (column.hasDirection(Direction.INPUT)) {
+                hasInputs = true;
+            } else if (!column.hasDirection(Direction.OUTPUT)) {
+                return false;
+            }
+        }
+        return hasInputs;
+    }
+
+    /**
+     * Builds the block, eg:
+     * <pre>
+     * declare
+     *   c1 SYS.ODCIVARCHAR2LIST := ?;
+     *   r0 SYS.ODCINUMBERLIST;
+     * begin
+     *   forall i in 1 .. c1.count
+     *     insert into users (name) values (c1(i))
+     *     returning id bulk collect into r0;
+     *   ? := r0;
+     * end;
+     * </pre>
+     * Input collections are bound first, followed by the output collections.
+     */
+    static String buildInsertBlock(String tableName, DbParameterAccessor[] columns) {
+        StringBuilder declare = new StringBuilder("declare\n");
+        StringBuilder names = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        StringBuilder retNames = new StringBuilder();
+        StringBuilder retValues = new StringBuilder();
+        StringBuilder assign = new StringBuilder();
+        String firstInput = null;
+
+        for (int i = 0; i < columns.length; i++) {
+            String type = getCollectionType(columns[i]);
+            if (columns[i].hasDirection(Direction.INPUT)) {
+                String var = "c" + i;
+                if (firstInput == null) {
+                    firstInput = var;
+                }
+                declare.append("  ").append(var).append(" ").append(type).append(" := ?;\n");
+                names.append(names.length() > 0 ? ", " : "").append(columns[i].getName());
+                values.append(values.length() > 0 ? ", " : "").append(var).append("(i)");
+            } else {
+                String var = "r" + i;
+                retNames.append(retNames.length() > 0 ? ", " : "").append(columns[i].getName());
+                retValues.append(retValues.length() > 0 ? ", " : "").append(var);
+                assign.append("  ? := ").append(var).append(";\n");
+            }
+        }
+        // outputs are declared after all inputs so that binds are in column order
+        for (int i = 0; i < columns.length; i++) {
+            if (!columns[i].hasDirection(Direction.INPUT)) {
+                declare.append("  r").append(i).append(" ").append(getCollectionType(columns[i])).append(";\n");
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(declare);
+        sb.append("begin\n");
+        sb.append("  forall i in 1 .. ").append(firstInput).append(".count\n");
+        sb.append("    insert into ").append(tableName).append(" (").append(names)
+          .append(") values (").append(values).append(")");
+        if (retNames.length() > 0) {
+            sb.append("\n    returning ").append(retNames)
+              .append(" bulk collect into ").append(retValues);
+        }
+        sb.append(";\n").append(assign).append("end;");
+        return sb.toString();
+    }
+
+    @Override
+    public long load(String tableName, DbParameterAccessor[] columns, Iterator<Object[]> rows)
+            throws SQLException {
+        return loadReturning(tableName, columns, rows).size();
+    }
+
+    @Override
+    public List<Object[]> loadReturning(String tableName, DbParameterAccessor[] columns,
+            Iterator<Object[]> rows) throws SQLException {
+        String block = buildInsertBlock(tableName, columns);
+        Log.log("Array insert: %s", block);
+
+        Connection connection = environment.getConnection();
+        OracleConnection oracleConnection = connection.unwrap(OracleConnection.class);
+        List<Object[]> outputs = new ArrayList<Object[]>();
+        List<Object[]> chunk = new ArrayList<Object[]>();
+        try (CallableStatement statement = connection.prepareCall(block)) {
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                if (chunk.size() == MAX_ROWS_PER_CALL) {
+                    outputs.addAll(insertChunk(oracleConnection, statement, columns, chunk));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                outputs.addAll(insertChunk(oracleConnection, statement, columns, chunk));
+            }
+        }
+        return outputs;
+    }
+
+    private static List<Object[]> insertChunk(OracleConnection connection, CallableStatement statement,
+            DbParameterAccessor[] columns, List<Object[]> chunk) throws SQLException {
+        int parameter = 1;
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].hasDirection(Direction.INPUT)) {
+                Object[] elements = new Object[chunk.size()];
+                for (int row = 0; row < elements.length; row++) {
+                    elements[row] = columns[i].toJdbcCompatibleValue(chunk.get(row)[i]);
+                }
+                statement.setArray(parameter++,
+                        connection.createARRAY(getCollectionType(columns[i]), elements));
+            }
+        }
+
+        int firstOutput = parameter;
+        for (int i = 0; i < columns.length; i++) {
+            if (!columns[i].hasDirection(Direction.INPUT)) {
+                statement.registerOutParameter(parameter++, OracleTypes.ARRAY, getCollectionType(columns[i]));
+            }
+        }
+
+        statement.execute();
+
+        List<Object[]> outputs = new ArrayList<Object[]>(chunk.size());
+        for (int row = 0; row < chunk.size(); row++) {
+            outputs.add(new Object[columns.length]);
+        }
+        parameter = firstOutput;
+        for (int i = 0; i < columns.length; i++) {
+            if (!columns[i].hasDirection(Direction.INPUT)) {
+                Object[] values = (Object[]) statement.getArray(parameter++).getArray();
+                if (values.length != chunk.size()) {
+                    throw new SQLException("Expected " + chunk.size() + " values of "
+                            + columns[i].getName() + " to be returned, got " + values.length);
+                }
+                for (int row = 0; row < values.length; row++) {
+                    outputs.get(row)[i] = values[row];
+                }
+            }
+        }
+        return outputs;
+    }
+}
@@ -2,6 +2,7 @@ package dbfit.environment;
 
 import dbfit.annotations.DatabaseEnvironment;
 import dbfit.api.AbstractDbEnvironment;
+import dbfit.api.BulkLoader;
 import dbfit.api.DbStoredProcedureCall;
 import dbfit.util.*;
 import dbfit.util.OracleDbParameterAccessor;
@@ -550,8 +551,43 @@ public class OracleEnvironment extends AbstractDbEnvironment {
                 buildInsertCommand(tableName, accessors));
     }
 
+    @Override
+    public BulkLoader getBulkLoader() {
+        return new OracleArrayInsertLoader(this);
+    }
+
     @Override
     public DbStoredProcedureCall newStoredProcedureCall(String name, DbParameterAccessor[] accessors) {
         return new OracleStoredProcedureCall(this, name, accessors);
     }
+
+    @Override
+    public String buildUpsertCommand(String tableName, DbParameterAccessor[] keyColumns,
+            DbParameterAccessor[] valueColumns) {
+        StringBuilder sb = new StringBuilder("merge into ").append(tableName)
+            .append(" t using (select ");
+        String comma = "";
+        for (DbParameterAccessor[] columns : new DbParameterAccessor[][] { keyColumns, valueColumns }) {
+            for (DbParameterAccessor column : columns) {
+                sb.append(comma).append("? ").append(column.getName());
+                comma = ", ";
+            }
+        }
+        sb.append(" from dual) s");
+        appendMergeClauses(sb, keyColumns, valueColumns);
+        return sb.toString();
+    }
+
+    /**
+     * Lists the other active user sessions with the session blocking them
+     * and the event they wait for. Requires access to v$session.
+     */
+    @Override
+    public String buildSessionDiagnosticsQuery() {
+        return "select sid, serial#, username, status, event, blocking_session, "
+            + "seconds_in_wait, sql_id "
+            + "from v$session "
+            + "where type = 'USER' and status = 'ACTIVE' "
+            + "and sid <> sys_context('USERENV', 'SID')";
+    }
 }
@@ -0,0 +1,99 @@
+package dbfit.environment;
+
+import dbfit.api.DBEnvironment;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.OracleDbParameterAccessor;
+import dbfit.util.TypeTransformerFactory;
+import oracle.jdbc.OracleConnection;
+import oracle.jdbc.OracleTypes;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.CallableStatement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OracleArrayInsertLoaderTest {
+
+    @Mock private DBEnvironment environment;
+    @Mock private OracleConnection connection;
+    @Mock private CallableStatement statement;
+    @Mock private Array returnedIds;
+
+    private OracleArrayInsertLoader loader;
+
+    private static DbParameterAccessor column(String name, Direction direction, String typeName) {
+        return new OracleDbParameterAccessor(name, direction, Types.VARCHAR, String.class, 0,
+                new TypeTransformerFactory(), typeName, null);
+    }
+
+    private final DbParameterAccessor[] columns = {
+        column("id", Direction.OUTPUT, "NUMBER"),
+        column("name", Direction.INPUT, "VARCHAR2")
+    };
+
+    @Before
+    public void prepare() throws Exception {
+        loader = new OracleArrayInsertLoader(environment);
+    }
+
+    @Test
+    public void shouldBindColumnsAsCollectionsAndReturnIntoCollections() {
+        String block = OracleArrayInsertLoader.buildInsertBlock("users", columns);
+
+        assertThat(block, is("declare\n"
+                    + "  c1 SYS.ODCIVARCHAR2LIST := ?;\n"
+                    + "  r0 SYS.ODCINUMBERLIST;\n"
+                    + "begin\n"
+                    + "  forall i in 1 .. c1.count\n"
+                    + "    insert into users (name) values (c1(i))\n"
+                    + "    returning id bulk collect into r0;\n"
+                    + "  ? := r0;\n"
+                    + "end;"));
+    }
+
+    @Test
+    public void shouldNotLoadColumnsWithoutBuiltInCollectionType() {
+        assertThat(loader.canLoad("users", columns), is(true));
+        assertThat(loader.canLoad("users", new DbParameterAccessor[] {
+                    column("doc", Direction.INPUT, "CLOB") }), is(false));
+        assertThat(loader.canLoad("users", new DbParameterAccessor[] {
+                    column("id", Direction.OUTPUT, "NUMBER") }), is(false));
+    }
+
+    @Test
+    public void shouldInsertAllRowsInOneCallAndReturnGeneratedKeys() throws Exception {
+        when(environment.getConnection()).thenReturn(connection);
+        when(connection.unwrap(OracleConnection.class)).thenReturn(connection);
+        when(connection.prepareCall(anyString())).thenReturn(statement);
+        when(statement.getArray(2)).thenReturn(returnedIds);
+        when(returnedIds.getArray()).thenReturn(new Object[] { new BigDecimal(7), new BigDecimal(8) });
+
+        List<Object[]> outputs = loader.loadReturning("users", columns, Arrays.asList(
+                    new Object[] { null, "arthur" }, new Object[] { null, "ford" }).iterator());
+
+        ArgumentCaptor<Object> names = ArgumentCaptor.forClass(Object.class);
+        verify(connection).createARRAY(eq("SYS.ODCIVARCHAR2LIST"), names.capture());
+        assertThat((Object[]) names.getValue(), arrayContaining((Object) "arthur", "ford"));
+        verify(statement).registerOutParameter(2, OracleTypes.ARRAY, "SYS.ODCINUMBERLIST");
+        verify(statement, times(1)).execute();
+        assertThat(outputs.size(), is(2));
+        assertThat(outputs.get(1)[0], is((Object) new BigDecimal(8)));
+    }
+}
@@ -2,7 +2,13 @@ package dbfit.environment;
 
 import dbfit.annotations.DatabaseEnvironment;
 import dbfit.api.AbstractDbEnvironment;
+import dbfit.api.BulkExtractor;
+import dbfit.api.BulkLoader;
 import dbfit.environment.postgres.NameNormaliserPostgres;
+import dbfit.environment.postgres.PostgresCopyExtractor;
+import dbfit.environment.postgres.PostgresCopyLoader;
+import dbfit.fixture.StatementExecution;
+import dbfit.util.DbAutoGeneratedKeyAccessor;
 import dbfit.util.DbParameterAccessor;
 import dbfit.util.Direction;
 import dbfit.util.NameNormaliser;
@@ -14,6 +20,7 @@ import java.math.BigDecimal;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.*;
 import java.util.regex.Pattern;
 
@@ -31,6 +38,60 @@ public class PostgresEnvironment extends AbstractDbEnvironment {
         return "jdbc:postgresql://" + dataSource + "/" + database;
     }
 
+    @Override
+    public BulkLoader getBulkLoader() {
+        return new PostgresCopyLoader(this);
+    }
+
+    @Override
+    public BulkExtractor getBulkExtractor() {
+        return new PostgresCopyExtractor(this);
+    }
+
+    /**
+     * Foreign keys are enforced by system triggers, which are disabled with
+     * all other triggers of the table. This requires superuser rights.
+     */
+    @Override
+    public String buildDisableConstraintsCommand(String tableName) {
+        return "alter table " + tableName + " disable trigger all";
+    }
+
+    @Override
+    public String buildEnableConstraintsCommand(String tableName) {
+        return "alter table " + tableName + " enable trigger all";
+    }
+
+    /**
+     * Checks the column against an array parameter, which is bound as text
+     * values and cast to an array of the column type.
+     */
+    @Override
+    public String buildArrayInclusionPredicate(DbParameterAccessor column) {
+        String arrayType = getArrayElementType(column.getSqlType());
+        if (arrayType == null) {
+            return null;
+        }
+        return column.getName() + " = any(cast(? as " + arrayType + "[]))";
+    }
+
+    private static String getArrayElementType(int sqlType) {
+        switch (sqlType) {
+            case java.sql.Types.SMALLINT: return "smallint";
+            case java.sql.Types.INTEGER: return "integer";
+            case java.sql.Types.BIGINT: return "bigint";
+            case java.sql.Types.NUMERIC:
+            case java.sql.Types.DECIMAL: return "numeric";
+            case java.sql.Types.DOUBLE: return "double precision";
+            case java.sql.Types.REAL: return "real";
+            case java.sql.Types.CHAR:
+            case java.sql.Types.VARCHAR: return "varchar";
+            case java.sql.Types.DATE: return "date";
+            case java.sql.Types.TIMESTAMP: return "timestamp";
+            default: return null;
+        }
+    }
+
     private static String paramNamePattern = "_:([A-Za-z0-9_]+)";
     private static Pattern paramsNames = Pattern.compile(paramNamePattern);
 
@@ -305,4 +366,98 @@ public class PostgresEnvironment extends AbstractDbEnvironment {
             }
         }
     }
+
+    /**
+     * Inserts with ON CONFLICT on the key columns, which need a unique
+     * constraint or index. Updating upserts return whether they inserted the
+     * row: only a row version which has not replaced another one has no xmax.
+     */
+    @Override
+    public String buildUpsertCommand(String tableName, DbParameterAccessor[] keyColumns,
+            DbParameterAccessor[] valueColumns) {
+        StringBuilder sb = new StringBuilder("insert into ").append(tableName).append(" (");
+        appendColumnNames(sb, keyColumns, valueColumns, "");
+        sb.append(") values (");
+        appendParameters(sb, keyColumns.length + valueColumns.length);
+        sb.append(") on conflict (");
+        appendColumnNames(sb, keyColumns, new DbParameterAccessor[0], "");
+        sb.append(")");
+        if (valueColumns.length == 0) {
+            return sb.append(" do nothing").toString();
+        }
+        sb.append(" do update set ");
+        for (int i = 0; i < valueColumns.length; i++) {
+            sb.append(i > 0 ? ", " : "").append(valueColumns[i].getName())
+                .append(" = excluded.").append(valueColumns[i].getName());
+        }
+        return sb.append(" returning (xmax = 0) as inserted").toString();
+    }
+
+    /**
+     * The driver keeps the RETURNING clause of the command and returns its
+     * values for all rows of a batch.
+     */
+    @Override
+    public PreparedStatement buildUpsertPreparedStatement(String tableName,
+            DbParameterAccessor[] keyColumns, DbParameterAccessor[] valueColumns)
+            throws SQLException {
+        String command = buildUpsertCommand(tableName, keyColumns, valueColumns);
+        if (valueColumns.length == 0) {
+            return getConnection().prepareStatement(command);
+        }
+        return getConnection().prepareStatement(command, Statement.RETURN_GENERATED_KEYS);
+    }
+
+    /**
+     * Upserts doing nothing on conflict return no rows, and count 0 for the
+     * existing rows instead.
+     */
+    @Override
+    public boolean[] getUpsertInserts(StatementExecution statement, int[] updateCounts)
+            throws SQLException {
+        List<Object> returned = statement.getGeneratedKeys(Boolean.class);
+        if (returned.isEmpty()) {
+            return getInsertsFromUpdateCounts(updateCounts);
+        }
+        if (returned.size() != updateCounts.length) {
+            return null;
+        }
+        boolean[] inserts = new boolean[updateCounts.length];
+        for (int i = 0; i < inserts.length; i++) {
+            inserts[i] = Boolean.TRUE.equals(returned.get(i));
+        }
+        return inserts;
+    }
+
+    static boolean[] getInsertsFromUpdateCounts(int[] updateCounts) {
+        boolean[] inserts = new boolean[updateCounts.length];
+        for (int i = 0; i < inserts.length; i++) {
+            if (updateCounts[i] != 0 && updateCounts[i] != 1) {
+                return null;
+            }
+            inserts[i] = updateCounts[i] == 1;
+        }
+        return inserts;
+    }
+
+    /**
+     * The driver appends RETURNING to inserts with generated keys, and
+     * returns the keys of all rows of a batch.
+     */
+    @Override
+    public DbParameterAccessor createAutogeneratedPrimaryKeyAccessor(
+            DbParameterAccessor template) {
+        return new DbAutoGeneratedKeyAccessor(template, true);
+    }
+
+    /**
+     * Lists the other active sessions with the sessions blocking them.
+     */
+    @Override
+    public String buildSessionDiagnosticsQuery() {
+        return "select pid, usename, state, wait_event_type, wait_event, "
+            + "pg_blocking_pids(pid) as blocked_by, now() - query_start as running_for, query "
+            + "from pg_stat_activity "
+            + "where state <> 'idle' and pid <> pg_backend_pid()";
+    }
 }
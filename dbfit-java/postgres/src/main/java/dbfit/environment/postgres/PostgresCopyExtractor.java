@@ -0,0 +1,254 @@
+package dbfit.environment.postgres;
+
+import dbfit.api.BulkExtractor;
+import dbfit.api.DBEnvironment;
+import dbfit.util.DataColumn;
+import dbfit.util.DataRow;
+import dbfit.util.DataTable;
+
+import static dbfit.util.NameNormaliser.normaliseName;
+import static dbfit.util.ValueNormaliser.normaliseValue;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGStatement;
+import org.postgresql.copy.PGCopyInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+
+/**
+ * Reads query results with COPY (query) TO STDOUT in binary format, which
+ * the server streams without the per row overhead of a JDBC fetch. The
+ * fields are decoded into the values the driver returns for their types;
+ * queries with columns of other types are fetched with JDBC instead.
+ */
+public class PostgresCopyExtractor implements BulkExtractor {
+    private static final byte[] SIGNATURE = {
+        'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0 };
+    private static final long POSTGRES_EPOCH_MILLIS = 946684800000L;
+    private static final long MILLIS_PER_DAY = 86400000L;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    static final Set<String> SUPPORTED_TYPES = new HashSet<String>(Arrays.asList(
+            "int2", "int4", "int8", "serial", "bigserial", "float4", "float8", "numeric",
+            "bool", "text", "varchar", "bpchar", "bytea", "date", "timestamp", "timestamptz"));
+
+    private final DBEnvironment environment;
+
+    public PostgresCopyExtractor(DBEnvironment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public boolean canExtract(String query) throws SQLException {
+        try (PreparedStatement statement = environment.getConnection().prepareStatement(query)) {
+            ResultSetMetaData md = statement.getMetaData();
+            if (md == null) {
+                return false;
+            }
+            for (int i = 1; i <= md.getColumnCount(); i++) {
+                if (!SUPPORTED_TYPES.contains(md.getColumnTypeName(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    static String buildCopyCommand(String query) {
+        String select = query.trim();
+        while (select.endsWith(";")) {
+            select = select.substring(0, select.length() - 1).trim();
+        }
+        return "copy (" + select + ") to stdout with (format binary)";
+    }
+
+    @Override
+    public DataTable extract(String query) throws SQLException {
+        List<DataColumn> columns = new LinkedList<DataColumn>();
+        String[] typeNames;
+        try (PreparedStatement statement = environment.getConnection().prepareStatement(query)) {
+            ResultSetMetaData md = statement.getMetaData();
+            typeNames = new String[md.getColumnCount()];
+            for (int i = 1; i <= typeNames.length; i++) {
+                columns.add(new DataColumn(md, i));
+                typeNames[i - 1] = md.getColumnTypeName(i);
+            }
+        }
+
+        PGCopyInputStream copy = new PGCopyInputStream(
+                environment.getConnection().unwrap(PGConnection.class), buildCopyCommand(query));
+        try (InputStream in = copy) {
+            return new DataTable(readRows(new BufferedInputStream(in, BUFFER_SIZE), columns, typeNames),
+                    columns);
+        } catch (IOException e) {
+            throw new SQLException("Cannot read results of " + query + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads all rows of the binary copy format: a header, one tuple per row
+     * of field lengths and values in network byte order, and a trailer.
+     */
+    static List<DataRow> readRows(InputStream stream, List<DataColumn> columns, String[] typeNames)
+            throws IOException, SQLException {
+        DataInputStream in = new DataInputStream(stream);
+        byte[] signature = new byte[SIGNATURE.length];
+        in.readFully(signature);
+        if (!Arrays.equals(signature, SIGNATURE)) {
+            throw new SQLException("Unexpected header of binary copy data");
+        }
+        in.readInt();
+        in.skipBytes(in.readInt());
+
+        List<DataRow> rows = new LinkedList<DataRow>();
+        short fieldCount;
+        while ((fieldCount = in.readShort()) != -1) {
+            if (fieldCount != typeNames.length) {
+                throw new SQLException("Expected " + typeNames.length + " fields but got " + fieldCount);
+            }
+            Map<String, Object> values = new HashMap<String, Object>();
+            int i = 0;
+            for (DataColumn column: columns) {
+                int length = in.readInt();
+                Object value = null;
+                if (length >= 0) {
+                    byte[] field = new byte[length];
+                    in.readFully(field);
+                    value = decode(typeNames[i], field);
+                }
+                values.put(normaliseName(column.getName()), normaliseValue(value));
+                i++;
+            }
+            rows.add(new DataRow(values));
+        }
+        while (in.read() != -1) {
+            // the driver ends the copy once all data is read
+        }
+        return rows;
+    }
+
+    static Object decode(String typeName, byte[] field) throws IOException, SQLException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(field));
+        switch (typeName) {
+            case "int2":
+                return Integer.valueOf(in.readShort());
+            case "int4":
+            case "serial":
+                return Integer.valueOf(in.readInt());
+            case "int8":
+            case "bigserial":
+                return Long.valueOf(in.readLong());
+            case "float4":
+                return Float.valueOf(in.readFloat());
+            case "float8":
+                return Double.valueOf(in.readDouble());
+            case "numeric":
+                return decodeNumeric(in);
+            case "bool":
+                return Boolean.valueOf(in.readByte() != 0);
+            case "bytea":
+                return field;
+            case "date":
+                return decodeDate(in.readInt());
+            case "timestamp":
+                return decodeTimestamp(in.readLong(), false);
+            case "timestamptz":
+                return decodeTimestamp(in.readLong(), true);
+            default:
+                return new String(field, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Numerics are sent as base 10000 digits, with the weight of the first
+     * digit and the display scale.
+     */
+    private static BigDecimal decodeNumeric(DataInputStream in) throws IOException, SQLException {
+        int digitCount = in.readShort();
+        int weight = in.readShort();
+        int sign = in.readShort() & 0xffff;
+        int scale = in.readShort();
+        if (sign == 0xc000) {
+            throw new SQLException("Bad value for type BigDecimal : NaN");
+        }
+
+        BigInteger unscaled = BigInteger.ZERO;
+        BigInteger base = BigInteger.valueOf(10000);
+        for (int i = 0; i < digitCount; i++) {
+            unscaled = unscaled.multiply(base).add(BigInteger.valueOf(in.readShort()));
+        }
+        BigDecimal value = new BigDecimal(unscaled).movePointRight(4 * (weight - digitCount + 1));
+        value = value.setScale(scale, RoundingMode.DOWN);
+        return (sign == 0x4000) ? value.negate() : value;
+    }
+
+    private static Date decodeDate(int days) {
+        if (days == Integer.MAX_VALUE) {
+            return new Date(PGStatement.DATE_POSITIVE_INFINITY);
+        } else if (days == Integer.MIN_VALUE) {
+            return new Date(PGStatement.DATE_NEGATIVE_INFINITY);
+        }
+        return new Date(toLocalTime(POSTGRES_EPOCH_MILLIS + days * MILLIS_PER_DAY));
+    }
+
+    /**
+     * Timestamps are microseconds since 2000-01-01; the driver reads those
+     * without time zone in the time zone of the JVM.
+     */
+    private static Timestamp decodeTimestamp(long micros, boolean withTimeZone) {
+        if (micros == Long.MAX_VALUE) {
+            return new Timestamp(PGStatement.DATE_POSITIVE_INFINITY);
+        } else if (micros == Long.MIN_VALUE) {
+            return new Timestamp(PGStatement.DATE_NEGATIVE_INFINITY);
+        }
+
+        long seconds = micros / 1000000;
+        long fraction = micros % 1000000;
+        if (fraction < 0) {
+            fraction += 1000000;
+            seconds--;
+        }
+        long millis = POSTGRES_EPOCH_MILLIS + seconds * 1000;
+        Timestamp timestamp = new Timestamp(withTimeZone ? millis : toLocalTime(millis));
+        timestamp.setNanos((int) fraction * 1000);
+        return timestamp;
+    }
+
+    /**
+     * Converts a time in UTC to the same date and time of day in the
+     * default time zone.
+     */
+    private static long toLocalTime(long utcMillis) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        utc.setTimeInMillis(utcMillis);
+        Calendar local = Calendar.getInstance();
+        local.clear();
+        local.set(Calendar.ERA, utc.get(Calendar.ERA));
+        local.set(utc.get(Calendar.YEAR), utc.get(Calendar.MONTH), utc.get(Calendar.DATE),
+                utc.get(Calendar.HOUR_OF_DAY), utc.get(Calendar.MINUTE), utc.get(Calendar.SECOND));
+        local.set(Calendar.MILLISECOND, utc.get(Calendar.MILLISECOND));
+        return local.getTimeInMillis();
+    }
+}
@@ -0,0 +1,111 @@
+package dbfit.environment.postgres;
+
+import dbfit.api.BulkLoader;
+import dbfit.api.DBEnvironment;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+/**
+ * Loads rows with COPY ... FROM STDIN, streaming them to the server in CSV
+ * format through the CopyManager of the driver.
+ */
+public class PostgresCopyLoader implements BulkLoader {
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final DBEnvironment environment;
+
+    public PostgresCopyLoader(DBEnvironment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public boolean canLoad(String tableName, DbParameterAccessor[] columns) {
+        for (DbParameterAccessor column: columns) {
+            if (!column.hasDirection(Direction.INPUT)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String buildCopyCommand(String tableName, DbParameterAccessor[] columns) {
+        StringBuilder sb = new StringBuilder("copy ").append(tableName).append(" (");
+        String comma = "";
+        for (DbParameterAccessor column: columns) {
+            sb.append(comma).append(column.getName());
+            comma = ", ";
+        }
+        return sb.append(") from stdin with (format csv)").toString();
+    }
+
+    @Override
+    public long load(String tableName, DbParameterAccessor[] columns, Iterator<Object[]> rows)
+            throws SQLException {
+        CopyIn copyIn = environment.getConnection().unwrap(PGConnection.class)
+            .getCopyAPI().copyIn(buildCopyCommand(tableName, columns));
+        try {
+            StringBuilder chunk = new StringBuilder(CHUNK_SIZE + 1024);
+            while (rows.hasNext()) {
+                appendRow(chunk, columns, rows.next());
+                if (chunk.length() >= CHUNK_SIZE) {
+                    write(copyIn, chunk);
+                }
+            }
+            write(copyIn, chunk);
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void write(CopyIn copyIn, StringBuilder chunk) throws SQLException {
+        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+    }
+
+    private static void appendRow(StringBuilder sb, DbParameterAccessor[] columns, Object[] values)
+            throws SQLException {
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendValue(sb, columns[i].toJdbcCompatibleValue(values[i]));
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * Nulls are unquoted empty fields; all other values are quoted, so that
+     * empty strings and the end of data marker are read literally.
+     */
+    static void appendValue(StringBuilder sb, Object value) {
+        if (value == null) {
+            return;
+        }
+
+        String text;
+        if (value instanceof BigDecimal) {
+            text = ((BigDecimal) value).toPlainString();
+        } else if (value instanceof byte[]) {
+            StringBuilder hex = new StringBuilder("\\x");
+            for (byte b: (byte[]) value) {
+                hex.append(String.format("%02x", b));
+            }
+            text = hex.toString();
+        } else {
+            text = value.toString();
+        }
+        sb.append('"').append(text.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,57 @@
+package dbfit.environment;
+
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.TypeTransformerFactory;
+
+import org.junit.Test;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.sql.Statement;
+import java.sql.Types;
+
+public class PostgresEnvironmentTest {
+
+    private final PostgresEnvironment environment = new PostgresEnvironment("org.postgresql.Driver");
+
+    private static DbParameterAccessor column(String name, int sqlType) {
+        return new DbParameterAccessor(name, Direction.INPUT, sqlType, Object.class, 0,
+                new TypeTransformerFactory());
+    }
+
+    @Test
+    public void shouldCastArrayParameterToColumnType() {
+        assertThat(environment.buildArrayInclusionPredicate(column("id", Types.BIGINT)),
+                is("id = any(cast(? as bigint[]))"));
+        assertThat(environment.buildArrayInclusionPredicate(column("name", Types.VARCHAR)),
+                is("name = any(cast(? as varchar[]))"));
+    }
+
+    @Test
+    public void shouldNotUseArrayParameterForOtherTypes() {
+        assertThat(environment.buildArrayInclusionPredicate(column("data", Types.BLOB)), is(nullValue()));
+    }
+
+    @Test
+    public void shouldUpsertWithOnConflict() {
+        DbParameterAccessor[] keys = { column("code", Types.VARCHAR) };
+
+        assertThat(environment.buildUpsertCommand("currencies", keys,
+                    new DbParameterAccessor[] { column("name", Types.VARCHAR), column("rate", Types.NUMERIC) }),
+                is("insert into currencies (code, name, rate) values (?, ?, ?)"
+                    + " on conflict (code) do update set name = excluded.name, rate = excluded.rate"
+                    + " returning (xmax = 0) as inserted"));
+        assertThat(environment.buildUpsertCommand("currencies", keys, new DbParameterAccessor[0]),
+                is("insert into currencies (code) values (?) on conflict (code) do nothing"));
+    }
+
+    @Test
+    public void shouldTellInsertsOfUpsertDoingNothingFromUpdateCounts() {
+        assertThat(PostgresEnvironment.getInsertsFromUpdateCounts(new int[] { 1, 0 }),
+                is(new boolean[] { true, false }));
+        assertThat(PostgresEnvironment.getInsertsFromUpdateCounts(new int[] { 1, Statement.SUCCESS_NO_INFO }),
+                is(nullValue()));
+    }
+}
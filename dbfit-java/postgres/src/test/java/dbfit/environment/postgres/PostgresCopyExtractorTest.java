@@ -0,0 +1,122 @@
+package dbfit.environment.postgres;
+
+import dbfit.util.DataColumn;
+import dbfit.util.DataRow;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+public class PostgresCopyExtractorTest {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+
+    private void writeHeader() throws IOException {
+        out.write(new byte[] { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0 });
+        out.writeInt(0);
+        out.writeInt(0);
+    }
+
+    private List<DataRow> readRows(String... typeNames) throws Exception {
+        out.writeShort(-1);
+        DataColumn[] columns = new DataColumn[typeNames.length];
+        for (int i = 0; i < typeNames.length; i++) {
+            columns[i] = new DataColumn("C" + i, null, typeNames[i]);
+        }
+        return PostgresCopyExtractor.readRows(new ByteArrayInputStream(bytes.toByteArray()),
+                Arrays.asList(columns), typeNames);
+    }
+
+    private Object decodeNumeric(int weight, int sign, int scale, int... digits) throws Exception {
+        ByteArrayOutputStream field = new ByteArrayOutputStream();
+        DataOutputStream numeric = new DataOutputStream(field);
+        numeric.writeShort(digits.length);
+        numeric.writeShort(weight);
+        numeric.writeShort(sign);
+        numeric.writeShort(scale);
+        for (int digit: digits) {
+            numeric.writeShort(digit);
+        }
+        return PostgresCopyExtractor.decode("numeric", field.toByteArray());
+    }
+
+    @Test
+    public void copyCommandShouldWrapQueryWithoutTrailingSemicolon() {
+        assertEquals("copy (select * from t) to stdout with (format binary)",
+                PostgresCopyExtractor.buildCopyCommand(" select * from t; "));
+    }
+
+    @Test
+    public void rowsShouldBeDecodedByColumnType() throws Exception {
+        writeHeader();
+        out.writeShort(3);
+        out.writeInt(4);
+        out.writeInt(42);
+        byte[] text = "Gr\u00fc\u00dfe".getBytes(StandardCharsets.UTF_8);
+        out.writeInt(text.length);
+        out.write(text);
+        out.writeInt(-1);
+
+        List<DataRow> rows = readRows("int4", "varchar", "int8");
+
+        assertEquals(1, rows.size());
+        assertEquals(42, rows.get(0).get("c0"));
+        assertEquals("Gr\u00fc\u00dfe", rows.get(0).get("c1"));
+        assertNull(rows.get(0).get("c2"));
+        assertTrue(rows.get(0).getColumnNames().contains("c2"));
+    }
+
+    @Test
+    public void emptyResultsShouldHaveNoRows() throws Exception {
+        writeHeader();
+
+        assertTrue(readRows("int4").isEmpty());
+    }
+
+    @Test(expected = java.sql.SQLException.class)
+    public void unexpectedHeaderShouldFail() throws Exception {
+        out.write("COPY".getBytes(StandardCharsets.US_ASCII));
+        out.write(new byte[20]);
+
+        readRows("int4");
+    }
+
+    @Test
+    public void numericsShouldKeepDisplayScale() throws Exception {
+        assertEquals(new BigDecimal("123.45"), decodeNumeric(0, 0, 2, 123, 4500));
+        assertEquals(new BigDecimal("-120000"), decodeNumeric(1, 0x4000, 0, 12));
+        assertEquals(new BigDecimal("0.0005"), decodeNumeric(-1, 0, 4, 5));
+        assertEquals(new BigDecimal("0.00"), decodeNumeric(0, 0, 2));
+    }
+
+    @Test
+    public void timestampsWithTimeZoneShouldCountFrom2000() throws Exception {
+        ByteArrayOutputStream field = new ByteArrayOutputStream();
+        new DataOutputStream(field).writeLong(1500000L);
+
+        Timestamp ts = (Timestamp) PostgresCopyExtractor.decode("timestamptz", field.toByteArray());
+
+        assertEquals(946684801000L + 500, ts.getTime());
+        assertEquals(500000000, ts.getNanos());
+    }
+
+    @Test
+    public void timestampsWithoutTimeZoneShouldBeLocalTime() throws Exception {
+        ByteArrayOutputStream field = new ByteArrayOutputStream();
+        new DataOutputStream(field).writeLong(-1L);
+
+        Timestamp ts = (Timestamp) PostgresCopyExtractor.decode("timestamp", field.toByteArray());
+
+        assertEquals(Timestamp.valueOf("1999-12-31 23:59:59.999999"), ts);
+    }
+}
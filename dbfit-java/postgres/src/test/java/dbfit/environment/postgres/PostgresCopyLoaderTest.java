@@ -0,0 +1,55 @@
+package dbfit.environment.postgres;
+
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.TypeTransformerFactory;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+
+public class PostgresCopyLoaderTest {
+
+    private static String csv(Object value) {
+        StringBuilder sb = new StringBuilder();
+        PostgresCopyLoader.appendValue(sb, value);
+        return sb.toString();
+    }
+
+    @Test
+    public void nullShouldBeUnquotedEmptyField() {
+        assertEquals("", csv(null));
+    }
+
+    @Test
+    public void valuesShouldBeQuoted() {
+        assertEquals("\"\"", csv(""));
+        assertEquals("\"say \"\"hi\"\", now\"", csv("say \"hi\", now"));
+        assertEquals("\"\\.\"", csv("\\."));
+    }
+
+    @Test
+    public void decimalsShouldNotUseExponent() {
+        assertEquals("\"10000000000\"", csv(new BigDecimal("1E+10")));
+    }
+
+    @Test
+    public void bytesShouldUseHexFormat() {
+        assertEquals("\"\\x0aff\"", csv(new byte[] { 10, -1 }));
+    }
+
+    @Test
+    public void copyCommandShouldListColumns() {
+        DbParameterAccessor[] columns = {
+            new DbParameterAccessor("\"id\"", Direction.INPUT, Types.INTEGER, Integer.class, 0,
+                    new TypeTransformerFactory()),
+            new DbParameterAccessor("\"name\"", Direction.INPUT, Types.VARCHAR, String.class, 1,
+                    new TypeTransformerFactory())
+        };
+
+        assertEquals("copy users (\"id\", \"name\") from stdin with (format csv)",
+                PostgresCopyLoader.buildCopyCommand("users", columns));
+    }
+}
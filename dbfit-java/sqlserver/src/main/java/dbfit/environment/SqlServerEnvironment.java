@@ -2,6 +2,8 @@ package dbfit.environment;
 
 import dbfit.annotations.DatabaseEnvironment;
 import dbfit.api.AbstractDbEnvironment;
+import dbfit.api.BulkLoader;
+import dbfit.environment.sqlserver.SqlServerBulkCopyLoader;
 import dbfit.util.DbParameterAccessor;
 import dbfit.util.DbParameterAccessorsMapBuilder;
 import dbfit.util.Direction;
@@ -36,6 +38,34 @@ public class SqlServerEnvironment extends AbstractDbEnvironment {
         return false;
     }
 
+    /**
+     * Loads through the bulk copy API, which drivers older than mssql-jdbc
+     * 6.1 lack. Rows are then inserted with JDBC batches.
+     */
+    @Override
+    public BulkLoader getBulkLoader() {
+        try {
+            Class.forName("com.microsoft.sqlserver.jdbc.SQLServerBulkCopy");
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        return new SqlServerBulkCopyLoader(this);
+    }
+
+    @Override
+    public String buildDisableConstraintsCommand(String tableName) {
+        return "alter table " + tableName + " nocheck constraint all";
+    }
+
+    /**
+     * Checks the existing rows when enabling the constraints, so that they
+     * stay trusted by the optimizer.
+     */
+    @Override
+    public String buildEnableConstraintsCommand(String tableName) {
+        return "alter table " + tableName + " with check check constraint all";
+    }
+
     @Override
     protected String getConnectionString(String dataSource) {
         return "jdbc:sqlserver://" + dataSource;
@@ -257,5 +287,25 @@ public class SqlServerEnvironment extends AbstractDbEnvironment {
         sb.append(")");
         return sb.toString();
     }
-}
 
+    /**
+     * SQL Server requires MERGE statements to be terminated with a semicolon
+     */
+    @Override
+    public String buildUpsertCommand(String tableName, DbParameterAccessor[] keyColumns,
+            DbParameterAccessor[] valueColumns) {
+        return super.buildUpsertCommand(tableName, keyColumns, valueColumns) + ";";
+    }
+
+    /**
+     * Lists the other running requests with the session blocking them and
+     * the resource they wait for.
+     */
+    @Override
+    public String buildSessionDiagnosticsQuery() {
+        return "select r.session_id, r.blocking_session_id, r.status, r.wait_type, "
+            + "r.wait_time, r.wait_resource, t.text "
+            + "from sys.dm_exec_requests r cross apply sys.dm_exec_sql_text(r.sql_handle) t "
+            + "where r.session_id <> @@SPID";
+    }
+}
@@ -0,0 +1,100 @@
+package dbfit.environment.sqlserver;
+
+import dbfit.util.DbParameterAccessor;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkRecord;
+import com.microsoft.sqlserver.jdbc.SQLServerException;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Bulk copy source reading rows from an iterator, converting the values
+ * with the column accessors as they are requested by the driver.
+ */
+class IteratorBulkRecord implements ISQLServerBulkRecord {
+    private final DbParameterAccessor[] columns;
+    private final Iterator<Object[]> rows;
+    private final Set<Integer> ordinals = new LinkedHashSet<Integer>();
+    private final int[] types;
+    private final int[] precisions;
+    private final int[] scales;
+    private Object[] current;
+    private long rowCount = 0;
+
+    IteratorBulkRecord(DbParameterAccessor[] columns, ResultSetMetaData target,
+            Iterator<Object[]> rows) throws SQLException {
+        this.columns = columns;
+        this.rows = rows;
+        this.types = new int[columns.length];
+        this.precisions = new int[columns.length];
+        this.scales = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            ordinals.add(i + 1);
+            types[i] = target.getColumnType(i + 1);
+            precisions[i] = target.getPrecision(i + 1);
+            scales[i] = target.getScale(i + 1);
+        }
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public Set<Integer> getColumnOrdinals() {
+        return ordinals;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column - 1].getName();
+    }
+
+    @Override
+    public int getColumnType(int column) {
+        return types[column - 1];
+    }
+
+    @Override
+    public int getPrecision(int column) {
+        return precisions[column - 1];
+    }
+
+    @Override
+    public int getScale(int column) {
+        return scales[column - 1];
+    }
+
+    @Override
+    public boolean isAutoIncrement(int column) {
+        return false;
+    }
+
+    @Override
+    public boolean next() throws SQLServerException {
+        if (!rows.hasNext()) {
+            return false;
+        }
+
+        Object[] values = rows.next();
+        current = new Object[columns.length];
+        try {
+            for (int i = 0; i < columns.length; i++) {
+                current[i] = columns[i].toJdbcCompatibleValue(values[i]);
+            }
+        } catch (SQLException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        ++rowCount;
+        return true;
+    }
+
+    @Override
+    public Object[] getRowData() {
+        return current;
+    }
+}
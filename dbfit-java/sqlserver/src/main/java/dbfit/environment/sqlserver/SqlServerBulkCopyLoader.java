@@ -0,0 +1,81 @@
+package dbfit.environment.sqlserver;
+
+import dbfit.api.BulkLoader;
+import dbfit.api.DBEnvironment;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+/**
+ * Loads rows with the bulk copy API of the Microsoft JDBC driver, within
+ * the transaction of the current connection. Column types, precision and
+ * scale are taken from the target table. Rows are loaded as an insert of the
+ * same values would store them: nulls are kept instead of replaced by column
+ * defaults, given identity values are kept, and constraints and triggers are
+ * checked and fired.
+ */
+public class SqlServerBulkCopyLoader implements BulkLoader {
+    private final DBEnvironment environment;
+
+    public SqlServerBulkCopyLoader(DBEnvironment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public boolean canLoad(String tableName, DbParameterAccessor[] columns) {
+        for (DbParameterAccessor column: columns) {
+            if (!column.hasDirection(Direction.INPUT)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String buildMetaDataQuery(String tableName, DbParameterAccessor[] columns) {
+        StringBuilder sb = new StringBuilder("select ");
+        String comma = "";
+        for (DbParameterAccessor column: columns) {
+            sb.append(comma).append("[").append(column.getName()).append("]");
+            comma = ", ";
+        }
+        return sb.append(" from ").append(tableName).append(" where 1 = 0").toString();
+    }
+
+    static SQLServerBulkCopyOptions buildOptions() {
+        SQLServerBulkCopyOptions options = new SQLServerBulkCopyOptions();
+        options.setKeepNulls(true);
+        options.setKeepIdentity(true);
+        options.setCheckConstraints(true);
+        options.setFireTriggers(true);
+        return options;
+    }
+
+    @Override
+    public long load(String tableName, DbParameterAccessor[] columns, Iterator<Object[]> rows)
+            throws SQLException {
+        IteratorBulkRecord record;
+        try (PreparedStatement st = environment.getConnection().prepareStatement(
+                    buildMetaDataQuery(tableName, columns));
+             ResultSet rs = st.executeQuery()) {
+            record = new IteratorBulkRecord(columns, rs.getMetaData(), rows);
+        }
+
+        try (SQLServerBulkCopy bulkCopy = new SQLServerBulkCopy(environment.getConnection())) {
+            bulkCopy.setDestinationTableName(tableName);
+            bulkCopy.setBulkCopyOptions(buildOptions());
+            for (int i = 0; i < columns.length; i++) {
+                bulkCopy.addColumnMapping(i + 1, columns[i].getName());
+            }
+            bulkCopy.writeToServer(record);
+        }
+        return record.getRowCount();
+    }
+}
@@ -1,5 +1,6 @@
 package dbfit.environment;
 
+import dbfit.environment.sqlserver.SqlServerBulkCopyLoader;
 import dbfit.util.DbParameterAccessor;
 import dbfit.util.Direction;
 import dbfit.util.TypeTransformerFactory;
@@ -11,6 +12,13 @@ public class SqlServerDbEnvironmentUnitTests {
 
     private TypeTransformerFactory dbfitToJdbcTransformerFactory = new TypeTransformerFactory();
 
+    @Test
+    public void getBulkLoader_UsesBulkCopyOfDriver() throws Exception {
+        SqlServerEnvironment env = new SqlServerEnvironment("SqlServer");
+
+        assertTrue(env.getBulkLoader() instanceof SqlServerBulkCopyLoader);
+    }
+
     @Test
     public void buildInsertCommand_AllInputParameters() throws Exception {
         SqlServerEnvironment env = new SqlServerEnvironment("SqlServer");
@@ -41,5 +49,19 @@ public class SqlServerDbEnvironmentUnitTests {
 
         assertEquals(expectedResult, actualResult);
     }
-}
 
+    @Test
+    public void buildUpsertCommand_MergesRowOfParameters() throws Exception {
+        SqlServerEnvironment env = new SqlServerEnvironment("SqlServer");
+
+        String expectedResult = "merge into DummyTable t using (values (?, ?)) as s (Code, Name)"
+            + " on (t.Code = s.Code) when matched then update set Name = s.Name"
+            + " when not matched then insert (Code, Name) values (s.Code, s.Name);";
+        DbParameterAccessor[] keys = { new DbParameterAccessor("Code", Direction.INPUT, 0, null, 0, dbfitToJdbcTransformerFactory) };
+        DbParameterAccessor[] values = { new DbParameterAccessor("Name", Direction.INPUT, 0, null, 1, dbfitToJdbcTransformerFactory) };
+
+        String actualResult = env.buildUpsertCommand("DummyTable", keys, values);
+
+        assertEquals(expectedResult, actualResult);
+    }
+}
@@ -0,0 +1,60 @@
+package dbfit.environment.sqlserver;
+
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.TypeTransformerFactory;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.Arrays;
+
+public class IteratorBulkRecordTest {
+
+    private static final DbParameterAccessor[] COLUMNS = {
+        new DbParameterAccessor("id", Direction.INPUT, Types.INTEGER, Integer.class, 0,
+                new TypeTransformerFactory()),
+        new DbParameterAccessor("amount", Direction.INPUT, Types.DECIMAL, BigDecimal.class, 1,
+                new TypeTransformerFactory())
+    };
+
+    @Test
+    public void shouldDescribeColumnsAsTargetTable() throws Exception {
+        ResultSetMetaData target = mock(ResultSetMetaData.class);
+        when(target.getColumnType(2)).thenReturn(Types.DECIMAL);
+        when(target.getPrecision(2)).thenReturn(12);
+        when(target.getScale(2)).thenReturn(2);
+
+        IteratorBulkRecord record = new IteratorBulkRecord(COLUMNS, target,
+                Arrays.<Object[]>asList().iterator());
+
+        assertEquals(Arrays.asList(1, 2), Arrays.asList(record.getColumnOrdinals().toArray()));
+        assertEquals("amount", record.getColumnName(2));
+        assertEquals(Types.DECIMAL, record.getColumnType(2));
+        assertEquals(12, record.getPrecision(2));
+        assertEquals(2, record.getScale(2));
+    }
+
+    @Test
+    public void shouldReadRowsFromIterator() throws Exception {
+        IteratorBulkRecord record = new IteratorBulkRecord(COLUMNS, mock(ResultSetMetaData.class),
+                Arrays.asList(new Object[] { 1, new BigDecimal("1.50") }, new Object[] { 2, null }).iterator());
+
+        assertTrue(record.next());
+        assertArrayEquals(new Object[] { 1, new BigDecimal("1.50") }, record.getRowData());
+        assertTrue(record.next());
+        assertArrayEquals(new Object[] { 2, null }, record.getRowData());
+        assertFalse(record.next());
+        assertEquals(2, record.getRowCount());
+    }
+
+    @Test
+    public void metaDataQueryShouldSelectNoRows() {
+        assertEquals("select [id], [amount] from dbo.t where 1 = 0",
+                SqlServerBulkCopyLoader.buildMetaDataQuery("dbo.t", COLUMNS));
+    }
+}
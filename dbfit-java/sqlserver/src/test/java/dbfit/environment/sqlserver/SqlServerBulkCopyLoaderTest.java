@@ -0,0 +1,19 @@
+package dbfit.environment.sqlserver;
+
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SqlServerBulkCopyLoaderTest {
+
+    @Test
+    public void shouldLoadRowsAsInsertsWouldStoreThem() {
+        SQLServerBulkCopyOptions options = SqlServerBulkCopyLoader.buildOptions();
+
+        assertTrue(options.isKeepNulls());
+        assertTrue(options.isKeepIdentity());
+        assertTrue(options.isCheckConstraints());
+        assertTrue(options.isFireTriggers());
+    }
+}
@@ -2,12 +2,16 @@ package dbfit.environment;
 
 import dbfit.annotations.DatabaseEnvironment;
 import dbfit.api.AbstractDbEnvironment;
+import dbfit.api.BulkExtractor;
+import dbfit.api.BulkLoader;
 import dbfit.util.*;
 import fit.TypeAdapter;
 
 import java.math.BigDecimal;
 import java.sql.CallableStatement;
 import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
@@ -18,7 +22,6 @@ import java.util.regex.Pattern;
 
 @DatabaseEnvironment(name="Teradata", driver="com.teradata.jdbc.TeraDriver")
 public class TeradataEnvironment extends AbstractDbEnvironment {
-
     public static class TeradataClobNormaliser implements TypeTransformer {
 
         private static final int MAX_CLOB_LENGTH = 10000;
@@ -129,6 +132,78 @@ public class TeradataEnvironment extends AbstractDbEnvironment {
         return url;
     }
 
+    /**
+     * Adds TYPE=FASTLOAD to the connection parameters of the url, replacing
+     * any TYPE it has.
+     */
+    static String getFastLoadConnectionString(String connectionString) {
+        return addConnectionParameter(connectionString, "TYPE=FASTLOAD");
+    }
+
+    /**
+     * Adds TYPE=FASTEXPORT to the connection parameters of the url, replacing
+     * any TYPE it has.
+     */
+    static String getFastExportConnectionString(String connectionString) {
+        return addConnectionParameter(connectionString, "TYPE=FASTEXPORT");
+    }
+
+    private static String addConnectionParameter(String connectionString, String parameter) {
+        int start = connectionString.indexOf("//");
+        int parameters = connectionString.indexOf('/', start + 2);
+        if (parameters < 0) {
+            return connectionString + "/" + parameter;
+        }
+
+        String name = parameter.substring(0, parameter.indexOf('=') + 1).toUpperCase();
+        StringBuilder sb = new StringBuilder(connectionString.substring(0, parameters + 1));
+        for (String existing : connectionString.substring(parameters + 1).split(",")) {
+            if (!existing.isEmpty() && !existing.trim().toUpperCase().startsWith(name)) {
+                sb.append(existing).append(",");
+            }
+        }
+        return sb.append(parameter).toString();
+    }
+
+    /**
+     * Opens a new connection with a FastLoad session, as used by
+     * {@link TeradataFastLoadLoader}.
+     */
+    Connection openFastLoadConnection() throws SQLException {
+        if (connectionString == null) {
+            throw new SQLException("Not connected to Teradata");
+        }
+        return DriverManager.getConnection(
+                getFastLoadConnectionString(connectionString), connectionProperties);
+    }
+
+    /**
+     * Opens a new connection with FastExport sessions, as used by
+     * {@link TeradataFastExportExtractor}.
+     */
+    Connection openFastExportConnection() throws SQLException {
+        if (connectionString == null) {
+            throw new SQLException("Not connected to Teradata");
+        }
+        return DriverManager.getConnection(
+                getFastExportConnectionString(connectionString), connectionProperties);
+    }
+
+    @Override
+    public BulkLoader getBulkLoader() {
+        return new TeradataFastLoadLoader(this);
+    }
+
+    @Override
+    public BulkExtractor getBulkExtractor() {
+        return new TeradataFastExportExtractor(this);
+    }
+
+    @Override
+    public String buildTruncateCommand(String tableName) {
+        return "delete from " + tableName + " all";
+    }
+
     @Override
     public DdlStatementExecution createDdlStatementExecution(String ddl)
             throws SQLException {
@@ -441,4 +516,20 @@ public class TeradataEnvironment extends AbstractDbEnvironment {
                 "TeradataEnvironment: Direction " + direction
                         + " is not supported");
     }
+
+    /**
+     * The key columns must include the primary index of the table
+     */
+    @Override
+    public String buildUpsertCommand(String tableName, DbParameterAccessor[] keyColumns,
+            DbParameterAccessor[] valueColumns) {
+        StringBuilder sb = new StringBuilder("merge into ").append(tableName)
+            .append(" t using values (");
+        appendParameters(sb, keyColumns.length + valueColumns.length);
+        sb.append(") as s (");
+        appendColumnNames(sb, keyColumns, valueColumns, "");
+        sb.append(")");
+        appendMergeClauses(sb, keyColumns, valueColumns);
+        return sb.toString();
+    }
 }
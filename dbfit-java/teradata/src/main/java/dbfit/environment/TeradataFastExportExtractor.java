@@ -0,0 +1,47 @@
+package dbfit.environment;
+
+import dbfit.api.BulkExtractor;
+import dbfit.util.DataTable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.regex.Pattern;
+
+/**
+ * Reads query results with JDBC FastExport: the query runs on a separate
+ * connection with TYPE=FASTEXPORT, on which the driver fetches the rows
+ * with FastExport sessions in large blocks instead of through a single
+ * session. The driver runs queries FastExport cannot handle as a regular
+ * select on that connection.
+ *
+ * As the query runs on a separate connection, it only sees committed rows,
+ * and would wait for locks held by the test transaction. It is therefore
+ * only used while the connection of the environment is in auto-commit mode.
+ */
+public class TeradataFastExportExtractor implements BulkExtractor {
+    private static final Pattern SELECT = Pattern.compile("^\\s*sel(ect)?\\s", Pattern.CASE_INSENSITIVE);
+
+    private final TeradataEnvironment environment;
+
+    public TeradataFastExportExtractor(TeradataEnvironment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * FastExport only runs select statements, and is only used when the
+     * test does not keep a transaction open.
+     */
+    @Override
+    public boolean canExtract(String query) throws SQLException {
+        return SELECT.matcher(query).find() && environment.getConnection().getAutoCommit();
+    }
+
+    @Override
+    public DataTable extract(String query) throws SQLException {
+        try (Connection connection = environment.openFastExportConnection();
+                PreparedStatement statement = connection.prepareStatement(query)) {
+            return new DataTable(statement.executeQuery());
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package dbfit.environment;
+
+import dbfit.api.BulkLoader;
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+/**
+ * Loads rows with JDBC FastLoad: the rows are inserted in large batches on
+ * a separate connection with TYPE=FASTLOAD, which the driver sends to the
+ * database with FastLoad sessions instead of single row inserts.
+ *
+ * FastLoad only loads into empty tables without secondary indexes; other
+ * tables are inserted with JDBC batches instead. As the rows are loaded and
+ * committed on a separate connection, they would not be rolled back at the
+ * end of the test, and the load would wait for locks held by the test
+ * transaction. FastLoad is therefore only used while the connection of the
+ * environment is in auto-commit mode.
+ */
+public class TeradataFastLoadLoader implements BulkLoader {
+    static final int ROWS_PER_BATCH = 50000;
+
+    private final TeradataEnvironment environment;
+
+    public TeradataFastLoadLoader(TeradataEnvironment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public boolean canLoad(String tableName, DbParameterAccessor[] columns) throws SQLException {
+        for (DbParameterAccessor column: columns) {
+            if (!column.hasDirection(Direction.INPUT)) {
+                return false;
+            }
+        }
+
+        if (!environment.getConnection().getAutoCommit()) {
+            Log.log("Not using FastLoad for %s: connection is not in auto-commit mode", tableName);
+            return false;
+        }
+
+        if (!isEmpty(tableName)) {
+            Log.log("Not using FastLoad for %s: table is not empty", tableName);
+            return false;
+        }
+        if (hasSecondaryIndexes(tableName)) {
+            Log.log("Not using FastLoad for %s: table has secondary indexes", tableName);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isEmpty(String tableName) throws SQLException {
+        try (PreparedStatement statement = environment.getConnection().prepareStatement(
+                    "locking table " + tableName + " for access select top 1 1 from " + tableName);
+                ResultSet rs = statement.executeQuery()) {
+            return !rs.next();
+        }
+    }
+
+    /**
+     * Primary indexes, partitioned or not, are the only indexes FastLoad
+     * can maintain.
+     */
+    static String buildSecondaryIndexQuery(String tableName) {
+        String database = tableName.contains(".") ? "upper(?)" : "database";
+        return "locking row for access select count(*) from DBC.IndicesV"
+            + " where upper(DatabaseName) = " + database + " and upper(TableName) = upper(?)"
+            + " and IndexType not in ('P', 'Q')";
+    }
+
+    private boolean hasSecondaryIndexes(String tableName) throws SQLException {
+        String[] qualifiers = tableName.split("\\.");
+        try (PreparedStatement statement = environment.getConnection().prepareStatement(
+                    buildSecondaryIndexQuery(tableName))) {
+            for (int i = 0; i < qualifiers.length; i++) {
+                statement.setString(i + 1, qualifiers[i]);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    @Override
+    public long load(String tableName, DbParameterAccessor[] columns, Iterator<Object[]> rows)
+            throws SQLException {
+        if (!rows.hasNext()) {
+            return 0;
+        }
+
+        try (Connection connection = environment.openFastLoadConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                        environment.buildInsertCommand(tableName, columns))) {
+                long count = 0;
+                while (rows.hasNext()) {
+                    setValues(statement, columns, rows.next());
+                    statement.addBatch();
+                    if (++count % ROWS_PER_BATCH == 0) {
+                        statement.executeBatch();
+                    }
+                }
+                if (count % ROWS_PER_BATCH != 0) {
+                    statement.executeBatch();
+                }
+                connection.commit();
+                return count;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private static void setValues(PreparedStatement statement, DbParameterAccessor[] columns,
+            Object[] values) throws SQLException {
+        for (int i = 0; i < columns.length; i++) {
+            Object value = columns[i].toJdbcCompatibleValue(values[i]);
+            if (value == null) {
+                statement.setNull(i + 1, columns[i].getSqlType());
+            } else {
+                statement.setObject(i + 1, value, columns[i].getSqlType());
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package dbfit.environment;
+
+import dbfit.util.DataTable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TeradataFastExportExtractorTest {
+
+    @Mock private TeradataEnvironment environment;
+    @Mock private Connection connection;
+    @Mock private PreparedStatement statement;
+    @Mock private ResultSet resultSet;
+    @Mock private ResultSetMetaData metaData;
+
+    @Test
+    public void shouldAddFastExportTypeToConnectionParameters() {
+        assertThat(TeradataEnvironment.getFastExportConnectionString("jdbc:teradata://host"),
+                is("jdbc:teradata://host/TYPE=FASTEXPORT"));
+        assertThat(TeradataEnvironment.getFastExportConnectionString(
+                    "jdbc:teradata://host/DATABASE=db,FINALIZE_AUTO_CLOSE=ON"),
+                is("jdbc:teradata://host/DATABASE=db,FINALIZE_AUTO_CLOSE=ON,TYPE=FASTEXPORT"));
+        assertThat(TeradataEnvironment.getFastExportConnectionString("jdbc:teradata://host/"),
+                is("jdbc:teradata://host/TYPE=FASTEXPORT"));
+        assertThat(TeradataEnvironment.getFastExportConnectionString(
+                    "jdbc:teradata://host/TYPE=DEFAULT,DATABASE=db"),
+                is("jdbc:teradata://host/DATABASE=db,TYPE=FASTEXPORT"));
+    }
+
+    @Test
+    public void shouldOnlyExtractSelectStatements() throws Exception {
+        when(environment.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(true);
+        TeradataFastExportExtractor extractor = new TeradataFastExportExtractor(environment);
+
+        assertThat(extractor.canExtract(" SELECT * from t"), is(true));
+        assertThat(extractor.canExtract("sel\n* from t"), is(true));
+        assertThat(extractor.canExtract("help table t"), is(false));
+        assertThat(extractor.canExtract("selection_proc()"), is(false));
+    }
+
+    @Test
+    public void shouldNotExtractWithinTestTransaction() throws Exception {
+        when(environment.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(false);
+
+        assertThat(new TeradataFastExportExtractor(environment).canExtract("select * from t"), is(false));
+    }
+
+    @Test
+    public void shouldRunQueryOnFastExportConnectionAndCloseIt() throws Exception {
+        when(environment.openFastExportConnection()).thenReturn(connection);
+        when(connection.prepareStatement("select * from t")).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+
+        DataTable table = new TeradataFastExportExtractor(environment).extract("select * from t");
+
+        assertThat(table.getRows().isEmpty(), is(true));
+        verify(resultSet).close();
+        verify(connection).close();
+    }
+}
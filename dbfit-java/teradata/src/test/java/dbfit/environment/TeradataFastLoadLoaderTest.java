@@ -0,0 +1,102 @@
+package dbfit.environment;
+
+import dbfit.util.DbParameterAccessor;
+import dbfit.util.Direction;
+import dbfit.util.TypeTransformerFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.junit.Assert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TeradataFastLoadLoaderTest {
+
+    @Mock private TeradataEnvironment environment;
+    @Mock private Connection connection;
+    @Mock private PreparedStatement statement;
+    @Mock private ResultSet resultSet;
+
+    private final DbParameterAccessor[] columns = {
+        new DbParameterAccessor("name", Direction.INPUT, Types.VARCHAR, String.class, 0,
+                new TypeTransformerFactory())
+    };
+
+    @Before
+    public void prepare() throws Exception {
+        when(environment.getConnection()).thenReturn(connection);
+    }
+
+    private void mockTableQueries() throws Exception {
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+    }
+
+    @Test
+    public void shouldAddFastLoadTypeToConnectionParameters() {
+        assertThat(TeradataEnvironment.getFastLoadConnectionString("jdbc:teradata://host"),
+                is("jdbc:teradata://host/TYPE=FASTLOAD"));
+        assertThat(TeradataEnvironment.getFastLoadConnectionString(
+                    "jdbc:teradata://host/DATABASE=db,FINALIZE_AUTO_CLOSE=ON"),
+                is("jdbc:teradata://host/DATABASE=db,FINALIZE_AUTO_CLOSE=ON,TYPE=FASTLOAD"));
+        assertThat(TeradataEnvironment.getFastLoadConnectionString("jdbc:teradata://host/"),
+                is("jdbc:teradata://host/TYPE=FASTLOAD"));
+        assertThat(TeradataEnvironment.getFastLoadConnectionString(
+                    "jdbc:teradata://host/TYPE=DEFAULT,DATABASE=db"),
+                is("jdbc:teradata://host/DATABASE=db,TYPE=FASTLOAD"));
+    }
+
+    @Test
+    public void shouldLookUpSecondaryIndexesInCurrentOrGivenDatabase() {
+        assertThat(TeradataFastLoadLoader.buildSecondaryIndexQuery("users"),
+                containsString("upper(DatabaseName) = database and upper(TableName) = upper(?)"));
+        assertThat(TeradataFastLoadLoader.buildSecondaryIndexQuery("db.users"),
+                containsString("upper(DatabaseName) = upper(?) and upper(TableName) = upper(?)"));
+    }
+
+    @Test
+    public void shouldLoadEmptyTableWithoutSecondaryIndexes() throws Exception {
+        mockTableQueries();
+        when(resultSet.next()).thenReturn(false, true);
+        when(resultSet.getInt(1)).thenReturn(0);
+
+        assertThat(new TeradataFastLoadLoader(environment).canLoad("users", columns), is(true));
+    }
+
+    @Test
+    public void shouldNotLoadTableWithRows() throws Exception {
+        mockTableQueries();
+        when(resultSet.next()).thenReturn(true);
+
+        assertThat(new TeradataFastLoadLoader(environment).canLoad("users", columns), is(false));
+    }
+
+    @Test
+    public void shouldNotLoadTableWithSecondaryIndexes() throws Exception {
+        mockTableQueries();
+        when(resultSet.next()).thenReturn(false, true);
+        when(resultSet.getInt(1)).thenReturn(2);
+
+        assertThat(new TeradataFastLoadLoader(environment).canLoad("users", columns), is(false));
+    }
+
+    @Test
+    public void shouldNotLoadWithinTestTransaction() throws Exception {
+        when(connection.getAutoCommit()).thenReturn(false);
+
+        assertThat(new TeradataFastLoadLoader(environment).canLoad("users", columns), is(false));
+        verify(connection, never()).prepareStatement(anyString());
+    }
+}